@@ -1,24 +1,50 @@
 package com.crewmeister.cmcodingchallenge.client;
 
 import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class BundesbankApiClient {
 
     private static final Logger logger = LoggerFactory.getLogger(BundesbankApiClient.class);
+    private static final int MAX_DAILY_RESPONSE_BYTES = 1024 * 1024;
+    private static final String PROVIDER = "ECB";
 
     @Value("${ecb.api.daily-rates-url}")
     private String ECB_DAILY_RATES_URL;
 
+    @Value("${ecb.api.history-rates-url}")
+    private String ECB_HISTORY_RATES_URL;
+
+    @Value("${ecb.api.stream-buffer-size:65536}")
+    private int streamBufferSize;
+
     @Value("${ecb.api.timeout:10000}")
     private int timeoutMs;
 
@@ -27,11 +53,19 @@ public class BundesbankApiClient {
 
     private final WebClient webClient;
     private final EcbXmlParser xmlParser;
+    private final IngestionMetrics metrics;
+    private final AtomicReference<FetchValidators> lastIngested = new AtomicReference<>(FetchValidators.NONE);
 
     public BundesbankApiClient(EcbXmlParser xmlParser) {
+        this(xmlParser, IngestionMetrics.detached());
+    }
+
+    @Autowired
+    public BundesbankApiClient(EcbXmlParser xmlParser, IngestionMetrics metrics) {
         this.xmlParser = xmlParser;
+        this.metrics = metrics;
         this.webClient = WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_DAILY_RESPONSE_BYTES))
                 .build();
     }
 
@@ -42,12 +76,190 @@ public class BundesbankApiClient {
         return webClient.get()
                 .uri(url)
                 .retrieve()
-                .bodyToMono(String.class)
-                .filter(content -> content != null && content.contains("Envelope"))
-                .switchIfEmpty(Mono.error(new RuntimeException("Invalid XML response")))
-                .map(xmlParser::parseEcbXml)
+                .bodyToFlux(DataBuffer.class)
+                .as(body -> metrics.countBytes(PROVIDER, body))
+                .as(body -> xmlParser.parseEcbXml(body, MAX_DAILY_RESPONSE_BYTES))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(1)))
+                .onErrorReturn(BundesbankResponse.failure("ECB API call failed"));
+    }
+
+    /**
+     * Conditional variant of {@link #getExchangeRates()} for polling. Sends the validators of the last
+     * ingested response and completes empty when ECB answers 304 Not Modified or the body hashes
+     * to the same content as last time, so callers can skip parsing and storage entirely.
+     */
+    public Mono<BundesbankResponse> getExchangeRatesIfChanged() {
+        String url = ECB_DAILY_RATES_URL;
+        FetchValidators validators = lastIngested.get();
+        logger.debug("Polling exchange rates from ECB: {} (etag: {}, last-modified: {})",
+                url, validators.etag, validators.lastModified);
+
+        return webClient.get()
+                .uri(url)
+                .headers(headers -> {
+                    if (validators.etag != null) {
+                        headers.setIfNoneMatch(validators.etag);
+                    }
+                    if (validators.lastModified != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                        logger.info("ECB rates not modified since last fetch");
+                        return response.releaseBody().then(Mono.<BundesbankResponse>empty());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::<BundesbankResponse>error);
+                    }
+
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), MAX_DAILY_RESPONSE_BYTES)
+                            .doOnNext(body -> metrics.recordBytesReceived(PROVIDER, body.readableByteCount()))
+                            .flatMap(body -> parseIfChanged(body, headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED), validators.contentHash));
+                })
                 .timeout(Duration.ofMillis(timeoutMs))
                 .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(1)))
                 .onErrorReturn(BundesbankResponse.failure("ECB API call failed"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Remember the validators of a response once it has been stored, so the next poll can be conditional
+     */
+    public void markIngested(BundesbankResponse response) {
+        lastIngested.set(new FetchValidators(response.getEtag(), response.getLastModified(), response.getContentHash()));
+    }
+
+    private Mono<BundesbankResponse> parseIfChanged(DataBuffer body, String etag, String lastModified, String previousHash) {
+        String contentHash = sha256(body);
+        if (contentHash.equals(previousHash)) {
+            DataBufferUtils.release(body);
+            logger.info("ECB rates unchanged (same content hash), skipping parse");
+            lastIngested.set(new FetchValidators(etag, lastModified, contentHash));
+            return Mono.empty();
+        }
+
+        BundesbankResponse response;
+        try (InputStream input = body.asInputStream(true)) {
+            response = xmlParser.parseEcbXml(input);
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        response.setEtag(etag);
+        response.setLastModified(lastModified);
+        response.setContentHash(contentHash);
+        return Mono.just(response);
+    }
+
+    private static String sha256(DataBuffer buffer) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer.asByteBuffer());
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public InputStream openHistoricalRates() throws IOException {
+        return openHistoricalRates(ECB_HISTORY_RATES_URL);
+    }
+
+    /**
+     * Open an ECB XML document as a stream of bytes. The source is either an http(s) URL
+     * or a path to a local copy of the file; neither is ever held in memory as a whole.
+     * If the source fails, reading past the last byte received throws the failure as an
+     * {@link IOException} instead of reporting the end of the document.
+     */
+    public InputStream openHistoricalRates(String source) throws IOException {
+        logger.info("Streaming historical exchange rates from: {}", source);
+
+        Flux<DataBuffer> buffers;
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            buffers = webClient.get()
+                    .uri(source)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class);
+        } else {
+            String path = source.startsWith("file:") ? source.substring("file:".length()) : source;
+            buffers = DataBufferUtils.read(Paths.get(path), new DefaultDataBufferFactory(), streamBufferSize);
+        }
+
+        PipedOutputStream output = new PipedOutputStream();
+        SourceInputStream input = new SourceInputStream(new PipedInputStream(output, streamBufferSize), source);
+
+        // Pipe writes block once the reader falls behind, so keep them off the Netty event loop
+        DataBufferUtils.write(buffers.publishOn(Schedulers.boundedElastic()), output)
+                .doOnNext(DataBufferUtils::release)
+                .doOnError(input.failure::set)
+                .doFinally(signal -> closeQuietly(output))
+                .subscribe(null, error -> logger.error("Failed to stream historical rates from {}", source, error));
+
+        return input;
+    }
+
+    private void closeQuietly(PipedOutputStream output) {
+        try {
+            output.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close historical rates pipe", e);
+        }
+    }
+
+    /**
+     * Read end of the historical rates pipe. The pipe is closed however the source ends, so at end of
+     * stream this checks whether the source failed rather than reporting a truncated document as complete.
+     */
+    private static final class SourceInputStream extends FilterInputStream {
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final String source;
+
+        SourceInputStream(InputStream input, String source) {
+            super(input);
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkFailure(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checkFailure(super.read(b, off, len));
+        }
+
+        private int checkFailure(int result) throws IOException {
+            Throwable error = failure.get();
+            if (result < 0 && error != null) {
+                throw new IOException("Failed to stream historical rates from " + source + ": " + error.getMessage(), error);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * HTTP validators and body hash of the last ingested daily response
+     */
+    private static final class FetchValidators {
+
+        static final FetchValidators NONE = new FetchValidators(null, null, null);
+
+        final String etag;
+        final String lastModified;
+        final String contentHash;
+
+        FetchValidators(String etag, String lastModified, String contentHash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+    }
+}
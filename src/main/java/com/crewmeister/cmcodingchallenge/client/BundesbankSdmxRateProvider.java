@@ -0,0 +1,165 @@
+package com.crewmeister.cmcodingchallenge.client;
+
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bundesbank time-series API (BBEX3 daily euro reference rates) in SDMX-CSV format.
+ * Columns are located by name, so the dimension order of the series key does not matter.
+ */
+@Component
+@ConditionalOnProperty(name = "providers.bundesbank.enabled", havingValue = "true")
+public class BundesbankSdmxRateProvider implements RateProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(BundesbankSdmxRateProvider.class);
+    private static final MediaType SDMX_CSV = MediaType.parseMediaType("application/vnd.sdmx.data+csv;version=1.0.0");
+    private static final String DATA_SOURCE = "BUNDESBANK";
+
+    private final WebClient webClient;
+    private final CurrencyRegistry currencyRegistry;
+    private final IngestionMetrics metrics;
+    private final String url;
+    private final int priority;
+    private final Duration timeout;
+
+    public BundesbankSdmxRateProvider(CurrencyRegistry currencyRegistry, IngestionMetrics metrics,
+                                      @Value("${providers.bundesbank.url}") String url,
+                                      @Value("${providers.bundesbank.priority:2}") int priority,
+                                      @Value("${providers.bundesbank.timeout:10s}") Duration timeout) {
+        this.webClient = WebClient.create();
+        this.currencyRegistry = currencyRegistry;
+        this.metrics = metrics;
+        this.url = url;
+        this.priority = priority;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return DATA_SOURCE;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public Mono<BundesbankResponse> fetchLatest() {
+        logger.debug("Fetching exchange rates from Bundesbank: {}", url);
+        return webClient.get()
+                .uri(url)
+                .accept(SDMX_CSV, MediaType.TEXT_PLAIN)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnNext(body -> metrics.recordBytesReceived(DATA_SOURCE, body.length()))
+                .map(this::parseSdmxCsv);
+    }
+
+    /**
+     * Keep the most recent observation date present in the document and the rates quoted for it
+     */
+    BundesbankResponse parseSdmxCsv(String csv) {
+        String[] lines = csv.split("\r?\n");
+        if (lines.length < 2) {
+            return BundesbankResponse.failure("Empty SDMX-CSV response");
+        }
+
+        char delimiter = lines[0].indexOf(';') >= 0 && lines[0].indexOf(',') < 0 ? ';' : ',';
+        String[] header = split(lines[0], delimiter);
+        int currencyColumn = -1;
+        int timeColumn = -1;
+        int valueColumn = -1;
+        for (int i = 0; i < header.length; i++) {
+            String column = header[i].toUpperCase();
+            if (currencyColumn < 0 && column.endsWith("CURRENCY")) {
+                currencyColumn = i;
+            } else if (column.equals("TIME_PERIOD")) {
+                timeColumn = i;
+            } else if (column.equals("OBS_VALUE")) {
+                valueColumn = i;
+            }
+        }
+        if (currencyColumn < 0 || timeColumn < 0 || valueColumn < 0) {
+            return BundesbankResponse.failure("Unexpected SDMX-CSV header: " + lines[0]);
+        }
+
+        TreeMap<LocalDate, Map<String, BigDecimal>> byDate = new TreeMap<>();
+        long parsed = 0;
+        long rejected = 0;
+        for (int i = 1; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            String[] row = split(lines[i], delimiter);
+            if (row.length <= Math.max(currencyColumn, Math.max(timeColumn, valueColumn))) {
+                rejected++;
+                continue;
+            }
+            try {
+                LocalDate date = LocalDate.parse(row[timeColumn]);
+                BigDecimal rate = new BigDecimal(row[valueColumn]);
+                if (rate.signum() > 0) {
+                    String code = currencyRegistry.canonicalCode(row[currencyColumn]);
+                    byDate.computeIfAbsent(date, d -> new HashMap<>())
+                            .put(code != null ? code : row[currencyColumn].toUpperCase(), rate);
+                    parsed++;
+                } else {
+                    rejected++;
+                }
+            } catch (DateTimeParseException | NumberFormatException e) {
+                // Bundesbank marks missing observations with "." or blanks
+                logger.debug("Skipping SDMX-CSV row {}: {}", i, lines[i]);
+                rejected++;
+            }
+        }
+        metrics.recordRowsParsed(parsed);
+        metrics.recordRowsRejected("parse", rejected);
+
+        if (byDate.isEmpty()) {
+            return BundesbankResponse.failure("No exchange rate data found in response");
+        }
+
+        Map.Entry<LocalDate, Map<String, BigDecimal>> latest = byDate.lastEntry();
+        BundesbankResponse response = BundesbankResponse.success(latest.getKey(), DATA_SOURCE);
+        latest.getValue().forEach((code, rate) -> {
+            String name = currencyRegistry.getName(code);
+            response.addCurrency(code, name != null ? name : code, rate);
+        });
+        return response;
+    }
+
+    private static String[] split(String line, char delimiter) {
+        String[] cells = line.split(String.valueOf(delimiter), -1);
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i].trim();
+            if (cell.length() >= 2 && cell.charAt(0) == '"' && cell.charAt(cell.length() - 1) == '"') {
+                cell = cell.substring(1, cell.length() - 1);
+            }
+            cells[i] = cell;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,47 @@
+package com.crewmeister.cmcodingchallenge.client;
+
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * ECB eurofxref daily XML feed
+ */
+@Component
+public class EcbRateProvider implements RateProvider {
+
+    private final BundesbankApiClient ecbClient;
+    private final int priority;
+    private final Duration timeout;
+
+    public EcbRateProvider(BundesbankApiClient ecbClient,
+                           @Value("${providers.ecb.priority:1}") int priority,
+                           @Value("${providers.ecb.timeout:15s}") Duration timeout) {
+        this.ecbClient = ecbClient;
+        this.priority = priority;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return "ECB";
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public Mono<BundesbankResponse> fetchLatest() {
+        return ecbClient.getExchangeRates();
+    }
+}
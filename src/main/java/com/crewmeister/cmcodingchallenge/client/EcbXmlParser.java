@@ -1,33 +1,81 @@
 package com.crewmeister.cmcodingchallenge.client;
 
-import com.crewmeister.cmcodingchallenge.dto.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
 
+/**
+ * Pull parser for the ECB eurofxref XML feeds. The document is consumed event by event
+ * and rates are handed out as (date, currency, rate) tuples, so no object tree is built.
+ */
 @Component
 public class EcbXmlParser {
 
     private static final Logger logger = LoggerFactory.getLogger(EcbXmlParser.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private final XmlMapper xmlMapper;
+    private static final String ENVELOPE_ELEMENT = "Envelope";
+    private static final String CUBE_ELEMENT = "Cube";
+
+    /**
+     * Receives one parsed rate at a time
+     */
+    @FunctionalInterface
+    public interface RateHandler {
+        void onRate(LocalDate date, String currencyCode, BigDecimal rate);
+    }
+
+    private final XMLInputFactory xmlInputFactory;
+    private final CurrencyRegistry currencyRegistry;
+    private final IngestionMetrics metrics;
 
     public EcbXmlParser() {
-        this.xmlMapper = new XmlMapper();
-        this.xmlMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        this.xmlMapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
-        this.xmlMapper.configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, true);
+        this(new CurrencyRegistry(), IngestionMetrics.detached());
+    }
+
+    @Autowired
+    public EcbXmlParser(CurrencyRegistry currencyRegistry, IngestionMetrics metrics) {
+        this.currencyRegistry = currencyRegistry;
+        this.metrics = metrics;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Stream (date, currency, rate) records out of an ECB XML document without buffering it.
+     * Works for the daily feed as well as the multi-day history feeds where the time cube repeats.
+     *
+     * @return number of records handed to the handler
+     */
+    public long streamRates(InputStream input, RateHandler handler) throws XMLStreamException {
+        return streamRates(xmlInputFactory.createXMLStreamReader(input), handler);
+    }
+
+    public long streamRates(InputStream input, Consumer<RateRecord> consumer) throws XMLStreamException {
+        return streamRates(input, (date, currencyCode, rate) -> consumer.accept(new RateRecord(date, currencyCode, rate)));
     }
 
     /**
@@ -36,231 +84,186 @@ public class EcbXmlParser {
     public BundesbankResponse parseEcbXml(String xmlContent) {
         logger.debug("Starting ECB XML parsing");
 
-        // Input validation
-        if (xmlContent == null || xmlContent.trim().isEmpty()) {
+        if (xmlContent == null || xmlContent.isBlank()) {
             logger.warn("Empty XML content received");
             return BundesbankResponse.failure("Empty XML content");
         }
 
-        // Basic ECB format validation
-        String trimmedContent = xmlContent.trim();
-        if (!trimmedContent.contains("Envelope") || !trimmedContent.contains("Cube")) {
-            logger.warn("XML content doesn't appear to be ECB format");
-            return BundesbankResponse.failure("Invalid ECB XML format");
+        try {
+            return toResponse(xmlInputFactory.createXMLStreamReader(new StringReader(xmlContent)));
+        } catch (XMLStreamException e) {
+            return parsingFailure(e);
         }
+    }
 
-        // Additional validation for ECB-specific elements
-        if (!trimmedContent.contains("European Central Bank") && !trimmedContent.contains("currency=")) {
-            logger.warn("XML content missing ECB-specific elements");
-            return BundesbankResponse.failure("Content doesn't match ECB exchange rate format");
-        }
+    /**
+     * Parse ECB XML bytes and convert to BundesbankResponse. For multi-day documents only
+     * the first (most recent) day is kept; use {@link #streamRates} to consume all of them.
+     */
+    public BundesbankResponse parseEcbXml(InputStream input) {
+        logger.debug("Starting ECB XML parsing");
 
         try {
-            logger.debug("Parsing XML with Jackson XmlMapper");
-
-            // Parse XML using Jackson
-            EcbResponse ecbResponse = xmlMapper.readValue(xmlContent, EcbResponse.class);
-
-            if (ecbResponse == null) {
-                logger.error("Jackson returned null EcbResponse");
-                return BundesbankResponse.failure("Failed to parse XML: null response");
-            }
-
-            // Convert ECB response to internal format
-            BundesbankResponse response = convertToBundesbankResponse(ecbResponse);
-
-            // Validate the conversion result
-            if (response.hasData()) {
-                logger.info("Successfully parsed {} exchange rates for {} from ECB",
-                        response.getCurrencyCount(), response.getDate());
-                return response;
-            } else {
-                logger.warn("Parsed XML successfully but no exchange rate data found");
-                return BundesbankResponse.failure("No exchange rate data found in response");
-            }
-
-        } catch (JsonProcessingException e) {
-            logger.error("JSON/XML processing error during ECB XML parsing", e);
-            return BundesbankResponse.failure("XML parsing failed: " + e.getMessage());
-        } catch (IOException e) {
-            logger.error("IO error during ECB XML parsing", e);
-            return BundesbankResponse.failure("IO error while parsing XML: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Unexpected error during ECB XML parsing", e);
-            return BundesbankResponse.failure("Unexpected parsing error: " + e.getMessage());
+            return toResponse(xmlInputFactory.createXMLStreamReader(input));
+        } catch (XMLStreamException e) {
+            return parsingFailure(e);
         }
     }
 
     /**
-     * Convert ECB response to internal BundesbankResponse format
+     * Parse a reactive response body. Buffers are joined without decoding them to a String,
+     * and the join fails fast once {@code maxBytes} is exceeded.
      */
-    private BundesbankResponse convertToBundesbankResponse(EcbResponse ecbResponse) {
-        logger.debug("Converting EcbResponse to BundesbankResponse");
-
-        BundesbankResponse response = BundesbankResponse.success(LocalDate.now(), "ECB");
+    public Mono<BundesbankResponse> parseEcbXml(Flux<DataBuffer> body, int maxBytes) {
+        return DataBufferUtils.join(body, maxBytes)
+                .map(buffer -> {
+                    try (InputStream input = buffer.asInputStream(true)) {
+                        return parseEcbXml(input);
+                    } catch (IOException e) {
+                        logger.error("IO error during ECB XML parsing", e);
+                        return BundesbankResponse.failure("IO error while parsing XML: " + e.getMessage());
+                    }
+                })
+                .defaultIfEmpty(BundesbankResponse.failure("Empty XML content"));
+    }
 
-        try {
-            if (ecbResponse.getCube() == null) {
-                logger.warn("ECB response missing outer cube");
-                return response;
-            }
+    private BundesbankResponse toResponse(XMLStreamReader reader) throws XMLStreamException {
+        long startNanos = System.nanoTime();
+        BundesbankResponse response = BundesbankResponse.success(null, "ECB");
 
-            EcbOuterCube outerCube = ecbResponse.getCube();
-            if (outerCube.getTimeCube() == null) {
-                logger.warn("ECB response missing time cube");
-                return response;
+        streamRates(reader, (date, currencyCode, rate) -> {
+            if (response.getDate() == null) {
+                response.setDate(date);
             }
-
-            EcbTimeCube timeCube = outerCube.getTimeCube();
-
-            parseAndSetDate(timeCube, response);
-
-            parseAndSetCurrencyRates(timeCube, response);
-
-            if (response.getRates().isEmpty()) {
-                logger.warn("No currency rates found in ECB response");
-            } else {
-                logger.debug("Successfully converted {} currency rates", response.getRates().size());
+            if (date.equals(response.getDate())) {
+                response.addCurrency(currencyCode, getCurrencyName(currencyCode), rate);
             }
+        });
+        metrics.recordParse(System.nanoTime() - startNanos);
 
-        } catch (Exception e) {
-            logger.error("Error during ECB response conversion", e);
-            return BundesbankResponse.failure("Failed to convert ECB response: " + e.getMessage());
+        if (!response.hasData()) {
+            logger.warn("Parsed XML successfully but no exchange rate data found");
+            return BundesbankResponse.failure("No exchange rate data found in response");
         }
 
+        logger.info("Successfully parsed {} exchange rates for {} from ECB",
+                response.getCurrencyCount(), response.getDate());
         return response;
     }
 
-    /**
-     * Parse and set the date from ECB time cube
-     */
-    private void parseAndSetDate(EcbTimeCube timeCube, BundesbankResponse response) {
-        if (timeCube.getTime() != null && !timeCube.getTime().trim().isEmpty()) {
-            try {
-                LocalDate date = LocalDate.parse(timeCube.getTime().trim(), DATE_FORMATTER);
-                response.setDate(date);
-                logger.debug("Parsed date: {}", date);
-            } catch (Exception e) {
-                logger.warn("Failed to parse date: '{}', using current date. Error: {}",
-                        timeCube.getTime(), e.getMessage());
-                response.setDate(LocalDate.now());
-            }
-        } else {
-            logger.warn("No date found in ECB response, using current date");
-            response.setDate(LocalDate.now());
+    private BundesbankResponse parsingFailure(XMLStreamException e) {
+        if (e instanceof InvalidEcbFormatException) {
+            logger.warn("XML content doesn't appear to be ECB format: {}", e.getMessage());
+            return BundesbankResponse.failure("Invalid ECB XML format");
         }
+        logger.error("XML processing error during ECB XML parsing", e);
+        return BundesbankResponse.failure("XML parsing failed: " + e.getMessage());
     }
 
-    /**
-     * Parse and set currency rates from ECB currency cubes
-     */
-    private void parseAndSetCurrencyRates(EcbTimeCube timeCube, BundesbankResponse response) {
-        if (timeCube.getCurrencyCubes() == null || timeCube.getCurrencyCubes().isEmpty()) {
-            logger.warn("No currency cubes found in ECB response");
-            return;
-        }
+    private long streamRates(XMLStreamReader reader, RateHandler handler) throws XMLStreamException {
+        boolean rootChecked = false;
+        LocalDate currentDate = null;
+        long recordCount = 0;
+        long errorCount = 0;
 
-        int successCount = 0;
-        int errorCount = 0;
-
-        for (EcbCurrencyCube currencyCube : timeCube.getCurrencyCubes()) {
-            try {
-                String currencyCode = currencyCube.getCurrency();
-                String rateStr = currencyCube.getRate();
-
-                if (currencyCode == null || currencyCode.trim().isEmpty()) {
-                    logger.warn("Currency cube missing currency code");
-                    errorCount++;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
                     continue;
                 }
 
-                if (rateStr == null || rateStr.trim().isEmpty()) {
-                    logger.warn("Currency cube missing rate for currency: {}", currencyCode);
-                    errorCount++;
+                String element = reader.getLocalName();
+                if (!rootChecked) {
+                    if (!ENVELOPE_ELEMENT.equals(element)) {
+                        throw new InvalidEcbFormatException("Unexpected root element '" + element + "'");
+                    }
+                    rootChecked = true;
+                    continue;
+                }
+                if (!CUBE_ELEMENT.equals(element)) {
                     continue;
                 }
 
-                BigDecimal rate = new BigDecimal(rateStr.trim());
+                String time = reader.getAttributeValue(null, "time");
+                if (time != null) {
+                    currentDate = parseDate(time);
+                    continue;
+                }
 
-                if (rate.compareTo(BigDecimal.ZERO) <= 0) {
-                    logger.warn("Invalid rate value for {}: {} (must be positive)", currencyCode, rate);
+                String currencyCode = reader.getAttributeValue(null, "currency");
+                String rateStr = reader.getAttributeValue(null, "rate");
+                if (currencyCode == null || rateStr == null) {
+                    continue;
+                }
+                if (currentDate == null) {
+                    // Rates under a missing or unparseable time cube
                     errorCount++;
                     continue;
                 }
 
-                String currencyName = getCurrencyName(currencyCode.trim().toUpperCase());
-                response.addCurrency(currencyCode.trim().toUpperCase(), currencyName, rate);
-
-                logger.debug("Added currency: {} ({}) = {}", currencyCode, currencyName, rate);
-                successCount++;
-
-            } catch (NumberFormatException e) {
-                logger.warn("Failed to parse rate as number for currency {}: '{}'. Error: {}",
-                        currencyCube.getCurrency(), currencyCube.getRate(), e.getMessage());
-                errorCount++;
-            } catch (Exception e) {
-                logger.warn("Failed to process currency rate: {} = {}. Error: {}",
-                        currencyCube.getCurrency(), currencyCube.getRate(), e.getMessage());
-                errorCount++;
+                try {
+                    BigDecimal rate = new BigDecimal(rateStr.trim());
+                    if (rate.signum() <= 0) {
+                        logger.warn("Invalid rate value for {} on {}: {} (must be positive)", currencyCode, currentDate, rate);
+                        errorCount++;
+                        continue;
+                    }
+                    handler.onRate(currentDate, canonicalCode(currencyCode), rate);
+                    recordCount++;
+                } catch (NumberFormatException e) {
+                    logger.warn("Failed to parse rate as number for currency {} on {}: '{}'", currencyCode, currentDate, rateStr);
+                    errorCount++;
+                }
             }
+        } finally {
+            reader.close();
         }
 
-        logger.info("Currency parsing completed: {} successful, {} errors", successCount, errorCount);
-
-        if (successCount == 0 && errorCount > 0) {
+        logger.debug("Currency parsing completed: {} successful, {} errors", recordCount, errorCount);
+        metrics.recordRowsParsed(recordCount);
+        metrics.recordRowsRejected("parse", errorCount);
+        if (recordCount == 0 && errorCount > 0) {
             logger.error("Failed to parse any currency rates from {} cubes", errorCount);
         }
+        return recordCount;
+    }
+
+    /**
+     * Known codes resolve to the registry's interned instance, so a long history run does not keep
+     * one String per row alive
+     */
+    private String canonicalCode(String currencyCode) {
+        String canonical = currencyRegistry.canonicalCode(currencyCode);
+        return canonical != null ? canonical : currencyCode.trim().toUpperCase();
+    }
+
+    private LocalDate parseDate(String time) {
+        try {
+            return LocalDate.parse(time.trim(), DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            logger.warn("Failed to parse date: '{}', skipping its rates", time);
+            return null;
+        }
     }
 
     /**
      * Get currency display name by ISO code
      */
-    private String getCurrencyName(String currencyCode) {
+    public String getCurrencyName(String currencyCode) {
         if (currencyCode == null) {
             return "Unknown Currency";
         }
 
-        Map<String, String> currencyNames = getCurrencyNameMapping();
-        return currencyNames.getOrDefault(currencyCode.toUpperCase(), currencyCode + " Currency");
+        String name = currencyRegistry.getName(currencyCode);
+        return name != null ? name : currencyCode + " Currency";
     }
 
     /**
-     * Currency code to name mapping
+     * Raised when the document is well-formed XML but not an ECB envelope
      */
-    private Map<String, String> getCurrencyNameMapping() {
-        Map<String, String> currencyNames = new HashMap<>();
-
-        currencyNames.put("USD", "US Dollar");
-        currencyNames.put("JPY", "Japanese Yen");
-        currencyNames.put("GBP", "British Pound Sterling");
-        currencyNames.put("CHF", "Swiss Franc");
-        currencyNames.put("CAD", "Canadian Dollar");
-        currencyNames.put("AUD", "Australian Dollar");
-        currencyNames.put("NZD", "New Zealand Dollar");
-        currencyNames.put("BGN", "Bulgarian Lev");
-        currencyNames.put("CZK", "Czech Koruna");
-        currencyNames.put("DKK", "Danish Krone");
-        currencyNames.put("HUF", "Hungarian Forint");
-        currencyNames.put("PLN", "Polish Zloty");
-        currencyNames.put("RON", "Romanian Leu");
-        currencyNames.put("SEK", "Swedish Krona");
-        currencyNames.put("NOK", "Norwegian Krone");
-        currencyNames.put("ISK", "Icelandic Krona");
-        currencyNames.put("TRY", "Turkish Lira");
-        currencyNames.put("CNY", "Chinese Yuan Renminbi");
-        currencyNames.put("HKD", "Hong Kong Dollar");
-        currencyNames.put("IDR", "Indonesian Rupiah");
-        currencyNames.put("INR", "Indian Rupee");
-        currencyNames.put("KRW", "South Korean Won");
-        currencyNames.put("MYR", "Malaysian Ringgit");
-        currencyNames.put("PHP", "Philippine Peso");
-        currencyNames.put("SGD", "Singapore Dollar");
-        currencyNames.put("THB", "Thai Baht");
-        currencyNames.put("BRL", "Brazilian Real");
-        currencyNames.put("ILS", "Israeli New Shekel");
-        currencyNames.put("MXN", "Mexican Peso");
-        currencyNames.put("ZAR", "South African Rand");
-
-        return currencyNames;
+    private static class InvalidEcbFormatException extends XMLStreamException {
+        InvalidEcbFormatException(String message) {
+            super(message);
+        }
     }
-}
\ No newline at end of file
+}
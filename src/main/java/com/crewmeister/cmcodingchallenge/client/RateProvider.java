@@ -0,0 +1,24 @@
+package com.crewmeister.cmcodingchallenge.client;
+
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * A source of daily EUR reference rates. Providers are fetched concurrently and merged by
+ * {@link #getPriority()}, lower values winning when two providers quote the same currency.
+ */
+public interface RateProvider {
+
+    String getName();
+
+    int getPriority();
+
+    /**
+     * Upper bound for one fetch; a provider that does not answer in time is left out of the merge
+     */
+    Duration getTimeout();
+
+    Mono<BundesbankResponse> fetchLatest();
+}
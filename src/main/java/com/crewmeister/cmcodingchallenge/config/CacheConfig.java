@@ -0,0 +1,59 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.currency.ResponseBodyCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded Caffeine caches, each built from its own spec. Specs with {@code recordStats} are picked
+ * up by Actuator as {@code cache.gets}, {@code cache.evictions} and {@code cache.size} meters.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${ecb.cache.exchange-rates:maximumSize=50000,expireAfterWrite=24h,recordStats}") String exchangeRatesSpec,
+            @Value("${ecb.cache.missing-rates:maximumSize=100000,expireAfterWrite=1h,recordStats}") String missingRatesSpec,
+            @Value("${ecb.cache.cross-rates:maximumSize=256,expireAfterAccess=1h,recordStats}") String crossRatesSpec,
+            @Value("${ecb.cache.response-bodies:maximumWeight=67108864,expireAfterAccess=1h,recordStats}") String responseBodiesSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache("exchangeRates", build(exchangeRatesSpec));
+        // Negative cache: (currency, date) pairs known to have no rate, cleared on every ingest
+        cacheManager.registerCustomCache("missingRates", build(missingRatesSpec));
+        // Per-date cross-rate matrices, cleared on every ingest
+        cacheManager.registerCustomCache("crossRates", build(crossRatesSpec));
+        // Serialized list responses, bounded by their size in bytes when the spec sets maximumWeight
+        cacheManager.registerCustomCache(ResponseBodyCache.CACHE, weighed(responseBodiesSpec,
+                (key, value) -> ((ResponseBodyCache.SerializedBody) value).weight()));
+        return cacheManager;
+    }
+
+    /**
+     * Every cache is cleared on ingest rather than reloaded, so none of them supports refreshAfterWrite
+     */
+    static Cache<Object, Object> build(String spec) {
+        if (spec.contains("refreshAfterWrite")) {
+            throw new IllegalArgumentException("refreshAfterWrite is not supported for this cache: " + spec);
+        }
+        return Caffeine.from(CaffeineSpec.parse(spec)).build();
+    }
+
+    /**
+     * @param weigher sizes entries when the spec bounds the cache by maximumWeight; ignored otherwise
+     */
+    static Cache<Object, Object> weighed(String spec, Weigher<Object, Object> weigher) {
+        Caffeine<Object, Object> builder = Caffeine.from(CaffeineSpec.parse(spec));
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(weigher);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Every API read depends only on the rate data, so a single dataset version validates all of them.
+ * Conditional GETs that still match are answered 304 here, before any lookup or serialization runs.
+ * Other responses get the ETag of the version; handlers choose the Cache-Control. A 304 carries none,
+ * so the client keeps the policy it stored with the full response. There is no Last-Modified: a
+ * backfill bumps the version several times a second, which If-Modified-Since cannot tell apart.
+ */
+public class DatasetVersionInterceptor implements HandlerInterceptor {
+
+    private final DatasetVersion datasetVersion;
+
+    public DatasetVersionInterceptor(DatasetVersion datasetVersion) {
+        this.datasetVersion = datasetVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        return !new ServletWebRequest(request, response).checkNotModified(datasetVersion.etag());
+    }
+}
@@ -0,0 +1,33 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link DatasetVersionInterceptor} for the reactive stack: conditional API reads that still match the
+ * dataset version are answered 304 before any handler runs; others get its ETag.
+ */
+public class DatasetVersionWebFilter implements WebFilter {
+
+    private final DatasetVersion datasetVersion;
+
+    public DatasetVersionWebFilter(DatasetVersion datasetVersion) {
+        this.datasetVersion = datasetVersion;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if ((method != HttpMethod.GET && method != HttpMethod.HEAD) || !ReactiveWebConfig.isApi(exchange)) {
+            return chain.filter(exchange);
+        }
+        if (exchange.checkNotModified(datasetVersion.etag())) {
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+}
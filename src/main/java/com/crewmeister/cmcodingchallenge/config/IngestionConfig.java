@@ -0,0 +1,30 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.initilization.InitialLoadGateFilter;
+import com.crewmeister.cmcodingchallenge.initilization.InitialLoadReadiness;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class IngestionConfig {
+
+    /**
+     * Blocking JDBC writes of the ingestion pipeline run here, never on Reactor Netty event loop threads
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler ingestionScheduler(@Value("${ecb.ingestion.threads:2}") int threads,
+                                        @Value("${ecb.ingestion.queue-size:16}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "ecb-ingestion");
+    }
+
+    @Bean
+    public FilterRegistrationBean<InitialLoadGateFilter> initialLoadGateFilter(InitialLoadReadiness readiness) {
+        FilterRegistrationBean<InitialLoadGateFilter> registration = new FilterRegistrationBean<>(new InitialLoadGateFilter(readiness));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,60 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.initilization.InitialLoadReadiness;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+
+/**
+ * {@link WebConfig} and the initial-load gate of {@link IngestionConfig} for the {@code reactive} profile
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, RateFallback.class, RateFallback::fromParameter);
+        registry.addConverter(String.class, RateExportFormat.class, RateExportFormat::fromParameter);
+        registry.addConverter(String.class, RatePageCursor.class, RatePageCursor::decode);
+    }
+
+    @Bean
+    @Order(1)
+    public WebFilter datasetVersionWebFilter(DatasetVersion datasetVersion) {
+        return new DatasetVersionWebFilter(datasetVersion);
+    }
+
+    /**
+     * API calls get 503 with a Retry-After hint while the initial rate load is still running
+     */
+    @Bean
+    @Order(0)
+    public WebFilter initialLoadGateWebFilter(InitialLoadReadiness readiness) {
+        return (exchange, chain) -> {
+            if (readiness.isReady() || !isApi(exchange)) {
+                return chain.filter(exchange);
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    static boolean isApi(ServerWebExchange exchange) {
+        return exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/api/");
+    }
+}
@@ -0,0 +1,35 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final DatasetVersion datasetVersion;
+
+    public WebConfig(DatasetVersion datasetVersion) {
+        this.datasetVersion = datasetVersion;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new DatasetVersionInterceptor(datasetVersion)).addPathPatterns("/api/**");
+    }
+
+    /**
+     * Lower-case query values ({@code ?fallback=previous}) for request enums, and opaque page cursors
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, RateFallback.class, RateFallback::fromParameter);
+        registry.addConverter(String.class, RateExportFormat.class, RateExportFormat::fromParameter);
+        registry.addConverter(String.class, RatePageCursor.class, RatePageCursor::decode);
+    }
+}
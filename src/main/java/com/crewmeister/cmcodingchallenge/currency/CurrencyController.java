@@ -1,56 +1,197 @@
 package com.crewmeister.cmcodingchallenge.currency;
 
-import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.BatchConversionResult;
 import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
-import com.crewmeister.cmcodingchallenge.service.CurrencyService;
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.dto.RateStatistics;
+import com.crewmeister.cmcodingchallenge.service.BatchConversionService;
 import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.service.RateExportService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.*;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static com.crewmeister.cmcodingchallenge.currency.HttpCaching.REVALIDATE;
+import static com.crewmeister.cmcodingchallenge.currency.HttpCaching.cacheable;
+
 @RestController()
 @RequestMapping("/api")
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CurrencyController {
 
-    private final CurrencyService currencyService;
+    private static final String DEFAULT_PAGE_SIZE = "1000";
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ExchangeRateService exchangeRateService;
+    private final RateExportService rateExportService;
+    private final ResponseBodyCache responseBodyCache;
+    private final BatchConversionService batchConversionService;
+    private final ObjectMapper objectMapper;
 
-    public CurrencyController(CurrencyService currencyService, ExchangeRateService exchangeRateService) {
-        this.currencyService = currencyService;
+    public CurrencyController(ExchangeRateService exchangeRateService, RateExportService rateExportService,
+                              ResponseBodyCache responseBodyCache, BatchConversionService batchConversionService,
+                              ObjectMapper objectMapper) {
         this.exchangeRateService = exchangeRateService;
+        this.rateExportService = rateExportService;
+        this.responseBodyCache = responseBodyCache;
+        this.batchConversionService = batchConversionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Get all available currencies
      */
     @GetMapping("/currencies")
-    public ResponseEntity<List<CurrencyDto>> getCurrencies() {
-        List<CurrencyDto> currencies = currencyService.getAllCurrencies();
-        return new ResponseEntity<>(currencies, HttpStatus.OK);
+    public ResponseEntity<byte[]> getCurrencies(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return json(ResponseEntity.ok(), responseBodyCache.currencies(), acceptEncoding);
     }
 
     /**
-     * Get all EUR-FX exchange rates at all available dates
+     * Get EUR-FX exchange rates, newest date first, one page at a time. Optional filters: currency (repeat
+     * or comma-separate), from and to (inclusive). When more rows follow, a {@code Link: <...>; rel="next"}
+     * header carries the URL of the next page with an opaque cursor.
      */
     @GetMapping("/exchange-rates")
-    public ResponseEntity<List<ExchangeRateDto>> getAllExchangeRates() {
-        List<ExchangeRateDto> rates = exchangeRateService.getAllExchangeRates();
-        return ResponseEntity.ok(rates);
+    public ResponseEntity<byte[]> getAllExchangeRates(
+            @RequestParam(required = false) List<String> currency,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to,
+
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Limit must be at most " + MAX_PAGE_SIZE)
+            int limit,
+
+            @RequestParam(required = false) RatePageCursor cursor,
+
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ResponseBodyCache.SerializedBody page = responseBodyCache.exchangeRates(
+                currency != null ? currency : Collections.emptyList(), from, to, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNext().encode())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return json(response, page, acceptEncoding);
+    }
+
+    /**
+     * Stream every stored rate as NDJSON (default) or CSV, oldest first. The body is written while the
+     * table is read, so memory use stays flat however large the table gets.
+     */
+    @GetMapping("/exchange-rates/export")
+    public ResponseEntity<StreamingResponseBody> exportExchangeRates(
+            @RequestParam(defaultValue = "ndjson") RateExportFormat format) {
+
+        StreamingResponseBody body = output -> rateExportService.export(format, output);
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("exchange-rates." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     /**
-     * Get EUR-FX exchange rate for particular currency on particular day
+     * Get the rates of one currency between from and to (both optional, inclusive) as a date-to-rate
+     * series, read in one range scan rather than one request per day
+     */
+    @GetMapping("/exchange-rates/{currency}")
+    public ResponseEntity<RateSeries> getExchangeRateSeries(
+            @PathVariable
+            @NotBlank(message = "Currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String currency,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to) {
+
+        RateSeries series = exchangeRateService.getExchangeRateSeries(currency, from, to);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(series);
+    }
+
+    /**
+     * Get min, max, mean, sample standard deviation and first/last rate of one currency between from and
+     * to (both optional, inclusive), without transferring the series
+     */
+    @GetMapping("/exchange-rates/{currency}/stats")
+    public ResponseEntity<RateStatistics> getExchangeRateStatistics(
+            @PathVariable
+            @NotBlank(message = "Currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String currency,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to) {
+
+        RateStatistics statistics = exchangeRateService.getExchangeRateStatistics(currency, from, to);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(statistics);
+    }
+
+    /**
+     * Get EUR-FX exchange rate for particular currency on particular day. With {@code fallback=previous}
+     * a day without a published rate resolves to the latest earlier one, reported as effective_date.
      */
     @GetMapping("/exchange-rates/{currency}/{date}")
     public ResponseEntity<ExchangeRateDto> getExchangeRate(
@@ -63,14 +204,19 @@ public class CurrencyController {
             @NotNull(message = "Date is required")
             @PastOrPresent(message = "Date cannot be in the future")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-            LocalDate date) {
+            LocalDate date,
+
+            @RequestParam(defaultValue = "exact") RateFallback fallback) {
 
-        ExchangeRateDto rate = exchangeRateService.getExchangeRate(currency, date);
-        return ResponseEntity.ok(rate);
+        ExchangeRateDto rate = fallback == RateFallback.PREVIOUS
+                ? exchangeRateService.getExchangeRateOnOrBefore(currency, date)
+                : exchangeRateService.getExchangeRate(currency, date);
+        return cacheable(fallback, date).body(rate);
     }
 
     /**
-     * Convert foreign exchange amount to EUR on particular day
+     * Convert foreign exchange amount to EUR on particular day, optionally falling back to the previous
+     * business day's rate
      */
     @GetMapping("/convert/{amount}/{currency}/{date}")
     public ResponseEntity<CurrencyConversionRates> convertCurrency(
@@ -84,13 +230,141 @@ public class CurrencyController {
             @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
             String currency,
 
+            @PathVariable
+            @NotNull(message = "Date is required")
+            @PastOrPresent(message = "Date cannot be in the future")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate date,
+
+            @RequestParam(defaultValue = "exact") RateFallback fallback) {
+
+        CurrencyConversionRates conversionResult = fallback == RateFallback.PREVIOUS
+                ? exchangeRateService.convertCurrencyOnOrBefore(amount, currency, date)
+                : exchangeRateService.convertCurrency(amount, currency, date);
+        return cacheable(fallback, date).body(conversionResult);
+    }
+
+    /**
+     * Convert an amount between any two currencies (EUR included) on a particular day, through the EUR
+     * reference rates of that day
+     */
+    @GetMapping("/convert/{amount}/{from}/{to}/{date}")
+    public ResponseEntity<CurrencyConversionRates> convertCrossCurrency(
+            @PathVariable
+            @NotNull(message = "Amount is required")
+            @Positive(message = "Amount must be positive")
+            BigDecimal amount,
+
+            @PathVariable
+            @NotBlank(message = "Source currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String from,
+
+            @PathVariable
+            @NotBlank(message = "Target currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String to,
+
             @PathVariable
             @NotNull(message = "Date is required")
             @PastOrPresent(message = "Date cannot be in the future")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
             LocalDate date) {
 
-        CurrencyConversionRates conversionResult = exchangeRateService.convertCurrency(amount, currency, date);
-        return ResponseEntity.ok(conversionResult);
+        CurrencyConversionRates conversionResult = exchangeRateService.convertCurrency(amount, from, to, date);
+        return cacheable(RateFallback.EXACT, date).body(conversionResult);
+    }
+
+    /**
+     * Convert many amounts to EUR at once. Results come back in request order; an item that cannot be
+     * converted carries its own status and error instead of failing the batch.
+     */
+    @PostMapping(value = "/convert/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchConversionResult>> convertBatch(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "exact") RateFallback fallback) throws IOException {
+
+        List<JsonNode> items = readBatch(new ServletServerHttpRequest(request));
+        return ResponseEntity.ok(batchConversionService.convert(items, fallback));
+    }
+
+    /**
+     * The items of a JSON array body, read one at a time so an oversized batch is refused when its
+     * first surplus item arrives rather than after the whole array is parsed
+     */
+    private List<JsonNode> readBatch(HttpInputMessage body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body.getBody())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new HttpMessageNotReadableException("Request body is not a JSON array", body);
+            }
+            List<JsonNode> items = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (items.size() == MAX_BATCH_SIZE) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "A batch holds at most " + MAX_BATCH_SIZE + " items; stream larger ones as NDJSON");
+                }
+                items.add(objectMapper.readTree(parser));
+            }
+            return items;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Request body is not valid JSON", e, body);
+        }
+    }
+
+    /**
+     * Streaming variant for any number of items: one JSON item per line in, one result per line out,
+     * written as the items are read
+     */
+    @PostMapping(value = "/convert/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> convertBatchStream(
+            InputStream items,
+            @RequestParam(defaultValue = "exact") RateFallback fallback) {
+
+        StreamingResponseBody body = output -> batchConversionService.convert(items, output, fallback);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Write a pre-serialized JSON body as is, gzipped when the client accepts it and a variant exists
+     */
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder response,
+                                               ResponseBodyCache.SerializedBody body, String acceptEncoding) {
+        response.cacheControl(REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (body.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+        }
+        return response.body(body.getJson());
+    }
+
+    /**
+     * @return whether an Accept-Encoding header lists gzip (or *) without {@code q=0}
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
     }
 }
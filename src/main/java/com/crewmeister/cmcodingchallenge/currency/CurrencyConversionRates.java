@@ -1,6 +1,7 @@
 package com.crewmeister.cmcodingchallenge.currency;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -35,6 +36,9 @@ public class CurrencyConversionRates {
     @JsonProperty("target_currency")
     private String targetCurrency;
 
+    /**
+     * Units of the original currency per EUR, for cross conversions too
+     */
     @NotNull(message = "Exchange rate is required")
     @Positive(message = "Exchange rate must be positive")
     @JsonProperty("exchange_rate")
@@ -46,6 +50,34 @@ public class CurrencyConversionRates {
     @JsonFormat(pattern = "yyyy-MM-dd")
     private LocalDate date;
 
+    /**
+     * Date of the rate used; only set when a previous business day was allowed to stand in
+     */
+    @JsonProperty("effective_date")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDate effectiveDate;
+
+    /**
+     * Units of the target currency per unit of the original currency; only set for conversions between
+     * two currencies, where the converted amount is the original amount times this rate
+     */
+    @Positive(message = "Cross rate must be positive")
+    @JsonProperty("cross_rate")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal crossRate;
+
+    public CurrencyConversionRates(BigDecimal originalAmount, String originalCurrency, BigDecimal convertedAmount,
+                                   String targetCurrency, BigDecimal exchangeRate, LocalDate date) {
+        this(originalAmount, originalCurrency, convertedAmount, targetCurrency, exchangeRate, date, null);
+    }
+
+    public CurrencyConversionRates(BigDecimal originalAmount, String originalCurrency, BigDecimal convertedAmount,
+                                   String targetCurrency, BigDecimal exchangeRate, LocalDate date,
+                                   LocalDate effectiveDate) {
+        this(originalAmount, originalCurrency, convertedAmount, targetCurrency, exchangeRate, date, effectiveDate, null);
+    }
+
     public CurrencyConversionRates(double conversionRate) {
         this.exchangeRate = BigDecimal.valueOf(conversionRate);
     }
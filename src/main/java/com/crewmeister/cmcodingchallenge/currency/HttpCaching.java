@@ -0,0 +1,41 @@
+package com.crewmeister.cmcodingchallenge.currency;
+
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache-Control policy of the read endpoints, shared by the servlet and reactive controllers
+ */
+final class HttpCaching {
+
+    private static final ZoneId ECB_ZONE = ZoneId.of("Europe/Berlin");
+    /**
+     * Reads are validated by the dataset version ETag of {@link com.crewmeister.cmcodingchallenge.config.DatasetVersionInterceptor}
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+    /**
+     * A published rate for a past day never changes; CacheControl has no builder for immutable yet
+     */
+    private static final String IMMUTABLE =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+    private HttpCaching() {
+    }
+
+    /**
+     * Exact lookups for days before today (ECB time) are final once found; everything else, including
+     * a fallback that may resolve to a newer day after the next ingest, must be revalidated
+     */
+    static ResponseEntity.BodyBuilder cacheable(RateFallback fallback, LocalDate date) {
+        if (fallback == RateFallback.EXACT && date.isBefore(LocalDate.now(ECB_ZONE))) {
+            return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE);
+    }
+}
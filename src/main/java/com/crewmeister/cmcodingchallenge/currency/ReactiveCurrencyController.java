@@ -0,0 +1,159 @@
+package com.crewmeister.cmcodingchallenge.currency;
+
+import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.service.ReactiveExchangeRateService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static com.crewmeister.cmcodingchallenge.currency.HttpCaching.REVALIDATE;
+import static com.crewmeister.cmcodingchallenge.currency.HttpCaching.cacheable;
+
+/**
+ * The read endpoints of {@link CurrencyController} on WebFlux, active with the {@code reactive} profile.
+ * Same paths, parameters, validation and caching headers; every handler returns without blocking.
+ */
+@RestController
+@RequestMapping("/api")
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCurrencyController {
+
+    private static final String DEFAULT_PAGE_SIZE = "1000";
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private final ReactiveExchangeRateService exchangeRateService;
+
+    public ReactiveCurrencyController(ReactiveExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    @GetMapping("/currencies")
+    public Mono<ResponseEntity<List<CurrencyDto>>> getCurrencies() {
+        return exchangeRateService.getCurrencies()
+                .collectList()
+                .map(currencies -> ResponseEntity.ok().cacheControl(REVALIDATE).body(currencies));
+    }
+
+    /**
+     * One page of rates, newest date first, with a {@code Link: <...>; rel="next"} header while more follow
+     */
+    @GetMapping("/exchange-rates")
+    public Mono<ResponseEntity<List<ExchangeRateDto>>> getAllExchangeRates(
+            @RequestParam(required = false) List<String> currency,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to,
+
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Limit must be at most " + MAX_PAGE_SIZE)
+            int limit,
+
+            @RequestParam(required = false) RatePageCursor cursor,
+
+            ServerHttpRequest request) {
+
+        return exchangeRateService.getExchangeRates(currency != null ? currency : Collections.emptyList(),
+                        from, to, cursor, limit)
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+                    if (page.hasNext()) {
+                        String next = UriComponentsBuilder.fromHttpRequest(request)
+                                .replaceQueryParam("cursor", page.getNext().encode())
+                                .toUriString();
+                        response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    }
+                    return response.body(page.getRates());
+                });
+    }
+
+    @GetMapping("/exchange-rates/{currency}")
+    public Mono<ResponseEntity<RateSeries>> getExchangeRateSeries(
+            @PathVariable
+            @NotBlank(message = "Currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String currency,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to) {
+
+        return exchangeRateService.getExchangeRateSeries(currency, from, to)
+                .map(series -> ResponseEntity.ok().cacheControl(REVALIDATE).body(series));
+    }
+
+    @GetMapping("/exchange-rates/{currency}/{date}")
+    public Mono<ResponseEntity<ExchangeRateDto>> getExchangeRate(
+            @PathVariable
+            @NotBlank(message = "Currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String currency,
+
+            @PathVariable
+            @NotNull(message = "Date is required")
+            @PastOrPresent(message = "Date cannot be in the future")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate date,
+
+            @RequestParam(defaultValue = "exact") RateFallback fallback) {
+
+        Mono<ExchangeRateDto> rate = fallback == RateFallback.PREVIOUS
+                ? exchangeRateService.getExchangeRateOnOrBefore(currency, date)
+                : exchangeRateService.getExchangeRate(currency, date);
+        return rate.map(found -> cacheable(fallback, date).body(found));
+    }
+
+    @GetMapping("/convert/{amount}/{currency}/{date}")
+    public Mono<ResponseEntity<CurrencyConversionRates>> convertCurrency(
+            @PathVariable
+            @NotNull(message = "Amount is required")
+            @Positive(message = "Amount must be positive")
+            BigDecimal amount,
+
+            @PathVariable
+            @NotBlank(message = "Currency code is required")
+            @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+            String currency,
+
+            @PathVariable
+            @NotNull(message = "Date is required")
+            @PastOrPresent(message = "Date cannot be in the future")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate date,
+
+            @RequestParam(defaultValue = "exact") RateFallback fallback) {
+
+        return exchangeRateService.convertCurrency(amount, currency, date, fallback == RateFallback.PREVIOUS)
+                .map(conversion -> cacheable(fallback, date).body(conversion));
+    }
+}
@@ -0,0 +1,169 @@
+package com.crewmeister.cmcodingchallenge.currency;
+
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.service.CurrencyService;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of the list endpoints, serialized once per dataset version and kept as bytes (plus a gzip
+ * variant when worth it), so a hit is a plain array copy to the response instead of a Jackson pass over
+ * every DTO. Keys carry the {@link DatasetVersion}: an ingest makes every entry unreachable at once, and
+ * a load that races with it can only land under the old version.
+ */
+@Component
+public class ResponseBodyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseBodyCache.class);
+    public static final String CACHE = "responseBodies";
+
+    /**
+     * Below about one MTU gzip saves nothing worth the CPU on the client
+     */
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final CurrencyService currencyService;
+    private final ExchangeRateService exchangeRateService;
+    private final DatasetVersion datasetVersion;
+    private final ObjectMapper objectMapper;
+    private final Cache bodies;
+
+    public ResponseBodyCache(CurrencyService currencyService, ExchangeRateService exchangeRateService,
+                             DatasetVersion datasetVersion, ObjectMapper objectMapper,
+                             ObjectProvider<CacheManager> cacheManager) {
+        this.currencyService = currencyService;
+        this.exchangeRateService = exchangeRateService;
+        this.datasetVersion = datasetVersion;
+        this.objectMapper = objectMapper;
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache cache = manager != null ? manager.getCache(CACHE) : null;
+        this.bodies = cache != null ? cache : new NoOpCache(CACHE);
+    }
+
+    public SerializedBody currencies() {
+        return get(Arrays.asList(datasetVersion.current(), "currencies"),
+                () -> serialize(currencyService.getAllCurrencies(), null));
+    }
+
+    /**
+     * @see ExchangeRateService#getExchangeRates
+     */
+    public SerializedBody exchangeRates(List<String> currencyCodes, LocalDate from, LocalDate to,
+                                        RatePageCursor after, int limit) {
+        List<String> codes = normalize(currencyCodes);
+        List<Object> key = Arrays.asList(datasetVersion.current(), "exchangeRates",
+                codes, from, to, after != null ? after.encode() : null, limit);
+        return get(key, () -> {
+            RatePage page = exchangeRateService.getExchangeRates(codes, from, to, after, limit);
+            return serialize(page.getRates(), page.getNext());
+        });
+    }
+
+    /**
+     * The filter as a set: "usd,JPY", "JPY,USD" and "USD,USD,jpy" select the same page and share one entry
+     */
+    private static List<String> normalize(List<String> currencyCodes) {
+        Set<String> codes = new TreeSet<>();
+        for (String code : currencyCodes) {
+            codes.add(code.trim().toUpperCase(Locale.ROOT));
+        }
+        return new ArrayList<>(codes);
+    }
+
+    private SerializedBody get(List<Object> key, Callable<SerializedBody> loader) {
+        try {
+            return bodies.get(key, loader);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private SerializedBody serialize(Object body, RatePageCursor next) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response body", e);
+        }
+        byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+        logger.debug("Serialized response body: {} bytes, {} gzipped", json.length, gzip != null ? gzip.length : "not");
+        return new SerializedBody(json, gzip, next);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Immutable once built; the arrays are shared by every response and must not be written to
+     */
+    public static final class SerializedBody {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final RatePageCursor next;
+
+        SerializedBody(byte[] json, byte[] gzip, RatePageCursor next) {
+            this.json = json;
+            this.gzip = gzip;
+            this.next = next;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return the gzip-encoded body, or null if the body is too small to be worth compressing
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        /**
+         * @return cursor of the following page, or null for the last page and for non-paged bodies
+         */
+        public RatePageCursor getNext() {
+            return next;
+        }
+
+        /**
+         * Heap held by the bodies, for weighing cache entries
+         */
+        public int weight() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class BackfillReport {
+
+    private final long rows;
+    private final long days;
+    private final long chunks;
+    private final long elapsedMillis;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : rows;
+    }
+}
@@ -0,0 +1,35 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one item of a batch conversion: the conversion, or the HTTP status and message the
+ * single-item endpoint would have answered with
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchConversionResult {
+
+    /**
+     * Position of the item in the request, from 0
+     */
+    private final long index;
+    private final int status;
+    private final CurrencyConversionRates conversion;
+    private final String error;
+
+    public static BatchConversionResult converted(long index, CurrencyConversionRates conversion) {
+        return new BatchConversionResult(index, 200, conversion, null);
+    }
+
+    public static BatchConversionResult failed(long index, int status, String error) {
+        return new BatchConversionResult(index, status, null, error);
+    }
+}
@@ -20,9 +20,14 @@ public class BundesbankResponse {
     private LocalDate date;
     private Map<String, BigDecimal> rates = new HashMap<>();
     private Map<String, String> currencyNames = new HashMap<>();
+    /** Provider each rate was taken from, when rates were merged from several providers */
+    private Map<String, String> rateSources = new HashMap<>();
     private String dataSource;
     private boolean successful = true;
     private String errorMessage;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
 
     public static BundesbankResponse success(LocalDate date, String dataSource) {
         BundesbankResponse response = new BundesbankResponse();
@@ -0,0 +1,36 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PastOrPresent;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One line item of a batch conversion to EUR
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionRequest {
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+
+    @NotBlank(message = "Currency code is required")
+    @Size(min = 3, max = 3, message = "Currency code must be exactly 3 characters")
+    private String currency;
+
+    @NotNull(message = "Date is required")
+    @PastOrPresent(message = "Date cannot be in the future")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+}
@@ -1,24 +0,0 @@
-package com.crewmeister.cmcodingchallenge.dto;
-
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
-import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
-import java.util.List;
-
-@Getter
-@Setter
-@NoArgsConstructor
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class EcbTimeCube {
-
-    @JacksonXmlProperty(isAttribute = true, localName = "time")
-    private String time;
-
-    @JacksonXmlElementWrapper(useWrapping = false)
-    @JacksonXmlProperty(localName = "Cube")
-    private List<EcbCurrencyCube> currencyCubes;
-}
\ No newline at end of file
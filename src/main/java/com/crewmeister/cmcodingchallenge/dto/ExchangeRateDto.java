@@ -1,6 +1,7 @@
 package com.crewmeister.cmcodingchallenge.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -36,4 +37,16 @@ public class ExchangeRateDto {
     @NotNull(message = "Exchange rate cannot be null")
     @Positive(message = "Exchange rate must be positive")
     private BigDecimal rate;
+
+    /**
+     * Date the rate was published for; only set when a previous business day was allowed to stand in
+     */
+    @JsonProperty("effective_date")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDate effectiveDate;
+
+    public ExchangeRateDto(String currencyCode, String currencyName, LocalDate date, BigDecimal rate) {
+        this(currencyCode, currencyName, date, rate, null);
+    }
 }
@@ -0,0 +1,44 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one run of the daily ingestion pipeline
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+public class IngestionResult {
+
+    public enum Status {
+        STORED,
+        UNCHANGED,
+        FAILED
+    }
+
+    private final Status status;
+    private final LocalDate date;
+    private final int rates;
+    private final String errorMessage;
+
+    public static IngestionResult stored(LocalDate date, int rates) {
+        return new IngestionResult(Status.STORED, date, rates, null);
+    }
+
+    public static IngestionResult unchanged() {
+        return new IngestionResult(Status.UNCHANGED, null, 0, null);
+    }
+
+    public static IngestionResult failed(String errorMessage) {
+        return new IngestionResult(Status.FAILED, null, 0, errorMessage);
+    }
+
+    public boolean isStored() {
+        return status == Status.STORED;
+    }
+}
@@ -0,0 +1,37 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Line-oriented formats of the bulk rate export
+ */
+@Getter
+@AllArgsConstructor
+public enum RateExportFormat {
+
+    /**
+     * One JSON object per line
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * Header line, then date,currency_code,rate
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    /**
+     * Parse a request parameter such as {@code csv}, ignoring case
+     */
+    public static RateExportFormat fromParameter(String value) {
+        for (RateExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format '" + value + "', expected ndjson or csv");
+    }
+}
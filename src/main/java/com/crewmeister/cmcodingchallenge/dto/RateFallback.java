@@ -0,0 +1,29 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+/**
+ * What to do when no rate was published on the requested date
+ */
+public enum RateFallback {
+
+    /**
+     * Answer 404
+     */
+    EXACT,
+
+    /**
+     * Use the latest rate on or before the requested date
+     */
+    PREVIOUS;
+
+    /**
+     * Parse a request parameter such as {@code previous}, ignoring case
+     */
+    public static RateFallback fromParameter(String value) {
+        for (RateFallback fallback : values()) {
+            if (fallback.name().equalsIgnoreCase(value.trim())) {
+                return fallback;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fallback '" + value + "', expected exact or previous");
+    }
+}
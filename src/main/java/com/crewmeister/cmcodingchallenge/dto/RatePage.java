@@ -0,0 +1,21 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of exchange rates and the cursor of the next one, null on the last page
+ */
+@Getter
+@AllArgsConstructor
+public class RatePage {
+
+    private final List<ExchangeRateDto> rates;
+    private final RatePageCursor next;
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (rate_date DESC, currency_code ASC) ordering: the last row of the previous
+ * page. Clients only ever see it as an opaque URL-safe token.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class RatePageCursor {
+
+    private final LocalDate date;
+    private final String currencyCode;
+
+    public String encode() {
+        String key = date + "," + currencyCode;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static RatePageCursor decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int comma = key.indexOf(',');
+            String currencyCode = key.substring(comma + 1);
+            if (comma < 0 || currencyCode.length() != 3) {
+                throw new IllegalArgumentException("Malformed page cursor");
+            }
+            return new RatePageCursor(LocalDate.parse(key.substring(0, comma)), currencyCode);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed page cursor", e);
+        }
+    }
+}
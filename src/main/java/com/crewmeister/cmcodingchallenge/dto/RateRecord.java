@@ -0,0 +1,21 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Single (date, currency, rate) observation as emitted by the streaming ECB parser
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class RateRecord {
+
+    private final LocalDate date;
+    private final String currencyCode;
+    private final BigDecimal rate;
+}
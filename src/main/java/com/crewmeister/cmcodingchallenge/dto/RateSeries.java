@@ -0,0 +1,39 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Rates of one currency over a date range, keyed by date and oldest first. Dates without a
+ * published rate are absent rather than null.
+ */
+@Getter
+@AllArgsConstructor
+public class RateSeries {
+
+    @JsonProperty("currency_code")
+    private final String currencyCode;
+
+    @JsonProperty("currency_name")
+    private final String currencyName;
+
+    @JsonProperty("from")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final LocalDate from;
+
+    @JsonProperty("to")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final LocalDate to;
+
+    @JsonProperty("rates")
+    private final Map<LocalDate, BigDecimal> rates;
+}
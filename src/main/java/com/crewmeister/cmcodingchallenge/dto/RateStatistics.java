@@ -0,0 +1,63 @@
+package com.crewmeister.cmcodingchallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Summary of one currency's rates over a date range. Everything but the count is absent for an
+ * empty range, and stddev (sample) needs at least two rates.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RateStatistics {
+
+    @JsonProperty("currency_code")
+    private final String currencyCode;
+
+    @JsonProperty("currency_name")
+    private final String currencyName;
+
+    @JsonProperty("from")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate from;
+
+    @JsonProperty("to")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate to;
+
+    @JsonProperty("count")
+    private final int count;
+
+    @JsonProperty("first_date")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate firstDate;
+
+    @JsonProperty("first")
+    private final BigDecimal first;
+
+    @JsonProperty("last_date")
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate lastDate;
+
+    @JsonProperty("last")
+    private final BigDecimal last;
+
+    @JsonProperty("min")
+    private final BigDecimal min;
+
+    @JsonProperty("max")
+    private final BigDecimal max;
+
+    @JsonProperty("mean")
+    private final BigDecimal mean;
+
+    @JsonProperty("stddev")
+    private final BigDecimal stddev;
+}
@@ -2,10 +2,33 @@ package com.crewmeister.cmcodingchallenge.exception;
 
 import java.time.LocalDate;
 
+/**
+ * Raised for every lookup of a date without a rate (weekends, holidays, before 1999), so it is
+ * built without a stack trace and formats its message only when asked.
+ */
 public class ExchangeRateNotFoundException extends RuntimeException {
 
+    private final String currencyCode;
+    private final LocalDate date;
+
     public ExchangeRateNotFoundException(String currencyCode, LocalDate date) {
-        super(String.format("Exchange rate for currency '%s' on date '%s' not found",
-                currencyCode, date));
+        super(null, null, false, false);
+        this.currencyCode = currencyCode;
+        this.date = date;
+    }
+
+    /**
+     * No rate at all for the currency, e.g. for a series of a code that was never published
+     */
+    public ExchangeRateNotFoundException(String currencyCode) {
+        this(currencyCode, null);
+    }
+
+    @Override
+    public String getMessage() {
+        if (date == null) {
+            return String.format("No exchange rates for currency '%s' found", currencyCode);
+        }
+        return String.format("Exchange rate for currency '%s' on date '%s' not found", currencyCode, date);
     }
 }
@@ -1,11 +1,22 @@
 package com.crewmeister.cmcodingchallenge.initilization;
 
-import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.dto.IngestionResult;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateIngestionService;
+import com.crewmeister.cmcodingchallenge.service.RateArchive;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
+import com.crewmeister.cmcodingchallenge.service.RateSnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
 
 @Component
 @Profile("!test")
@@ -13,18 +24,68 @@ public class DataInitializer implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
 
-    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateIngestionService ingestionService;
+    private final RateSnapshotService snapshotService;
+    private final RateIndex rateIndex;
+    private final RateArchive rateArchive;
+    private final InitialLoadReadiness readiness;
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final CurrencyRegistry currencyRegistry;
+
+    @Value("${ecb.ingestion.initial-load-timeout:60s}")
+    private Duration initialLoadTimeout;
 
-    public DataInitializer(ExchangeRateService exchangeRateService) {
-        this.exchangeRateService = exchangeRateService;
+    public DataInitializer(ExchangeRateIngestionService ingestionService, RateSnapshotService snapshotService,
+                           RateIndex rateIndex, RateArchive rateArchive, InitialLoadReadiness readiness,
+                           ExchangeRateJdbcReader exchangeRateReader, CurrencyRegistry currencyRegistry) {
+        this.ingestionService = ingestionService;
+        this.snapshotService = snapshotService;
+        this.rateIndex = rateIndex;
+        this.rateArchive = rateArchive;
+        this.readiness = readiness;
+        this.exchangeRateReader = exchangeRateReader;
+        this.currencyRegistry = currencyRegistry;
     }
 
     @Override
     public void run(String... args) {
         logger.info("Initializing application data...");
 
-        exchangeRateService.fetchAndStoreExchangeRates();
+        // A durable store survived the restart and is at least as recent as the snapshot written with it
+        long stored = exchangeRateReader.countRates();
+        long restored = 0;
+        if (stored > 0) {
+            logger.info("Store already holds {} exchange rates, skipping snapshot restore", stored);
+            currencyRegistry.register(exchangeRateReader.findCurrencyNames());
+        } else {
+            restored = snapshotService.restore();
+        }
+        if (stored > 0 || restored > 0) {
+            // Serve the stored rates right away: a mapped archive answers lookups while the index is built
+            // in the background, then catch up with the providers
+            Mono<Void> index = Mono.empty();
+            if (rateArchive.open()) {
+                index = Mono.<Void>fromRunnable(rateIndex::reload).subscribeOn(Schedulers.boundedElastic());
+            } else {
+                rateIndex.reload();
+            }
+            readiness.markReady();
+            index.then(Mono.defer(ingestionService::ingestLatest))
+                    .subscribe(result -> logger.info("Background refresh after warm start: {}", result));
+            return;
+        }
+
+        // Nothing stored yet; the ingest below fills the archive and the index as it writes
+        rateArchive.open();
+        rateIndex.reload();
 
-        logger.info("Data initialization completed");
+        try {
+            IngestionResult result = ingestionService.ingestLatest().block(initialLoadTimeout);
+            logger.info("Data initialization completed: {}", result);
+        } catch (IllegalStateException e) {
+            logger.error("Initial exchange rate load did not finish within {}", initialLoadTimeout, e);
+        } finally {
+            readiness.markReady();
+        }
     }
 }
@@ -0,0 +1,37 @@
+package com.crewmeister.cmcodingchallenge.initilization;
+
+import com.crewmeister.cmcodingchallenge.dto.BackfillReport;
+import com.crewmeister.cmcodingchallenge.service.HistoricalBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "ecb.backfill.enabled", havingValue = "true")
+public class HistoricalBackfillRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalBackfillRunner.class);
+
+    private final HistoricalBackfillService backfillService;
+
+    @Value("${ecb.backfill.source:${ecb.api.history-rates-url}}")
+    private String source;
+
+    public HistoricalBackfillRunner(HistoricalBackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    @Override
+    public void run(String... args) {
+        logger.info("Running historical backfill from {}", source);
+
+        BackfillReport report = backfillService.backfill(source);
+
+        logger.info("Historical backfill finished: {} rows/sec", String.format("%.0f", report.getRowsPerSecond()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.crewmeister.cmcodingchallenge.initilization;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Rejects API calls with 503 and a Retry-After hint while the initial rate load is still running
+ */
+public class InitialLoadGateFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final InitialLoadReadiness readiness;
+
+    public InitialLoadGateFilter(InitialLoadReadiness readiness) {
+        this.readiness = readiness;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (readiness.isReady()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Exchange rates are still loading");
+    }
+}
@@ -0,0 +1,41 @@
+package com.crewmeister.cmcodingchallenge.initilization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks whether the first rate load has finished. Until then the API answers 503 instead of
+ * 404s for rates that simply have not been loaded yet.
+ */
+@Component
+public class InitialLoadReadiness {
+
+    private static final Logger logger = LoggerFactory.getLogger(InitialLoadReadiness.class);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean ready;
+
+    public InitialLoadReadiness(ApplicationEventPublisher eventPublisher,
+                                @Value("${ecb.ingestion.await-initial-load:true}") boolean awaitInitialLoad) {
+        this.eventPublisher = eventPublisher;
+        this.ready = new AtomicBoolean(!awaitInitialLoad);
+    }
+
+    public boolean isReady() {
+        return ready.get();
+    }
+
+    public void markReady() {
+        if (ready.compareAndSet(false, true)) {
+            logger.info("Initial exchange rate load finished, accepting traffic");
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+}
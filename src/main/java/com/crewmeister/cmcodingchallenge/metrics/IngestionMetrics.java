@@ -0,0 +1,155 @@
+package com.crewmeister.cmcodingchallenge.metrics;
+
+import com.crewmeister.cmcodingchallenge.dto.IngestionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for every stage of rate ingestion: fetch, parse, validate, write, evict.
+ * All names share the {@code ecb.ingestion} prefix so they can be graphed and alerted on together,
+ * e.g. on rising {@code ecb.ingestion.rows.rejected} after an upstream format change.
+ */
+@Component
+public class IngestionMetrics {
+
+    public static final String FETCH = "ecb.ingestion.fetch";
+    public static final String FETCH_BYTES = "ecb.ingestion.fetch.bytes";
+    public static final String PARSE = "ecb.ingestion.parse";
+    public static final String ROWS_PARSED = "ecb.ingestion.rows.parsed";
+    public static final String ROWS_REJECTED = "ecb.ingestion.rows.rejected";
+    public static final String WRITE = "ecb.ingestion.write";
+    public static final String ROWS_WRITTEN = "ecb.ingestion.rows.written";
+    public static final String CACHE_EVICTIONS = "ecb.ingestion.cache.evictions";
+    public static final String RUNS = "ecb.ingestion.runs";
+    public static final String LAST_SUCCESS = "ecb.ingestion.last.success";
+
+    private final MeterRegistry registry;
+    private final Timer parseTimer;
+    private final Counter rowsParsed;
+    private final AtomicLong lastSuccessEpochSeconds = new AtomicLong();
+
+    public IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseTimer = Timer.builder(PARSE)
+                .description("Time to parse a daily rates document")
+                .register(registry);
+        this.rowsParsed = Counter.builder(ROWS_PARSED)
+                .description("Rate rows accepted by a parser")
+                .register(registry);
+        Gauge.builder(LAST_SUCCESS, lastSuccessEpochSeconds, AtomicLong::get)
+                .description("Epoch seconds of the last ingestion run that stored rates")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Meters backed by a private registry, for components created outside the application context
+     */
+    public static IngestionMetrics detached() {
+        return new IngestionMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param outcome e.g. success, failure, timeout, not_modified
+     */
+    public void recordFetch(String provider, String outcome, long nanos) {
+        Timer.builder(FETCH)
+                .description("Latency of a rate provider request")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBytesReceived(String provider, long bytes) {
+        DistributionSummary.builder(FETCH_BYTES)
+                .description("Size of a rate provider response body")
+                .baseUnit("bytes")
+                .tag("provider", provider)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Record the size of a streamed body once it has been fully received
+     */
+    public Flux<DataBuffer> countBytes(String provider, Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            AtomicLong bytes = new AtomicLong();
+            return body.doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                    .doOnComplete(() -> recordBytesReceived(provider, bytes.get()));
+        });
+    }
+
+    public void recordParse(long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRowsParsed(long rows) {
+        rowsParsed.increment(rows);
+    }
+
+    /**
+     * @param stage where the rows were dropped: parse or validate
+     */
+    public void recordRowsRejected(String stage, long rows) {
+        if (rows > 0) {
+            Counter.builder(ROWS_REJECTED)
+                    .description("Rate rows dropped as malformed or invalid")
+                    .tag("stage", stage)
+                    .register(registry)
+                    .increment(rows);
+        }
+    }
+
+    /**
+     * @param source daily, backfill or snapshot
+     */
+    public void recordWrite(String source, long nanos, long inserted, long updated) {
+        Timer.builder(WRITE)
+                .description("Time to write a batch of rates to the store")
+                .tag("source", source)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        rowsWritten(source, "inserted").increment(inserted);
+        rowsWritten(source, "updated").increment(updated);
+    }
+
+    public void recordCacheEviction(String cache) {
+        Counter.builder(CACHE_EVICTIONS)
+                .description("Rate caches cleared after an ingest")
+                .tag("cache", cache)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordRun(IngestionResult result) {
+        Counter.builder(RUNS)
+                .description("Ingestion pipeline runs by outcome")
+                .tag("status", result.getStatus().name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .increment();
+        if (result.isStored()) {
+            lastSuccessEpochSeconds.set(System.currentTimeMillis() / 1000);
+        }
+    }
+
+    private Counter rowsWritten(String source, String result) {
+        return Counter.builder(ROWS_WRITTEN)
+                .description("Rate rows written to the store")
+                .tag("source", source)
+                .tag("result", result)
+                .register(registry);
+    }
+}
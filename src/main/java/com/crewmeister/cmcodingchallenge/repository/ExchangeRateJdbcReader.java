@@ -0,0 +1,149 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bulk reads that bypass the persistence context, for exports that touch the whole table
+ */
+@Repository
+public class ExchangeRateJdbcReader {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExchangeRateJdbcReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long countRates() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exchange_rates", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Checksum of the stored rates that moves with every inserted row and every corrected rate, so a copy
+     * of the table can tell whether it is still current without comparing rows
+     */
+    public long checksumRates() {
+        Long checksum = jdbcTemplate.query("SELECT COUNT(*), SUM(rate) FROM exchange_rates", rs -> {
+            rs.next();
+            BigDecimal sum = rs.getBigDecimal(2);
+            return 31 * rs.getLong(1) + (sum != null ? sum.unscaledValue().longValue() : 0);
+        });
+        return checksum != null ? checksum : 0;
+    }
+
+    /**
+     * Currency code to display name, ordered by code
+     */
+    public Map<String, String> findCurrencyNames() {
+        Map<String, String> names = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT code, name FROM currencies ORDER BY code",
+                (RowCallbackHandler) rs -> names.put(rs.getString(1), rs.getString(2)));
+        return names;
+    }
+
+    public String findCurrencyName(String code) {
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM currencies WHERE code = ?", String.class, code);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    /**
+     * Rates of one currency by date, oldest first; null bounds are open. Answered by a single range scan
+     * of uk_currency_date, whose key and included rate hold every selected column.
+     */
+    public Map<LocalDate, BigDecimal> findSeries(String currencyCode, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("SELECT rate_date, rate FROM exchange_rates WHERE currency_code = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(currencyCode);
+        if (from != null) {
+            sql.append(" AND rate_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND rate_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        sql.append(" ORDER BY rate_date");
+
+        Map<LocalDate, BigDecimal> series = new LinkedHashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString());
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> series.put(rs.getDate(1).toLocalDate(), rs.getBigDecimal(2)));
+        return series;
+    }
+
+    /**
+     * One keyset page in the API ordering (newest date first, then currency code). Every filter is
+     * optional; {@code after} is the last row of the previous page, and paging never uses OFFSET.
+     */
+    public List<ExchangeRateDto> findPage(Collection<String> currencyCodes, LocalDate from, LocalDate to,
+                                          RatePageCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT er.currency_code, c.name, er.rate_date, er.rate FROM exchange_rates er"
+                        + " JOIN currencies c ON c.code = er.currency_code WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (!currencyCodes.isEmpty()) {
+            sql.append(" AND er.currency_code IN (");
+            for (String code : currencyCodes) {
+                sql.append(args.isEmpty() ? "?" : ", ?");
+                args.add(code);
+            }
+            sql.append(')');
+        }
+        if (from != null) {
+            sql.append(" AND er.rate_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND er.rate_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (after != null) {
+            sql.append(" AND (er.rate_date < ? OR (er.rate_date = ? AND er.currency_code > ?))");
+            args.add(Date.valueOf(after.getDate()));
+            args.add(Date.valueOf(after.getDate()));
+            args.add(after.getCurrencyCode());
+        }
+        sql.append(" ORDER BY er.rate_date DESC, er.currency_code LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new ExchangeRateDto(
+                rs.getString(1), rs.getString(2), rs.getDate(3).toLocalDate(), rs.getBigDecimal(4)), args.toArray());
+    }
+
+    /**
+     * Stream every stored rate ordered by date, then currency, without materializing the result set
+     */
+    public void forEachRate(Consumer<RateRecord> handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT rate_date, currency_code, rate FROM exchange_rates ORDER BY rate_date, currency_code");
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs ->
+                handler.accept(new RateRecord(rs.getDate(1).toLocalDate(), rs.getString(2), rs.getBigDecimal(3))));
+    }
+}
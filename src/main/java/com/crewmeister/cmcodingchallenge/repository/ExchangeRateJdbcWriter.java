@@ -0,0 +1,240 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based writer for rate ingestion. Rows are upserted with batched MERGE statements on the
+ * natural keys (currency code, and currency code + rate date for uk_currency_date), so ingesting
+ * needs neither per-row lookups nor Hibernate dirty checking; one key probe per batch tells new rates
+ * from updated ones. Ids are drawn from exchange_rates_seq the
+ * way Hibernate's pooled-lo optimizer draws them, so both share the sequence without wasting values.
+ */
+@Repository
+public class ExchangeRateJdbcWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateJdbcWriter.class);
+
+    private static final String UPSERT_CURRENCY_SQL =
+            "MERGE INTO currencies t " +
+            "USING (SELECT CAST(? AS VARCHAR(3)) AS code, CAST(? AS VARCHAR(255)) AS name) s " +
+            "ON t.code = s.code " +
+            "WHEN MATCHED THEN UPDATE SET name = s.name " +
+            "WHEN NOT MATCHED THEN INSERT (code, name) VALUES (s.code, s.name)";
+
+    private static final String UPSERT_RATE_SQL =
+            "MERGE INTO exchange_rates t " +
+            "USING (SELECT CAST(? AS VARCHAR(3)) AS currency_code, CAST(? AS DATE) AS rate_date, " +
+            "CAST(? AS DECIMAL(19, 6)) AS rate, CAST(? AS BIGINT) AS id) s " +
+            "ON t.currency_code = s.currency_code AND t.rate_date = s.rate_date " +
+            "WHEN MATCHED THEN UPDATE SET rate = s.rate " +
+            "WHEN NOT MATCHED THEN INSERT (id, currency_code, rate_date, rate) " +
+            "VALUES (s.id, s.currency_code, s.rate_date, s.rate)";
+
+    private static final String UPDATE_RATE_SQL =
+            "UPDATE exchange_rates SET rate = ? WHERE currency_code = ? AND rate_date = ?";
+
+    private static final String INSERT_RATE_SQL =
+            "INSERT INTO exchange_rates (id, currency_code, rate_date, rate) VALUES (?, ?, ?, ?)";
+
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT NEXT VALUE FOR exchange_rates_seq FROM SYSTEM_RANGE(1, ?)";
+
+    /**
+     * INCREMENT BY of exchange_rates_seq and increment_size of the entity's generator: each sequence value
+     * v reserves the ids [v, v + ID_BLOCK_SIZE)
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArrayDeque<Long> reservedBlocks = new ArrayDeque<>();
+    private long nextId;
+    private long blockEnd;
+
+    @Value("${ecb.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    public ExchangeRateJdbcWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert or rename currencies
+     *
+     * @param currencyNames currency code to display name
+     */
+    public int upsertCurrencies(Map<String, String> currencyNames) {
+        if (currencyNames.isEmpty()) {
+            return 0;
+        }
+
+        List<Map.Entry<String, String>> entries = new ArrayList<>(currencyNames.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_CURRENCY_SQL, entries, batchSize, (ps, entry) -> {
+            ps.setString(1, entry.getKey());
+            ps.setString(2, entry.getValue());
+        });
+
+        logger.debug("Upserted {} currencies", entries.size());
+        return entries.size();
+    }
+
+    /**
+     * Insert or update rates. Every referenced currency must already exist. Which keys are already stored
+     * is probed per batch on the batch's own dates and currencies, so only new rows draw ids and the
+     * result needs no count over the whole table.
+     *
+     * @return number of rates that were not stored before; exact unless another writer inserts the same
+     * keys concurrently, in which case MERGE still keeps the table correct
+     */
+    public int upsertRates(Collection<RateRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        List<RateRecord> batch = new ArrayList<>(records);
+        int inserted = 0;
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            inserted += upsertBatch(batch.subList(from, Math.min(from + batchSize, batch.size())));
+        }
+
+        logger.debug("Upserted {} exchange rates ({} new) in batches of {}", records.size(), inserted, batchSize);
+        return inserted;
+    }
+
+    private int upsertBatch(List<RateRecord> batch) {
+        Set<String> known = findStoredKeys(batch);
+        List<RateRecord> inserts = new ArrayList<>();
+        List<RateRecord> updates = new ArrayList<>();
+        for (RateRecord record : batch) {
+            // A key repeated within the batch is new once, then an update applied after its insert
+            (known.add(key(record.getCurrencyCode(), record.getDate())) ? inserts : updates).add(record);
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_RATE_SQL, withIds(inserts), inserts.size(), (ps, row) -> {
+                ps.setString(1, row.record.getCurrencyCode());
+                ps.setDate(2, Date.valueOf(row.record.getDate()));
+                ps.setBigDecimal(3, row.record.getRate());
+                ps.setLong(4, row.id);
+            });
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_RATE_SQL, updates, updates.size(), (ps, record) -> {
+                ps.setBigDecimal(1, record.getRate());
+                ps.setString(2, record.getCurrencyCode());
+                ps.setDate(3, Date.valueOf(record.getDate()));
+            });
+        }
+        return inserts.size();
+    }
+
+    /**
+     * Keys of the batch that are already stored, probed through uk_currency_date on the batch's
+     * currencies and dates only
+     */
+    private Set<String> findStoredKeys(List<RateRecord> batch) {
+        Set<String> codes = new LinkedHashSet<>();
+        Set<LocalDate> dates = new LinkedHashSet<>();
+        for (RateRecord record : batch) {
+            codes.add(record.getCurrencyCode());
+            dates.add(record.getDate());
+        }
+
+        List<Object> args = new ArrayList<>(codes.size() + dates.size());
+        args.addAll(codes);
+        for (LocalDate date : dates) {
+            args.add(Date.valueOf(date));
+        }
+        String sql = "SELECT currency_code, rate_date FROM exchange_rates WHERE currency_code IN ("
+                + placeholders(codes.size()) + ") AND rate_date IN (" + placeholders(dates.size()) + ")";
+
+        Set<String> stored = new HashSet<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> stored.add(key(rs.getString(1), rs.getDate(2).toLocalDate())),
+                args.toArray());
+        return stored;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String key(String currencyCode, LocalDate date) {
+        return currencyCode + '|' + date;
+    }
+
+    /**
+     * Plain batched insert for bulk loads into an empty table, skipping the MERGE key lookup
+     *
+     * @return number of rates inserted, all of them
+     */
+    public int insertRates(Collection<RateRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_RATE_SQL, withIds(records), batchSize, (ps, row) -> {
+            ps.setLong(1, row.id);
+            ps.setString(2, row.record.getCurrencyCode());
+            ps.setDate(3, Date.valueOf(row.record.getDate()));
+            ps.setBigDecimal(4, row.record.getRate());
+        });
+
+        logger.debug("Inserted {} exchange rates in batches of {}", records.size(), batchSize);
+        return records.size();
+    }
+
+    private List<IdentifiedRate> withIds(Collection<RateRecord> records) {
+        long[] ids = allocateIds(records.size());
+        List<IdentifiedRate> rows = new ArrayList<>(records.size());
+        for (RateRecord record : records) {
+            rows.add(new IdentifiedRate(ids[rows.size()], record));
+        }
+        return rows;
+    }
+
+    /**
+     * Next {@code count} ids, reserving as many sequence blocks as needed in one query
+     */
+    synchronized long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (nextId == blockEnd) {
+                if (reservedBlocks.isEmpty()) {
+                    int blocks = (count - i + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+                    reservedBlocks.addAll(jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks));
+                }
+                nextId = reservedBlocks.poll();
+                blockEnd = nextId + ID_BLOCK_SIZE;
+            }
+            ids[i] = nextId++;
+        }
+        return ids;
+    }
+
+    private static final class IdentifiedRate {
+
+        final long id;
+        final RateRecord record;
+
+        IdentifiedRate(long id, RateRecord record) {
+            this.id = id;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking counterparts of the {@link ExchangeRateJdbcReader} reads and the JPA single-rate lookups,
+ * for the reactive endpoints. Same SQL and indexes; nothing here holds a thread while the database works.
+ * Only the reactive profile configures R2DBC, so only it has this reader.
+ */
+@Repository
+@Profile("reactive")
+public class ExchangeRateR2dbcReader {
+
+    private static final String RATE_COLUMNS = "SELECT er.currency_code, c.name, er.rate_date, er.rate FROM exchange_rates er"
+            + " JOIN currencies c ON c.code = er.currency_code";
+
+    private final DatabaseClient databaseClient;
+
+    public ExchangeRateR2dbcReader(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<CurrencyDto> findCurrencies() {
+        return databaseClient.sql("SELECT code, name FROM currencies ORDER BY code")
+                .map(row -> new CurrencyDto(row.get("code", String.class), row.get("name", String.class)))
+                .all();
+    }
+
+    public Mono<String> findCurrencyName(String code) {
+        return databaseClient.sql("SELECT name FROM currencies WHERE code = :code")
+                .bind("code", code)
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+
+    public Mono<ExchangeRateDto> findRate(String currencyCode, LocalDate date) {
+        return databaseClient.sql(RATE_COLUMNS + " WHERE er.currency_code = :code AND er.rate_date = :date")
+                .bind("code", currencyCode)
+                .bind("date", date)
+                .map(ExchangeRateR2dbcReader::toDto)
+                .one();
+    }
+
+    /**
+     * Latest rate on or before {@code date}; the DTO keeps {@code date} and carries the rate's own date
+     * as its effective date
+     */
+    public Mono<ExchangeRateDto> findLatestOnOrBefore(String currencyCode, LocalDate date) {
+        return databaseClient.sql(RATE_COLUMNS + " WHERE er.currency_code = :code AND er.rate_date <= :date"
+                        + " ORDER BY er.rate_date DESC LIMIT 1")
+                .bind("code", currencyCode)
+                .bind("date", date)
+                .map(row -> {
+                    ExchangeRateDto rate = toDto(row);
+                    return new ExchangeRateDto(rate.getCurrencyCode(), rate.getCurrencyName(), date,
+                            rate.getRate(), rate.getDate());
+                })
+                .one();
+    }
+
+    /**
+     * One keyset page in the API ordering, as {@link ExchangeRateJdbcReader#findPage}
+     */
+    public Flux<ExchangeRateDto> findPage(Collection<String> currencyCodes, LocalDate from, LocalDate to,
+                                          RatePageCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(RATE_COLUMNS).append(" WHERE 1 = 1");
+        if (!currencyCodes.isEmpty()) {
+            sql.append(" AND er.currency_code IN (:codes)");
+        }
+        if (from != null) {
+            sql.append(" AND er.rate_date >= :from");
+        }
+        if (to != null) {
+            sql.append(" AND er.rate_date <= :to");
+        }
+        if (after != null) {
+            sql.append(" AND (er.rate_date < :afterDate OR (er.rate_date = :afterDate AND er.currency_code > :afterCode))");
+        }
+        sql.append(" ORDER BY er.rate_date DESC, er.currency_code LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("limit", limit);
+        if (!currencyCodes.isEmpty()) {
+            spec = spec.bind("codes", currencyCodes);
+        }
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        if (after != null) {
+            spec = spec.bind("afterDate", after.getDate()).bind("afterCode", after.getCurrencyCode());
+        }
+        return spec.map(ExchangeRateR2dbcReader::toDto).all();
+    }
+
+    /**
+     * Rates of one currency by date, oldest first, from one range scan of the covering unique key uk_currency_date
+     */
+    public Mono<Map<LocalDate, BigDecimal>> findSeries(String currencyCode, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("SELECT rate_date, rate FROM exchange_rates WHERE currency_code = :code");
+        if (from != null) {
+            sql.append(" AND rate_date >= :from");
+        }
+        if (to != null) {
+            sql.append(" AND rate_date <= :to");
+        }
+        sql.append(" ORDER BY rate_date");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("code", currencyCode);
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        return spec.map(row -> Map.entry(row.get("rate_date", LocalDate.class), row.get("rate", BigDecimal.class)))
+                .all()
+                .<Map<LocalDate, BigDecimal>>collect(LinkedHashMap::new,
+                        (series, rate) -> series.put(rate.getKey(), rate.getValue()));
+    }
+
+    private static ExchangeRateDto toDto(Row row) {
+        return new ExchangeRateDto(row.get("currency_code", String.class), row.get("name", String.class),
+                row.get("rate_date", LocalDate.class), row.get("rate", BigDecimal.class));
+    }
+}
@@ -1,6 +1,7 @@
 package com.crewmeister.cmcodingchallenge.repository;
 
 import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,12 +14,17 @@ import java.util.Optional;
 @Repository
 public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
 
-    @Query("SELECT er FROM ExchangeRate er JOIN FETCH er.currency ORDER BY er.rateDate DESC, er.currency.code ASC")
-    List<ExchangeRate> findAllWithCurrency();
-
     @Query("SELECT er FROM ExchangeRate er JOIN FETCH er.currency WHERE er.currency.code = :currencyCode AND er.rateDate = :date")
     Optional<ExchangeRate> findByCurrencyCodeAndRateDate(@Param("currencyCode") String currencyCode,
                                                          @Param("date") LocalDate date);
 
+    /**
+     * Rates on or before {@code date}, newest first; pass a one-element page for the floor lookup
+     */
+    @Query("SELECT er FROM ExchangeRate er JOIN FETCH er.currency WHERE er.currency.code = :currencyCode AND er.rateDate <= :date ORDER BY er.rateDate DESC")
+    List<ExchangeRate> findLatestOnOrBefore(@Param("currencyCode") String currencyCode,
+                                            @Param("date") LocalDate date,
+                                            Pageable pageable);
+
     List<ExchangeRate> findByRateDate(LocalDate rateDate);
 }
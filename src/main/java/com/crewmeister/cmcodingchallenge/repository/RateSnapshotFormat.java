@@ -0,0 +1,173 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary snapshot of the rate store, gzip-compressed:
+ * <pre>
+ * magic "CMRS", version
+ * currency count, then (code, name) per currency
+ * per day: epoch day, rate count, then (currency index, scale, unscaled value) per rate
+ * end marker
+ * </pre>
+ * Rates must be written grouped by date.
+ */
+public final class RateSnapshotFormat {
+
+    private static final int MAGIC = 0x434D5253;
+    private static final int VERSION = 1;
+    private static final int END_OF_DAYS = Integer.MIN_VALUE;
+
+    private RateSnapshotFormat() {
+    }
+
+    /**
+     * Open a snapshot and read its currency table; rates are read by {@link Reader#readRates(Consumer)}
+     */
+    public static Reader reader(InputStream input) throws IOException {
+        return new Reader(input);
+    }
+
+    public static Writer writer(OutputStream output, Map<String, String> currencyNames) throws IOException {
+        return new Writer(output, currencyNames);
+    }
+
+    public static final class Reader {
+
+        private final DataInputStream in;
+        private final Map<String, String> currencyNames;
+        private final String[] codes;
+
+        private Reader(InputStream input) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(input, 1 << 16), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a rate snapshot");
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported rate snapshot version " + version);
+            }
+
+            int currencyCount = in.readUnsignedShort();
+            this.currencyNames = new LinkedHashMap<>(currencyCount * 2);
+            this.codes = new String[currencyCount];
+            for (int i = 0; i < currencyCount; i++) {
+                codes[i] = in.readUTF();
+                currencyNames.put(codes[i], in.readUTF());
+            }
+        }
+
+        /**
+         * Currency code to display name
+         */
+        public Map<String, String> getCurrencyNames() {
+            return currencyNames;
+        }
+
+        /**
+         * Emit every rate to {@code handler}, grouped by date
+         *
+         * @return number of rates read
+         */
+        public long readRates(Consumer<RateRecord> handler) throws IOException {
+            long rows = 0;
+            for (int epochDay = in.readInt(); epochDay != END_OF_DAYS; epochDay = in.readInt()) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                int rates = in.readUnsignedShort();
+                for (int i = 0; i < rates; i++) {
+                    String code = codes[in.readUnsignedShort()];
+                    int scale = in.readByte();
+                    handler.accept(new RateRecord(date, code, BigDecimal.valueOf(in.readLong(), scale)));
+                }
+                rows += rates;
+            }
+            return rows;
+        }
+    }
+
+    public static final class Writer implements Closeable, Consumer<RateRecord> {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> indexes;
+        private final List<RateRecord> day = new ArrayList<>();
+        private long rows;
+
+        private Writer(OutputStream output, Map<String, String> currencyNames) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(output, 1 << 16), 1 << 16));
+            this.indexes = new HashMap<>(currencyNames.size() * 2);
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(currencyNames.size());
+            for (Map.Entry<String, String> currency : currencyNames.entrySet()) {
+                indexes.put(currency.getKey(), indexes.size());
+                out.writeUTF(currency.getKey());
+                out.writeUTF(currency.getValue());
+            }
+        }
+
+        @Override
+        public void accept(RateRecord record) {
+            if (!day.isEmpty() && !day.get(0).getDate().equals(record.getDate())) {
+                flushDay();
+            }
+            day.add(record);
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushDay();
+            out.writeInt(END_OF_DAYS);
+            out.close();
+        }
+
+        private void flushDay() {
+            if (day.isEmpty()) {
+                return;
+            }
+            try {
+                out.writeInt((int) day.get(0).getDate().toEpochDay());
+                out.writeShort(day.size());
+                for (RateRecord record : day) {
+                    Integer index = indexes.get(record.getCurrencyCode());
+                    if (index == null) {
+                        throw new IllegalArgumentException("Unknown currency in snapshot: " + record.getCurrencyCode());
+                    }
+                    BigInteger unscaled = record.getRate().unscaledValue();
+                    out.writeShort(index);
+                    out.writeByte(record.getRate().scale());
+                    out.writeLong(unscaled.longValueExact());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows += day.size();
+            day.clear();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.crewmeister.cmcodingchallenge.scheduling;
+
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateIngestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls ECB during the window in which the daily reference rates are published (around 16:00 CET).
+ * Polls are conditional, so an unchanged file costs one 304 round trip.
+ */
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "ecb.refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class ExchangeRateRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateRefreshScheduler.class);
+
+    private final ExchangeRateIngestionService ingestionService;
+
+    public ExchangeRateRefreshScheduler(ExchangeRateIngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    @Scheduled(cron = "${ecb.refresh.cron}", zone = "${ecb.refresh.zone}")
+    public void refresh() {
+        try {
+            ingestionService.refresh().block();
+        } catch (Exception e) {
+            logger.error("Scheduled exchange rate refresh failed", e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.BatchConversionResult;
+import com.crewmeister.cmcodingchallenge.dto.ConversionRequest;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Converts many amounts to EUR in one request. Items are validated one by one and answered in order;
+ * a bad item gets the status and message the single conversion endpoint would have returned, and the
+ * rest of the batch goes on. Each (currency, date) is resolved once per batch, so invoices with
+ * thousands of lines in a few currencies cost a few rate lookups.
+ */
+@Service
+public class BatchConversionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchConversionService.class);
+
+    /**
+     * Bounds the per-batch memo for streams that touch very many (currency, date) pairs
+     */
+    private static final int MAX_RESOLVED_RATES = 50_000;
+
+    /**
+     * Longest NDJSON line taken as an item, far above any real one; longer lines are answered 400
+     * without being buffered, so a body with no newlines cannot fill the heap
+     */
+    static final int MAX_ITEM_CHARS = 8192;
+
+    private final ExchangeRateService exchangeRateService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final Validator validator;
+
+    public BatchConversionService(ExchangeRateService exchangeRateService, ObjectMapper objectMapper,
+                                  Validator validator) {
+        this.exchangeRateService = exchangeRateService;
+        this.objectMapper = objectMapper;
+        this.resultWriter = objectMapper.writerFor(BatchConversionResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.validator = validator;
+    }
+
+    /**
+     * Convert the items of a JSON array. Items are taken as raw JSON so a malformed one fails alone.
+     */
+    public List<BatchConversionResult> convert(List<JsonNode> items, RateFallback fallback) {
+        long startNanos = System.nanoTime();
+        Batch batch = new Batch(fallback);
+        List<BatchConversionResult> results = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            long index = results.size();
+            try {
+                results.add(batch.convert(index, objectMapper.treeToValue(item, ConversionRequest.class)));
+            } catch (JsonProcessingException e) {
+                results.add(malformed(index, e));
+            }
+        }
+        logger.info("Converted batch of {} items with {} rate lookups in {} ms",
+                results.size(), batch.lookups, (System.nanoTime() - startNanos) / 1_000_000);
+        return results;
+    }
+
+    /**
+     * Convert newline-delimited JSON items as they arrive, writing one result line per item to
+     * {@code output} without closing it. Blank lines are skipped and do not take an index; lines over
+     * {@link #MAX_ITEM_CHARS} fail alone.
+     *
+     * @return number of items converted
+     */
+    public long convert(InputStream ndjson, OutputStream output, RateFallback fallback) throws IOException {
+        long startNanos = System.nanoTime();
+        LineReader reader = new LineReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        Batch batch = new Batch(fallback);
+        long index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            BatchConversionResult result;
+            if (reader.truncated) {
+                result = BatchConversionResult.failed(index, HttpStatus.BAD_REQUEST.value(),
+                        "Item is longer than " + MAX_ITEM_CHARS + " characters");
+            } else if (line.isBlank()) {
+                continue;
+            } else {
+                try {
+                    result = batch.convert(index, objectMapper.readValue(line, ConversionRequest.class));
+                } catch (JsonProcessingException e) {
+                    result = malformed(index, e);
+                }
+            }
+            resultWriter.writeValue(generator, result);
+            generator.writeRaw('\n');
+            index++;
+        }
+        generator.flush();
+        logger.info("Converted stream of {} items with {} rate lookups in {} ms",
+                index, batch.lookups, (System.nanoTime() - startNanos) / 1_000_000);
+        return index;
+    }
+
+    private static BatchConversionResult malformed(long index, JsonProcessingException e) {
+        return BatchConversionResult.failed(index, HttpStatus.BAD_REQUEST.value(),
+                "Malformed item: " + e.getOriginalMessage());
+    }
+
+    /**
+     * Reads lines ended by LF or CRLF, keeping at most {@link #MAX_ITEM_CHARS} characters of each; the
+     * rest of a longer line is skipped and the line flagged as truncated
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean truncated;
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return the next line without its terminator, or null at end of input
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(reader.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return line.length() > 0 || truncated ? finish() : null;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                int room = MAX_ITEM_CHARS + 1 - line.length();
+                if (position - start > room) {
+                    truncated = true;
+                }
+                line.append(buffer, start, Math.min(position - start, room));
+                if (position < limit) {
+                    position++;
+                    return finish();
+                }
+            }
+        }
+
+        private String finish() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(--length);
+            }
+            truncated |= length > MAX_ITEM_CHARS;
+            return line.toString();
+        }
+    }
+
+    /**
+     * State of one batch: the fallback mode and the rates resolved so far, misses included
+     */
+    private final class Batch {
+
+        private final RateFallback fallback;
+        private final Map<String, Object> rates = new HashMap<>();
+        private int lookups;
+
+        Batch(RateFallback fallback) {
+            this.fallback = fallback;
+        }
+
+        BatchConversionResult convert(long index, ConversionRequest request) {
+            if (request == null) {
+                return BatchConversionResult.failed(index, HttpStatus.BAD_REQUEST.value(), "Item is required");
+            }
+            Set<ConstraintViolation<ConversionRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                return BatchConversionResult.failed(index, HttpStatus.BAD_REQUEST.value(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+
+            // Upper case, so differently cased items share one entry here and in the exchangeRates cache
+            String currency = request.getCurrency().toUpperCase();
+            LocalDate date = request.getDate();
+            if ("EUR".equalsIgnoreCase(currency)) {
+                return BatchConversionResult.converted(index, fallback == RateFallback.PREVIOUS
+                        ? exchangeRateService.convertCurrencyOnOrBefore(request.getAmount(), currency, date)
+                        : exchangeRateService.convertCurrency(request.getAmount(), currency, date));
+            }
+
+            String key = currency + '_' + date;
+            Object rate = rates.get(key);
+            if (rate == null) {
+                rate = resolve(currency, date);
+                if (rates.size() >= MAX_RESOLVED_RATES) {
+                    rates.clear();
+                }
+                rates.put(key, rate);
+            }
+            if (rate instanceof ExchangeRateNotFoundException) {
+                return BatchConversionResult.failed(index, HttpStatus.NOT_FOUND.value(),
+                        ((ExchangeRateNotFoundException) rate).getMessage());
+            }
+            return BatchConversionResult.converted(index,
+                    exchangeRateService.convertAt(request.getAmount(), (ExchangeRateDto) rate, date));
+        }
+
+        private Object resolve(String currency, LocalDate date) {
+            lookups++;
+            try {
+                return fallback == RateFallback.PREVIOUS
+                        ? exchangeRateService.getExchangeRateOnOrBefore(currency, date)
+                        : exchangeRateService.getExchangeRate(currency, date);
+            } catch (ExchangeRateNotFoundException e) {
+                return e;
+            }
+        }
+    }
+}
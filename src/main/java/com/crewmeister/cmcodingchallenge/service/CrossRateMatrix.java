@@ -0,0 +1,143 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Any-to-any rates triangulated through EUR. The first lookup for a date builds a {@link Matrix} of
+ * every cross rate published that day (one division per pair, at 16 significant digits) and caches it
+ * in {@code crossRates}, which is cleared on every ingest; a day without any rate is not cached. After that a cross rate is two array reads.
+ */
+@Component
+public class CrossRateMatrix {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrossRateMatrix.class);
+    private static final String CROSS_RATES = "crossRates";
+    private static final String EUR = "EUR";
+
+    /**
+     * Upper bound on rows per day when the index has nothing for the date and the store is asked
+     */
+    private static final int MAX_RATES_PER_DAY = 1000;
+
+    private final CurrencyRegistry currencyRegistry;
+    private final RateIndex rateIndex;
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final Cache matrices;
+
+    public CrossRateMatrix(CurrencyRegistry currencyRegistry, RateIndex rateIndex,
+                           ExchangeRateJdbcReader exchangeRateReader, CacheManager cacheManager) {
+        this.currencyRegistry = currencyRegistry;
+        this.rateIndex = rateIndex;
+        this.exchangeRateReader = exchangeRateReader;
+        Cache cache = cacheManager.getCache(CROSS_RATES);
+        this.matrices = cache != null ? cache : new NoOpCache(CROSS_RATES);
+    }
+
+    /**
+     * @return units of {@code toCurrency} per one unit of {@code fromCurrency} on {@code date}
+     * @throws ExchangeRateNotFoundException naming the first currency without a rate that day
+     */
+    public BigDecimal crossRate(String fromCurrency, String toCurrency, LocalDate date) {
+        Matrix matrix = matrices.get(date, Matrix.class);
+        if (matrix == null) {
+            matrix = build(date);
+            // A day nothing is known for yet, e.g. while the first load runs, must not hide rates stored later
+            if (matrix.found > 0) {
+                matrices.put(date, matrix);
+            }
+        }
+        int from = matrix.slot(fromCurrency);
+        BigDecimal[] row = from >= 0 ? matrix.rates[from] : null;
+        if (row == null) {
+            throw new ExchangeRateNotFoundException(fromCurrency, date);
+        }
+        int to = matrix.slot(toCurrency);
+        BigDecimal rate = to >= 0 ? row[to] : null;
+        if (rate == null) {
+            throw new ExchangeRateNotFoundException(toCurrency, date);
+        }
+        return rate;
+    }
+
+    private Matrix build(LocalDate date) {
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int eur = currencies.size();
+        BigDecimal[] eurRates = new BigDecimal[eur + 1];
+        eurRates[eur] = BigDecimal.ONE;
+
+        int found = 0;
+        long epochDay = date.toEpochDay();
+        for (int ordinal = 0; ordinal < eur; ordinal++) {
+            long unscaled = rateIndex.findUnscaled(ordinal, epochDay);
+            if (unscaled != 0) {
+                eurRates[ordinal] = BigDecimal.valueOf(unscaled, RateIndex.SCALE);
+                found++;
+            }
+        }
+        if (found == 0) {
+            // The index is not authoritative; a day it has nothing for costs one query, cached with the matrix
+            List<ExchangeRateDto> stored = exchangeRateReader.findPage(List.of(), date, date, null, MAX_RATES_PER_DAY);
+            for (ExchangeRateDto rate : stored) {
+                int ordinal = currencies.ordinal(rate.getCurrencyCode());
+                if (ordinal >= 0 && ordinal < eur) {
+                    eurRates[ordinal] = rate.getRate();
+                    found++;
+                }
+            }
+        }
+
+        BigDecimal[][] rates = new BigDecimal[eur + 1][];
+        for (int from = 0; from <= eur; from++) {
+            if (eurRates[from] == null) {
+                continue;
+            }
+            BigDecimal[] row = new BigDecimal[eur + 1];
+            for (int to = 0; to <= eur; to++) {
+                if (eurRates[to] != null) {
+                    row[to] = from == to ? BigDecimal.ONE : eurRates[to].divide(eurRates[from], MathContext.DECIMAL64);
+                }
+            }
+            rates[from] = row;
+        }
+        logger.debug("Built cross rates for {} currencies on {}", found, date);
+        return new Matrix(currencies, rates, found);
+    }
+
+    /**
+     * Cross rates of one day: {@code rates[from][to]}, indexed by registry ordinal with EUR in the last
+     * slot; a null row or entry means no rate was published for that currency
+     */
+    static final class Matrix {
+
+        private final CurrencyRegistry.Table currencies;
+        private final BigDecimal[][] rates;
+        private final int found;
+
+        Matrix(CurrencyRegistry.Table currencies, BigDecimal[][] rates, int found) {
+            this.currencies = currencies;
+            this.rates = rates;
+            this.found = found;
+        }
+
+        int slot(String currencyCode) {
+            if (EUR.equalsIgnoreCase(currencyCode)) {
+                return rates.length - 1;
+            }
+            int ordinal = currencies.ordinal(currencyCode);
+            return ordinal < rates.length - 1 ? ordinal : -1;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory registry of known currencies. Each currency gets a stable ordinal; lookups by code go
+ * through a perfect hash over the 26^3 possible three-letter codes, so they are a single array read,
+ * case-insensitive, and allocate nothing. The backing {@link Table} is immutable and replaced
+ * atomically when ingestion registers new currencies. Ordinals are only ever appended. The ECB
+ * currencies are known up front so that their ordinals are stable; {@link Table#isStored} tells them
+ * apart from currencies registered after they were written to the store.
+ */
+@Component
+public class CurrencyRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyRegistry.class);
+
+    private static final String[][] ECB_CURRENCIES = {
+            {"USD", "US Dollar"},
+            {"JPY", "Japanese Yen"},
+            {"GBP", "British Pound Sterling"},
+            {"CHF", "Swiss Franc"},
+            {"CAD", "Canadian Dollar"},
+            {"AUD", "Australian Dollar"},
+            {"NZD", "New Zealand Dollar"},
+            {"BGN", "Bulgarian Lev"},
+            {"CZK", "Czech Koruna"},
+            {"DKK", "Danish Krone"},
+            {"HUF", "Hungarian Forint"},
+            {"PLN", "Polish Zloty"},
+            {"RON", "Romanian Leu"},
+            {"SEK", "Swedish Krona"},
+            {"NOK", "Norwegian Krone"},
+            {"ISK", "Icelandic Krona"},
+            {"TRY", "Turkish Lira"},
+            {"CNY", "Chinese Yuan Renminbi"},
+            {"HKD", "Hong Kong Dollar"},
+            {"IDR", "Indonesian Rupiah"},
+            {"INR", "Indian Rupee"},
+            {"KRW", "South Korean Won"},
+            {"MYR", "Malaysian Ringgit"},
+            {"PHP", "Philippine Peso"},
+            {"SGD", "Singapore Dollar"},
+            {"THB", "Thai Baht"},
+            {"BRL", "Brazilian Real"},
+            {"ILS", "Israeli New Shekel"},
+            {"MXN", "Mexican Peso"},
+            {"ZAR", "South African Rand"}
+    };
+
+    private final AtomicReference<Table> table;
+
+    public CurrencyRegistry() {
+        Map<String, String> builtIn = new LinkedHashMap<>();
+        for (String[] currency : ECB_CURRENCIES) {
+            builtIn.put(currency[0], currency[1]);
+        }
+        this.table = new AtomicReference<>(Table.EMPTY.with(builtIn, false));
+    }
+
+    public Table current() {
+        return table.get();
+    }
+
+    /**
+     * @return the currency's ordinal, or -1 if it is unknown or not a three-letter code
+     */
+    public int ordinal(CharSequence code) {
+        return table.get().ordinal(code);
+    }
+
+    /**
+     * The registry's interned upper-case instance of {@code code}, or null if it is unknown
+     */
+    public String canonicalCode(CharSequence code) {
+        Table current = table.get();
+        int ordinal = current.ordinal(code);
+        return ordinal < 0 ? null : current.code(ordinal);
+    }
+
+    /**
+     * Display name, or null if the currency is unknown
+     */
+    public String getName(CharSequence code) {
+        Table current = table.get();
+        int ordinal = current.ordinal(code);
+        return ordinal < 0 ? null : current.name(ordinal);
+    }
+
+    /**
+     * Add new currencies and apply renames once they are in the store. Readers keep using the table they
+     * already hold.
+     */
+    public void register(Map<String, String> currencyNames) {
+        Table previous;
+        Table updated;
+        do {
+            previous = table.get();
+            updated = previous.with(currencyNames, true);
+        } while (updated != previous && !table.compareAndSet(previous, updated));
+
+        if (updated.size() != previous.size()) {
+            logger.info("Currency registry grew from {} to {} currencies", previous.size(), updated.size());
+        }
+    }
+
+    /**
+     * Whether {@code code} is three ASCII letters, regardless of case
+     */
+    public static boolean isCurrencyCode(CharSequence code) {
+        return slot(code) >= 0;
+    }
+
+    /**
+     * Perfect hash of a three-letter code, ignoring ASCII case
+     *
+     * @return slot in [0, 26^3) or -1 if {@code code} is not three ASCII letters
+     */
+    static int slot(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int slot = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = (code.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) {
+                return -1;
+            }
+            slot = slot * 26 + letter;
+        }
+        return slot;
+    }
+
+    /**
+     * Immutable snapshot of the registry
+     */
+    public static final class Table {
+
+        private static final int SLOTS = 26 * 26 * 26;
+        static final Table EMPTY = new Table(new String[0], new String[0], new boolean[0], new short[SLOTS]);
+
+        private final String[] codes;
+        private final String[] names;
+        private final boolean[] stored;
+        // ordinal + 1 per slot, 0 meaning absent
+        private final short[] slots;
+
+        private Table(String[] codes, String[] names, boolean[] stored, short[] slots) {
+            this.codes = codes;
+            this.names = names;
+            this.stored = stored;
+            this.slots = slots;
+        }
+
+        public int size() {
+            return codes.length;
+        }
+
+        public int ordinal(CharSequence code) {
+            int slot = slot(code);
+            return slot < 0 ? -1 : slots[slot] - 1;
+        }
+
+        public String code(int ordinal) {
+            return codes[ordinal];
+        }
+
+        public String name(int ordinal) {
+            return names[ordinal];
+        }
+
+        /**
+         * Whether the currency has been registered from the store rather than only pre-registered
+         */
+        public boolean isStored(int ordinal) {
+            return stored[ordinal];
+        }
+
+        Table with(Map<String, String> currencyNames, boolean fromStore) {
+            String[] newCodes = null;
+            String[] newNames = null;
+            boolean[] newStored = null;
+            short[] newSlots = null;
+            int size = codes.length;
+
+            for (Map.Entry<String, String> currency : currencyNames.entrySet()) {
+                int slot = slot(currency.getKey());
+                if (slot < 0) {
+                    logger.warn("Ignoring invalid currency code '{}'", currency.getKey());
+                    continue;
+                }
+                String name = currency.getValue() != null ? currency.getValue() : currency.getKey();
+                int ordinal = (newSlots != null ? newSlots : slots)[slot] - 1;
+                if (ordinal >= 0 && name.equals((newNames != null ? newNames : names)[ordinal])
+                        && (!fromStore || (newStored != null ? newStored : stored)[ordinal])) {
+                    continue;
+                }
+
+                if (newNames == null) {
+                    newCodes = Arrays.copyOf(codes, codes.length + currencyNames.size());
+                    newNames = Arrays.copyOf(names, codes.length + currencyNames.size());
+                    newStored = Arrays.copyOf(stored, codes.length + currencyNames.size());
+                    newSlots = slots.clone();
+                }
+                if (ordinal >= 0) {
+                    newNames[ordinal] = name;
+                    newStored[ordinal] |= fromStore;
+                } else {
+                    if (size >= Short.MAX_VALUE) {
+                        throw new IllegalStateException("Currency registry is full");
+                    }
+                    newCodes[size] = currency.getKey().toUpperCase().intern();
+                    newNames[size] = name;
+                    newStored[size] = fromStore;
+                    newSlots[slot] = (short) (size + 1);
+                    size++;
+                }
+            }
+
+            if (newNames == null) {
+                return this;
+            }
+            return new Table(Arrays.copyOf(newCodes, size), Arrays.copyOf(newNames, size),
+                    Arrays.copyOf(newStored, size), newSlots);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.crewmeister.cmcodingchallenge.entity.Currency;
 import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,12 +16,16 @@ public class CurrencyService {
     private static final Logger logger = LoggerFactory.getLogger(CurrencyService.class);
 
     private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
 
-    public CurrencyService(CurrencyRepository currencyRepository) {
+    public CurrencyService(CurrencyRepository currencyRepository, CurrencyRegistry currencyRegistry) {
         this.currencyRepository = currencyRepository;
+        this.currencyRegistry = currencyRegistry;
     }
 
-    @Cacheable("currencies")
+    /**
+     * Uncached; the serialized list is cached per dataset version by the response body cache
+     */
     public List<CurrencyDto> getAllCurrencies() {
         logger.info("Getting all available currencies");
         List<Currency> currencies = currencyRepository.findAll();
@@ -31,7 +34,16 @@ public class CurrencyService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Resolved from the in-memory registry for currencies it has seen stored; everything else, including
+     * the pre-registered ECB currencies before their first ingest, falls through to the database
+     */
     public Optional<Currency> findByCode(String code) {
+        CurrencyRegistry.Table registry = currencyRegistry.current();
+        int ordinal = registry.ordinal(code);
+        if (ordinal >= 0 && registry.isStored(ordinal)) {
+            return Optional.of(new Currency(registry.code(ordinal), registry.name(ordinal)));
+        }
         return currencyRepository.findById(code.toUpperCase());
     }
 
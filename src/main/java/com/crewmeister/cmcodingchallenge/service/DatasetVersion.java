@@ -0,0 +1,35 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the served rate data, bumped after every committed write. Values are epoch milliseconds
+ * of the last change, forced strictly upwards, so they keep increasing across restarts. Several bumps
+ * can fall within one second, so the version is only ever exposed as an entity tag.
+ */
+@Component
+public class DatasetVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Mark the data as changed. Call once the write is committed and visible to readers.
+     */
+    public long bump() {
+        return version.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+
+    /**
+     * Weak entity tag for the current version. Weak because one version is served both gzip-encoded and
+     * identity-encoded: the bodies are equivalent but not byte-identical, which a strong tag would promise.
+     */
+    public String etag() {
+        return "W/\"" + Long.toString(current(), 36) + "\"";
+    }
+}
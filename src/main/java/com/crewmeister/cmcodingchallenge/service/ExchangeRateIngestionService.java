@@ -0,0 +1,205 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.dto.IngestionResult;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Daily ingestion as a pipeline: fetch (and parse) → validate → write → index and evict → snapshot. Each run
+ * returns a {@link Mono} that completes only after the rates are committed and the caches cleared.
+ * Writes run in a transaction on the dedicated ingestion scheduler. Every stage reports to
+ * {@link IngestionMetrics}.
+ */
+@Service
+public class ExchangeRateIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateIngestionService.class);
+    private static final String[] RATE_CACHES = {"exchangeRates", "missingRates", "crossRates"};
+    private static final String WRITE_SOURCE = "daily";
+
+    private final BundesbankApiClient bundesbankClient;
+    private final RateAggregationService rateAggregation;
+    private final ExchangeRateJdbcWriter exchangeRateWriter;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler ingestionScheduler;
+    private final RateSnapshotService snapshotService;
+    private final RateArchive rateArchive;
+    private final CurrencyRegistry currencyRegistry;
+    private final RateIndex rateIndex;
+    private final DatasetVersion datasetVersion;
+    private final IngestionMetrics metrics;
+
+    public ExchangeRateIngestionService(BundesbankApiClient bundesbankClient, RateAggregationService rateAggregation,
+                                        ExchangeRateJdbcWriter exchangeRateWriter,
+                                        CacheManager cacheManager, PlatformTransactionManager transactionManager,
+                                        @Qualifier("ingestionScheduler") Scheduler ingestionScheduler,
+                                        RateSnapshotService snapshotService, RateArchive rateArchive,
+                                        CurrencyRegistry currencyRegistry,
+                                        RateIndex rateIndex, DatasetVersion datasetVersion, IngestionMetrics metrics) {
+        this.bundesbankClient = bundesbankClient;
+        this.rateAggregation = rateAggregation;
+        this.exchangeRateWriter = exchangeRateWriter;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ingestionScheduler = ingestionScheduler;
+        this.snapshotService = snapshotService;
+        this.rateArchive = rateArchive;
+        this.currencyRegistry = currencyRegistry;
+        this.rateIndex = rateIndex;
+        this.datasetVersion = datasetVersion;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Fetch the latest daily rates from all rate providers and store the merged result unconditionally
+     */
+    public Mono<IngestionResult> ingestLatest() {
+        return ingest(rateAggregation.fetchLatest(), response -> { });
+    }
+
+    /**
+     * Conditional variant used for polling ECB. Completes with {@link IngestionResult.Status#UNCHANGED}
+     * when ECB reports the daily file as unchanged; nothing is parsed, written or evicted then.
+     */
+    public Mono<IngestionResult> refresh() {
+        return ingest(pollEcb(), bundesbankClient::markIngested);
+    }
+
+    private Mono<BundesbankResponse> pollEcb() {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return bundesbankClient.getExchangeRatesIfChanged()
+                    .doOnNext(response -> metrics.recordFetch("ECB",
+                            response.isSuccessful() ? "success" : "failure", System.nanoTime() - startNanos))
+                    .switchIfEmpty(Mono.fromRunnable(() ->
+                            metrics.recordFetch("ECB", "not_modified", System.nanoTime() - startNanos)));
+        });
+    }
+
+    private Mono<IngestionResult> ingest(Mono<BundesbankResponse> fetch, Consumer<BundesbankResponse> onStored) {
+        return fetch
+                .flatMap(this::validate)
+                .flatMap(this::write)
+                .doOnNext(response -> {
+                    currencyRegistry.register(response.getCurrencyNames());
+                    List<RateRecord> records = toRecords(response);
+                    rateIndex.putAll(records);
+                    // Series are read from the archive, so it must hold the rates before the new version is served
+                    rateArchive.append(records);
+                    evictRateCaches(cacheManager, metrics);
+                    datasetVersion.bump();
+                    onStored.accept(response);
+                    logger.info("Ingested {} exchange rates for {}", response.getCurrencyCount(), response.getDate());
+                })
+                .flatMap(response -> Mono.fromRunnable(snapshotService::save)
+                        .subscribeOn(ingestionScheduler)
+                        .thenReturn(IngestionResult.stored(response.getDate(), response.getCurrencyCount())))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.info("Exchange rates unchanged, skipping ingestion");
+                    return IngestionResult.unchanged();
+                }))
+                .onErrorResume(error -> {
+                    logger.error("Exchange rate ingestion failed", error);
+                    return Mono.just(IngestionResult.failed(error.getMessage()));
+                })
+                .doOnNext(metrics::recordRun);
+    }
+
+    private Mono<BundesbankResponse> validate(BundesbankResponse response) {
+        if (!response.isSuccessful()) {
+            return Mono.error(new IllegalStateException("Cannot store exchange rates: " + response.getErrorMessage()));
+        }
+        if (response.getDate() == null || !response.hasData()) {
+            return Mono.error(new IllegalStateException("Cannot store exchange rates: no data available"));
+        }
+
+        Map<String, BigDecimal> valid = new HashMap<>();
+        int dropped = 0;
+        for (Map.Entry<String, BigDecimal> entry : response.getRates().entrySet()) {
+            BigDecimal rate = entry.getValue();
+            if (rate != null && rate.signum() > 0) {
+                valid.put(entry.getKey(), rate);
+            } else {
+                logger.warn("Dropping invalid rate {} for {}", rate, entry.getKey());
+                dropped++;
+            }
+        }
+        metrics.recordRowsRejected("validate", dropped);
+        if (valid.isEmpty()) {
+            return Mono.error(new IllegalStateException("Cannot store exchange rates: no valid rates for " + response.getDate()));
+        }
+        response.setRates(valid);
+        return Mono.just(response);
+    }
+
+    private Mono<BundesbankResponse> write(BundesbankResponse response) {
+        return Mono.fromCallable(() -> {
+                    long startNanos = System.nanoTime();
+                    Long inserted = transactionTemplate.execute(status -> store(response));
+                    long insertedRows = inserted != null ? inserted : 0;
+                    metrics.recordWrite(WRITE_SOURCE, System.nanoTime() - startNanos,
+                            insertedRows, response.getCurrencyCount() - insertedRows);
+                    return response;
+                })
+                .subscribeOn(ingestionScheduler);
+    }
+
+    /**
+     * @return number of rates that did not exist before
+     */
+    private long store(BundesbankResponse response) {
+        Map<String, String> names = new HashMap<>();
+        for (String code : response.getRates().keySet()) {
+            names.put(code, response.getCurrencyName(code).orElse(code));
+        }
+        List<RateRecord> records = toRecords(response);
+
+        int currencies = exchangeRateWriter.upsertCurrencies(names);
+        int inserted = exchangeRateWriter.upsertRates(records);
+        logger.debug("Batch upserted {} currencies and {} exchange rates ({} new) for {}",
+                currencies, records.size(), inserted, response.getDate());
+        return inserted;
+    }
+
+    private static List<RateRecord> toRecords(BundesbankResponse response) {
+        List<RateRecord> records = new ArrayList<>(response.getRates().size());
+        for (Map.Entry<String, BigDecimal> entry : response.getRates().entrySet()) {
+            records.add(new RateRecord(response.getDate(), entry.getKey(), entry.getValue()));
+        }
+        return records;
+    }
+
+    /**
+     * Clear every cache derived from stored rates; shared with the backfill, which writes the same rates
+     */
+    static void evictRateCaches(CacheManager cacheManager, IngestionMetrics metrics) {
+        for (String name : RATE_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+                metrics.recordCacheEviction(name);
+            }
+        }
+    }
+}
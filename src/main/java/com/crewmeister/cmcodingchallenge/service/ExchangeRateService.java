@@ -1,71 +1,309 @@
 package com.crewmeister.cmcodingchallenge.service;
 
-import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
 import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
-import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
 import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
-import com.crewmeister.cmcodingchallenge.entity.Currency;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.dto.RateStatistics;
 import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
 import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
-import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
 import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 public class ExchangeRateService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+    private static final String MISSING_RATES = "missingRates";
+    private static final String EXCHANGE_RATES = "exchangeRates";
+    private static final Pageable LATEST = PageRequest.of(0, 1);
 
     private final ExchangeRateRepository exchangeRateRepository;
-    private final CurrencyService currencyService;
-    private final CurrencyRepository currencyRepository;
-    private final BundesbankApiClient bundesbankClient;
-
-    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository, CurrencyService currencyService, CurrencyRepository currencyRepository, BundesbankApiClient bundesbankClient) {
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final CurrencyRegistry currencyRegistry;
+    private final RateIndex rateIndex;
+    private final CrossRateMatrix crossRateMatrix;
+    private final RateArchive rateArchive;
+    private final Cache missingRates;
+    private final Cache exchangeRates;
+
+    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository, ExchangeRateJdbcReader exchangeRateReader,
+                               CurrencyRegistry currencyRegistry, RateIndex rateIndex, CrossRateMatrix crossRateMatrix,
+                               RateArchive rateArchive, CacheManager cacheManager) {
         this.exchangeRateRepository = exchangeRateRepository;
-        this.currencyService = currencyService;
-        this.currencyRepository = currencyRepository;
-        this.bundesbankClient = bundesbankClient;
+        this.exchangeRateReader = exchangeRateReader;
+        this.currencyRegistry = currencyRegistry;
+        this.rateIndex = rateIndex;
+        this.crossRateMatrix = crossRateMatrix;
+        this.rateArchive = rateArchive;
+        Cache cache = cacheManager.getCache(MISSING_RATES);
+        this.missingRates = cache != null ? cache : new NoOpCache(MISSING_RATES);
+        cache = cacheManager.getCache(EXCHANGE_RATES);
+        this.exchangeRates = cache != null ? cache : new NoOpCache(EXCHANGE_RATES);
+    }
+
+    /**
+     * One page of rates, newest date first, then by currency code. Filters are pushed down into SQL;
+     * malformed currency codes match nothing.
+     *
+     * @param currencyCodes currencies to include, all if empty
+     * @param from          first date to include, or null
+     * @param to            last date to include, or null
+     * @param after         cursor returned with the previous page, or null for the first page
+     */
+    public RatePage getExchangeRates(Collection<String> currencyCodes, LocalDate from, LocalDate to,
+                                     RatePageCursor after, int limit) {
+        Collection<String> codes = normalizeCodes(currencyCodes);
+        if (codes == null) {
+            return new RatePage(List.of(), null);
+        }
+
+        // One extra row tells whether another page follows without a COUNT query
+        return toPage(exchangeRateReader.findPage(codes, from, to, after, limit + 1), limit);
+    }
+
+    /**
+     * Currency filter of a page query: canonical codes without duplicates, empty for all currencies, or
+     * null when every code given is malformed and the page can only be empty
+     */
+    Collection<String> normalizeCodes(Collection<String> currencyCodes) {
+        Collection<String> codes = new LinkedHashSet<>();
+        for (String currencyCode : currencyCodes) {
+            if (CurrencyRegistry.isCurrencyCode(currencyCode)) {
+                codes.add(normalizeCode(currencyCode.trim()));
+            }
+        }
+        return codes.isEmpty() && !currencyCodes.isEmpty() ? null : codes;
+    }
+
+    /**
+     * Page of up to {@code limit} rates from a query for {@code limit + 1}; the extra row only signals the cursor
+     */
+    static RatePage toPage(List<ExchangeRateDto> rates, int limit) {
+        if (rates.size() <= limit) {
+            return new RatePage(rates, null);
+        }
+        rates = rates.subList(0, limit);
+        ExchangeRateDto last = rates.get(limit - 1);
+        return new RatePage(rates, new RatePageCursor(last.getDate(), last.getCurrencyCode()));
     }
 
-    @Cacheable("allRates")
-    public List<ExchangeRateDto> getAllExchangeRates() {
-        logger.info("Getting all exchange rates");
-        List<ExchangeRate> rates = exchangeRateRepository.findAllWithCurrency();
-        return rates.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Every rate of one currency between {@code from} and {@code to} (inclusive, either may be null) in one
+     * range scan of the rate archive, or one range query while the archive is incomplete, instead of a lookup
+     * per day. An empty range of a known currency is an empty series.
+     */
+    public RateSeries getExchangeRateSeries(String currencyCode, LocalDate from, LocalDate to) {
+        logger.info("Getting exchange rate series for currency: {} from: {} to: {}", currencyCode, from, to);
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            logger.debug("Rejecting malformed currency code: {}", currencyCode);
+            throw new ExchangeRateNotFoundException(currencyCode);
+        }
+
+        String code = normalizeCode(currencyCode);
+        Map<LocalDate, BigDecimal> rates;
+        if (from != null && to != null && from.isAfter(to)) {
+            rates = Collections.emptyMap();
+        } else if (rateArchive.isComplete()) {
+            Map<LocalDate, BigDecimal> archived = new LinkedHashMap<>();
+            rateArchive.forEachRate(code, from != null ? from.toEpochDay() : Long.MIN_VALUE,
+                    to != null ? to.toEpochDay() : Long.MAX_VALUE,
+                    (day, unscaled) -> archived.put(LocalDate.ofEpochDay(day), BigDecimal.valueOf(unscaled, RateIndex.SCALE)));
+            rates = archived;
+        } else {
+            rates = exchangeRateReader.findSeries(code, from, to);
+        }
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(code);
+        String name = ordinal >= 0 && currencies.isStored(ordinal)
+                ? currencies.name(ordinal) : exchangeRateReader.findCurrencyName(code);
+        if (name == null && rates.isEmpty()) {
+            throw new ExchangeRateNotFoundException(currencyCode);
+        }
+        return new RateSeries(code, name, from, to, rates);
+    }
+
+    /**
+     * Min, max, mean, sample standard deviation and first/last rate of one currency between {@code from}
+     * and {@code to} (inclusive, either may be null). Answered from the rate index's window aggregates;
+     * only a window the index has nothing for is read from the store.
+     */
+    public RateStatistics getExchangeRateStatistics(String currencyCode, LocalDate from, LocalDate to) {
+        logger.info("Getting exchange rate statistics for currency: {} from: {} to: {}", currencyCode, from, to);
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            logger.debug("Rejecting malformed currency code: {}", currencyCode);
+            throw new ExchangeRateNotFoundException(currencyCode);
+        }
+
+        String code = normalizeCode(currencyCode);
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(code);
+        RateWindowStats stats = rateIndex.window(ordinal,
+                from != null ? from.toEpochDay() : Long.MIN_VALUE, to != null ? to.toEpochDay() : Long.MAX_VALUE);
+        String name = ordinal >= 0 ? currencies.name(ordinal) : null;
+        if (stats.isEmpty()) {
+            logger.debug("No indexed rates for {} from {} to {}, reading the store", code, from, to);
+            RateSeries series = getExchangeRateSeries(code, from, to);
+            stats = scan(series);
+            name = series.getCurrencyName();
+        }
+        return new RateStatistics(code, name, from, to, stats.getCount(), stats.getFirstDate(), stats.getFirst(),
+                stats.getLastDate(), stats.getLast(), stats.getMin(), stats.getMax(), stats.getMean(), stats.getStddev());
     }
 
     @Cacheable(value = "exchangeRates", key = "#currencyCode + '_' + #date")
     public ExchangeRateDto getExchangeRate(String currencyCode, LocalDate date) {
         logger.info("Getting exchange rate for currency: {} on date: {}", currencyCode, date);
-        Optional<ExchangeRate> rate = exchangeRateRepository.findByCurrencyCodeAndRateDate(currencyCode.toUpperCase(), date);
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            logger.debug("Rejecting malformed currency code: {}", currencyCode);
+            throw new ExchangeRateNotFoundException(currencyCode, date);
+        }
+
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(currencyCode);
+        long unscaled = rateIndex.findUnscaled(ordinal, date.toEpochDay());
+        if (unscaled == 0 && ordinal >= 0) {
+            unscaled = rateArchive.findUnscaled(currencyCode, date.toEpochDay());
+        }
+        if (unscaled != 0) {
+            return new ExchangeRateDto(currencies.code(ordinal), currencies.name(ordinal), date,
+                    BigDecimal.valueOf(unscaled, RateIndex.SCALE));
+        }
+
+        // Gaps are remembered until the next ingest, so scans over weekends and holidays skip the database
+        String code = normalizeCode(currencyCode);
+        if (isKnownMissing(code, date)) {
+            throw new ExchangeRateNotFoundException(currencyCode, date);
+        }
+
+        Optional<ExchangeRate> rate = exchangeRateRepository.findByCurrencyCodeAndRateDate(code, date);
         if (rate.isPresent()) {
             logger.debug("Found exchange rate: {} for {}", rate.get().getRate(), currencyCode);
             return toDto(rate.get());
         }
 
-        logger.warn("Exchange rate not found for currency: {} on date: {}", currencyCode, date);
+        logger.debug("Exchange rate not found for currency: {} on date: {}", currencyCode, date);
+        rememberMissing(code, date);
         throw new ExchangeRateNotFoundException(currencyCode, date);
     }
 
+    /**
+     * Whether the store was found to have no rate for the normalized {@code code} on {@code date} since the last ingest
+     */
+    boolean isKnownMissing(String code, LocalDate date) {
+        return missingRates.get(code + '_' + date) != null;
+    }
+
+    void rememberMissing(String code, LocalDate date) {
+        missingRates.put(code + '_' + date, Boolean.TRUE);
+    }
+
+    /**
+     * Entry of the exchangeRates cache that {@link #getExchangeRate} ({@code onOrBefore} false) or
+     * {@link #getExchangeRateOnOrBefore} would answer from, for callers that cannot go through the proxy
+     */
+    ExchangeRateDto cachedRate(String currencyCode, LocalDate date, boolean onOrBefore) {
+        return exchangeRates.get(rateKey(currencyCode, date, onOrBefore), ExchangeRateDto.class);
+    }
+
+    void cacheRate(String currencyCode, LocalDate date, boolean onOrBefore, ExchangeRateDto rate) {
+        exchangeRates.put(rateKey(currencyCode, date, onOrBefore), rate);
+    }
+
+    /**
+     * Same keys as the {@code @Cacheable} declarations of the two lookups
+     */
+    private static String rateKey(String currencyCode, LocalDate date, boolean onOrBefore) {
+        return currencyCode + '_' + date + (onOrBefore ? "_previous" : "");
+    }
+
+    /**
+     * Latest rate published on or before {@code date}, for weekends and TARGET holidays. The DTO keeps the
+     * requested date and carries the rate's own date as its effective date.
+     */
+    @Cacheable(value = "exchangeRates", key = "#currencyCode + '_' + #date + '_previous'")
+    public ExchangeRateDto getExchangeRateOnOrBefore(String currencyCode, LocalDate date) {
+        logger.info("Getting latest exchange rate for currency: {} on or before: {}", currencyCode, date);
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            logger.debug("Rejecting malformed currency code: {}", currencyCode);
+            throw new ExchangeRateNotFoundException(currencyCode, date);
+        }
+
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(currencyCode);
+        long day = rateIndex.floorDay(ordinal, date.toEpochDay());
+        long unscaled = day != Long.MIN_VALUE ? rateIndex.findUnscaled(ordinal, day) : 0;
+        if (unscaled == 0 && ordinal >= 0) {
+            day = rateArchive.floorDay(currencyCode, date.toEpochDay());
+            unscaled = day != Long.MIN_VALUE ? rateArchive.findUnscaled(currencyCode, day) : 0;
+        }
+        if (unscaled != 0) {
+            return new ExchangeRateDto(currencies.code(ordinal), currencies.name(ordinal), date,
+                    BigDecimal.valueOf(unscaled, RateIndex.SCALE), LocalDate.ofEpochDay(day));
+        }
+
+        List<ExchangeRate> rates = exchangeRateRepository.findLatestOnOrBefore(normalizeCode(currencyCode), date, LATEST);
+        if (rates.isEmpty()) {
+            logger.debug("No exchange rate for currency: {} on or before: {}", currencyCode, date);
+            throw new ExchangeRateNotFoundException(currencyCode, date);
+        }
+        ExchangeRate rate = rates.get(0);
+        return new ExchangeRateDto(rate.getCurrency().getCode(), rate.getCurrency().getName(), date,
+                rate.getRate(), rate.getRateDate());
+    }
+
     public CurrencyConversionRates convertCurrency(BigDecimal amount, String fromCurrency, LocalDate date) {
+        return convert(amount, fromCurrency, date, false);
+    }
+
+    /**
+     * Like {@link #convertCurrency} but converts at the latest rate on or before {@code date}
+     */
+    public CurrencyConversionRates convertCurrencyOnOrBefore(BigDecimal amount, String fromCurrency, LocalDate date) {
+        return convert(amount, fromCurrency, date, true);
+    }
+
+    /**
+     * Convert between any two currencies (EUR included) at the day's cross rate, triangulated through EUR
+     */
+    public CurrencyConversionRates convertCurrency(BigDecimal amount, String fromCurrency, String toCurrency,
+                                                   LocalDate date) {
+        logger.info("Converting {} {} to {} on date: {}", amount, fromCurrency, toCurrency, date);
+        BigDecimal crossRate = crossRateMatrix.crossRate(fromCurrency, toCurrency, date);
+        return new CurrencyConversionRates(
+                amount,
+                fromCurrency.toUpperCase(),
+                amount.multiply(crossRate).setScale(6, RoundingMode.HALF_UP),
+                toCurrency.toUpperCase(),
+                crossRateMatrix.crossRate("EUR", fromCurrency, date),
+                date,
+                null,
+                crossRate
+        );
+    }
+
+    private CurrencyConversionRates convert(BigDecimal amount, String fromCurrency, LocalDate date, boolean onOrBefore) {
         logger.info("Converting {} {} to EUR on date: {}", amount, fromCurrency, date);
 
         if ("EUR".equalsIgnoreCase(fromCurrency)) {
@@ -76,23 +314,54 @@ public class ExchangeRateService {
                     amount,
                     "EUR",
                     BigDecimal.ONE,
-                    date
+                    date,
+                    onOrBefore ? date : null
             );
         }
 
-        ExchangeRateDto exchangeRate = getExchangeRate(fromCurrency, date);
+        ExchangeRateDto exchangeRate = onOrBefore
+                ? getExchangeRateOnOrBefore(fromCurrency, date)
+                : getExchangeRate(fromCurrency, date);
+        return convertAt(amount, exchangeRate, date);
+    }
+
+    /**
+     * Convert to EUR at a rate the caller already resolved, e.g. once for many amounts
+     */
+    public CurrencyConversionRates convertAt(BigDecimal amount, ExchangeRateDto exchangeRate, LocalDate date) {
         BigDecimal convertedAmount = amount.divide(exchangeRate.getRate(), 6, RoundingMode.HALF_UP);
 
         return new CurrencyConversionRates(
                 amount,
-                fromCurrency.toUpperCase(),
+                exchangeRate.getCurrencyCode().toUpperCase(),
                 convertedAmount,
                 "EUR",
                 exchangeRate.getRate(),
-                date
+                date,
+                exchangeRate.getEffectiveDate()
         );
     }
 
+    /**
+     * Registry hit: interned upper-case code, no allocation. Codes the registry has not seen yet are
+     * still looked up, since rows may have been written outside the ingestion paths.
+     */
+    String normalizeCode(String currencyCode) {
+        String canonical = currencyRegistry.canonicalCode(currencyCode);
+        return canonical != null ? canonical : currencyCode.toUpperCase();
+    }
+
+    private static RateWindowStats scan(RateSeries series) {
+        long[] days = new long[series.getRates().size()];
+        long[] rates = new long[days.length];
+        int i = 0;
+        for (Map.Entry<LocalDate, BigDecimal> rate : series.getRates().entrySet()) {
+            days[i] = rate.getKey().toEpochDay();
+            rates[i++] = rate.getValue().setScale(RateIndex.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        return RateWindowStats.scan(days, rates);
+    }
+
     private ExchangeRateDto toDto(ExchangeRate exchangeRate) {
         return new ExchangeRateDto(
                 exchangeRate.getCurrency().getCode(),
@@ -101,103 +370,4 @@ public class ExchangeRateService {
                 exchangeRate.getRate()
         );
     }
-
-    @Transactional
-    @CacheEvict(value = {"allRates", "exchangeRates"}, allEntries = true)
-    public void fetchAndStoreExchangeRates() {
-        logger.info("Starting to fetch exchange rates from external API");
-        bundesbankClient.getExchangeRates()
-                .subscribe(response -> {
-                    if (response.getDate() != null && !response.getRates().isEmpty()) {
-                        storeExchangeRatesAndCurrencies(response);
-                    } else {
-                        logger.warn("Received empty or invalid response from API");
-                    }
-                }, error -> logger.error("Failed to fetch exchange rates", error));
-    }
-
-    private void storeExchangeRatesAndCurrencies(BundesbankResponse response) {
-        if (!response.isSuccessful()) {
-            logger.error("Cannot store exchange rates: {}", response.getErrorMessage());
-            return;
-        }
-
-        if (!response.hasData()) {
-            logger.warn("Cannot store exchange rates: no data available");
-            return;
-        }
-
-        logger.info("Starting batch storage");
-
-        try {
-            batchStoreCurrencies(response);
-
-            batchStoreExchangeRates(response);
-
-            logger.info("Successfully completed batch storage for {} currencies on {}",
-                    response.getCurrencyCount(), response.getDate());
-
-        } catch (Exception e) {
-            logger.error("Batch storage failed for {}", response.getDate(), e);
-            throw new RuntimeException("Failed to store exchange rates", e);
-        }
-    }
-
-    private void batchStoreCurrencies(BundesbankResponse response) {
-        List<Currency> currenciesToSave = new ArrayList<>();
-
-        for (Map.Entry<String, String> entry : response.getCurrencyNames().entrySet()) {
-            String code = entry.getKey();
-            String name = entry.getValue();
-
-            Optional<Currency> existing = currencyService.findByCode(code);
-            if (existing.isPresent()) {
-                Currency currency = existing.get();
-                currency.setName(name);
-                currenciesToSave.add(currency);
-            } else {
-                currenciesToSave.add(new Currency(code, name));
-            }
-        }
-
-        if (!currenciesToSave.isEmpty()) {
-            currencyRepository.saveAll(currenciesToSave);
-            logger.debug("Batch saved {} currencies", currenciesToSave.size());
-        }
-    }
-
-    private void batchStoreExchangeRates(BundesbankResponse response) {
-        LocalDate date = response.getDate();
-        List<ExchangeRate> ratesToSave = new ArrayList<>();
-
-        Map<String, ExchangeRate> existingRates = exchangeRateRepository
-                .findByRateDate(date)
-                .stream()
-                .collect(Collectors.toMap(
-                        rate -> rate.getCurrency().getCode(),
-                        Function.identity()
-                ));
-
-        for (Map.Entry<String, BigDecimal> entry : response.getRates().entrySet()) {
-            String currencyCode = entry.getKey();
-            BigDecimal rate = entry.getValue();
-
-            Currency currency = currencyService.findByCode(currencyCode)
-                    .orElseThrow(() -> new RuntimeException("Currency not found: " + currencyCode));
-
-            ExchangeRate exchangeRate = existingRates.get(currencyCode);
-            if (exchangeRate != null) {
-                exchangeRate.setRate(rate);
-            } else {
-                exchangeRate = new ExchangeRate(currency, date, rate);
-            }
-
-            ratesToSave.add(exchangeRate);
-        }
-
-        if (!ratesToSave.isEmpty()) {
-            exchangeRateRepository.saveAll(ratesToSave);
-            logger.debug("Batch saved {} exchange rates for {}", ratesToSave.size(), date);
-        }
-    }
 }
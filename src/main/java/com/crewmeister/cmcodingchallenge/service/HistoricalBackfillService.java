@@ -0,0 +1,221 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
+import com.crewmeister.cmcodingchallenge.client.EcbXmlParser;
+import com.crewmeister.cmcodingchallenge.dto.BackfillReport;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.entity.Currency;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the ECB full-history feed. The document is parsed as a stream and written in
+ * bounded chunks, each in its own transaction, so memory stays flat regardless of file size.
+ */
+@Service
+public class HistoricalBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalBackfillService.class);
+    private static final String WRITE_SOURCE = "backfill";
+
+    private final BundesbankApiClient bundesbankClient;
+    private final EcbXmlParser xmlParser;
+    private final CurrencyRepository currencyRepository;
+    private final ExchangeRateJdbcWriter exchangeRateWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final RateSnapshotService snapshotService;
+    private final RateArchive rateArchive;
+    private final CurrencyRegistry currencyRegistry;
+    private final RateIndex rateIndex;
+    private final CacheManager cacheManager;
+    private final DatasetVersion datasetVersion;
+    private final IngestionMetrics metrics;
+
+    @Value("${ecb.backfill.chunk-size:5000}")
+    private int chunkSize;
+
+    public HistoricalBackfillService(BundesbankApiClient bundesbankClient, EcbXmlParser xmlParser, CurrencyRepository currencyRepository, ExchangeRateJdbcWriter exchangeRateWriter, PlatformTransactionManager transactionManager, RateSnapshotService snapshotService, RateArchive rateArchive, CurrencyRegistry currencyRegistry, RateIndex rateIndex, CacheManager cacheManager, DatasetVersion datasetVersion, IngestionMetrics metrics) {
+        this.bundesbankClient = bundesbankClient;
+        this.xmlParser = xmlParser;
+        this.currencyRepository = currencyRepository;
+        this.exchangeRateWriter = exchangeRateWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotService = snapshotService;
+        this.rateArchive = rateArchive;
+        this.currencyRegistry = currencyRegistry;
+        this.rateIndex = rateIndex;
+        this.cacheManager = cacheManager;
+        this.datasetVersion = datasetVersion;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Backfill from an http(s) URL or a path to a local copy of eurofxref-hist.xml
+     */
+    public BackfillReport backfill(String source) {
+        try (InputStream input = bundesbankClient.openHistoricalRates(source)) {
+            return doBackfill(input);
+        } catch (IOException e) {
+            logger.error("Failed to read historical rates from {}", source, e);
+            throw new RuntimeException("Failed to read historical rates from " + source, e);
+        }
+    }
+
+    public BackfillReport backfill(InputStream input) {
+        try {
+            return doBackfill(input);
+        } catch (IOException e) {
+            logger.error("Failed to read historical rates", e);
+            throw new RuntimeException("Failed to read historical rates", e);
+        }
+    }
+
+    /**
+     * @throws IOException if the source failed mid-document, as opposed to the document being malformed
+     */
+    private BackfillReport doBackfill(InputStream input) throws IOException {
+        logger.info("Starting historical backfill with chunk size {}", chunkSize);
+        long startNanos = System.nanoTime();
+
+        Set<String> knownCurrencies = currencyRepository.findAll()
+                .stream()
+                .map(Currency::getCode)
+                .collect(Collectors.toCollection(HashSet::new));
+        ChunkedWriter writer = new ChunkedWriter(knownCurrencies, startNanos);
+
+        // Backfilled days land before the archive's last day, which an append cannot express, so series are
+        // read from the store until the archive is rebuilt after the last chunk
+        rateArchive.invalidate();
+        try {
+            xmlParser.streamRates(input, writer);
+            writer.flush();
+        } catch (XMLStreamException e) {
+            IOException readFailure = readFailure(e);
+            if (readFailure != null) {
+                logger.error("Historical backfill aborted after {} rows, the source failed", writer.rows);
+                throw readFailure;
+            }
+            logger.error("Historical backfill aborted after {} rows", writer.rows, e);
+            throw new RuntimeException("Failed to parse historical rates", e);
+        } finally {
+            // Also after a failure: the chunks committed before it are served from here on
+            rateArchive.rebuildQuietly();
+            ExchangeRateIngestionService.evictRateCaches(cacheManager, metrics);
+            datasetVersion.bump();
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        BackfillReport report = new BackfillReport(writer.rows, writer.days, writer.chunks, elapsedMillis);
+        logger.info("Historical backfill completed: {} rows over {} days in {} chunks, {} ms ({} rows/sec)",
+                report.getRows(), report.getDays(), report.getChunks(), report.getElapsedMillis(),
+                String.format("%.0f", report.getRowsPerSecond()));
+
+        snapshotService.save();
+        return report;
+    }
+
+    /**
+     * The parser wraps an exception thrown by the stream it reads; find it to report the real cause
+     */
+    private static IOException readFailure(XMLStreamException e) {
+        Throwable cause = e.getNestedException() != null ? e.getNestedException() : e.getCause();
+        while (cause != null && !(cause instanceof IOException)) {
+            cause = cause instanceof XMLStreamException && ((XMLStreamException) cause).getNestedException() != null
+                    ? ((XMLStreamException) cause).getNestedException() : cause.getCause();
+        }
+        return (IOException) cause;
+    }
+
+    /**
+     * @return number of rates that did not exist before
+     */
+    private long writeChunk(List<RateRecord> records, Set<String> knownCurrencies) {
+        Map<String, String> newCurrencies = new HashMap<>();
+        for (RateRecord record : records) {
+            if (!knownCurrencies.contains(record.getCurrencyCode())) {
+                newCurrencies.putIfAbsent(record.getCurrencyCode(), xmlParser.getCurrencyName(record.getCurrencyCode()));
+            }
+        }
+
+        if (!newCurrencies.isEmpty()) {
+            exchangeRateWriter.upsertCurrencies(newCurrencies);
+            currencyRegistry.register(newCurrencies);
+            knownCurrencies.addAll(newCurrencies.keySet());
+            logger.debug("Backfill created {} currencies", newCurrencies.size());
+        }
+
+        return exchangeRateWriter.upsertRates(records);
+    }
+
+    /**
+     * Buffers streamed records and commits them one chunk per transaction
+     */
+    private class ChunkedWriter implements Consumer<RateRecord> {
+
+        private final Set<String> knownCurrencies;
+        private final long startNanos;
+        private final List<RateRecord> buffer;
+        private LocalDate lastDate;
+        private long rows;
+        private long days;
+        private long chunks;
+
+        ChunkedWriter(Set<String> knownCurrencies, long startNanos) {
+            this.knownCurrencies = knownCurrencies;
+            this.startNanos = startNanos;
+            this.buffer = new ArrayList<>(chunkSize);
+        }
+
+        @Override
+        public void accept(RateRecord record) {
+            if (!record.getDate().equals(lastDate)) {
+                lastDate = record.getDate();
+                days++;
+            }
+            buffer.add(record);
+            if (buffer.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            long writeStartNanos = System.nanoTime();
+            Long inserted = transactionTemplate.execute(status -> writeChunk(buffer, knownCurrencies));
+            long insertedRows = inserted != null ? inserted : 0;
+            metrics.recordWrite(WRITE_SOURCE, System.nanoTime() - writeStartNanos, insertedRows, buffer.size() - insertedRows);
+            rateIndex.putAll(buffer);
+            datasetVersion.bump();
+            rows += buffer.size();
+            chunks++;
+            buffer.clear();
+
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            logger.debug("Backfill chunk {} committed: {} rows so far ({} rows/sec)",
+                    chunks, rows, rows * 1000 / elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.client.RateProvider;
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches every {@link RateProvider} concurrently, each bounded by its own timeout, and merges the
+ * answers: the most recent date wins, and for that date each currency is taken from the provider
+ * with the highest priority. Total latency is that of the slowest provider, not the sum.
+ */
+@Service
+public class RateAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateAggregationService.class);
+
+    private final List<RateProvider> providers;
+    private final IngestionMetrics metrics;
+
+    public RateAggregationService(List<RateProvider> providers) {
+        this(providers, IngestionMetrics.detached());
+    }
+
+    @Autowired
+    public RateAggregationService(List<RateProvider> providers, IngestionMetrics metrics) {
+        this.metrics = metrics;
+        this.providers = new ArrayList<>(providers);
+        this.providers.sort(Comparator.comparingInt(RateProvider::getPriority));
+        logger.info("Rate providers by priority: {}", this.providers.stream().map(RateProvider::getName).toArray());
+    }
+
+    public Mono<BundesbankResponse> fetchLatest() {
+        return Flux.fromIterable(providers)
+                .flatMap(this::fetch)
+                .collectList()
+                .map(this::merge);
+    }
+
+    private Mono<ProviderResponse> fetch(RateProvider provider) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return provider.fetchLatest()
+                    .timeout(provider.getTimeout())
+                    .doOnNext(response -> metrics.recordFetch(provider.getName(),
+                            response.hasData() ? "success" : "failure", System.nanoTime() - startNanos))
+                    .map(response -> new ProviderResponse(provider, response))
+                    .onErrorResume(error -> {
+                        metrics.recordFetch(provider.getName(),
+                                error instanceof TimeoutException ? "timeout" : "failure", System.nanoTime() - startNanos);
+                        logger.warn("Rate provider {} failed: {}", provider.getName(), error.toString());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private BundesbankResponse merge(List<ProviderResponse> responses) {
+        LocalDate latest = null;
+        for (ProviderResponse answer : responses) {
+            BundesbankResponse response = answer.response;
+            if (!response.hasData() || response.getDate() == null) {
+                logger.warn("Rate provider {} returned no data: {}", answer.provider.getName(), response.getErrorMessage());
+            } else if (latest == null || response.getDate().isAfter(latest)) {
+                latest = response.getDate();
+            }
+        }
+        if (latest == null) {
+            return BundesbankResponse.failure("No rate provider returned data");
+        }
+
+        responses.sort(Comparator.comparingInt(answer -> answer.provider.getPriority()));
+        BundesbankResponse merged = BundesbankResponse.success(latest, null);
+        Set<String> contributors = new LinkedHashSet<>();
+        for (ProviderResponse answer : responses) {
+            BundesbankResponse response = answer.response;
+            if (!response.hasData() || !latest.equals(response.getDate())) {
+                continue;
+            }
+            for (Map.Entry<String, BigDecimal> rate : response.getRates().entrySet()) {
+                String code = rate.getKey();
+                if (!merged.getRates().containsKey(code)) {
+                    merged.addCurrency(code, response.getCurrencyName(code).orElse(code), rate.getValue());
+                    merged.getRateSources().put(code, answer.provider.getName());
+                    contributors.add(answer.provider.getName());
+                }
+            }
+        }
+        merged.setDataSource(String.join(",", contributors));
+        logger.info("Merged {} rates for {} from {}", merged.getCurrencyCount(), latest, merged.getDataSource());
+        return merged;
+    }
+
+    private static final class ProviderResponse {
+
+        final RateProvider provider;
+        final BundesbankResponse response;
+
+        ProviderResponse(RateProvider provider, BundesbankResponse response) {
+            this.provider = provider;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only archive of published rates in a memory-mapped file, so historical lookups and range scans
+ * are served from the page cache and startup only maps the file instead of loading it. Layout, big-endian:
+ * <pre>
+ *   header   1024 bytes: magic, version, record size, currency count, the store checksum the records
+ *            match, then one 3-letter code per archive ordinal in 4-byte slots
+ *   records  16 bytes each: int epoch day, int ordinal, long rate unscaled at {@link RateIndex#SCALE}
+ * </pre>
+ * Records are sorted by their leading (epoch day, ordinal) long, which daily ingestion keeps by appending the
+ * newest day. A lookup searches that long in the mapping and allocates nothing. Writes that would break
+ * the order, such as a historical backfill or a corrected rate, rebuild the file from the store and swap it
+ * in atomically. Like the {@link RateIndex}, the archive is updated after each ingest commits and a miss
+ * is not authoritative. Startup trusts the file only if its checksum is the store's current one, so a crash
+ * between a commit and the archive write is caught as well as a foreign or torn file.
+ */
+@Component
+public class RateArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateArchive.class);
+
+    private static final int MAGIC = 0x45434241; // "ECBA"
+    private static final int VERSION = 2;
+    static final int RECORD_BYTES = 16;
+    static final int MAX_CURRENCIES = 250;
+    static final int HEADER_BYTES = 24 + 4 * MAX_CURRENCIES;
+    /**
+     * Header checksum of an archive that may be behind the store, which no store checksum matches in practice
+     */
+    private static final long NO_CHECKSUM = Long.MIN_VALUE;
+
+    /**
+     * How far back {@link #floorDay} looks, beyond the longest TARGET closure; older rates are left to the store
+     */
+    private static final int FLOOR_LOOKBACK_DAYS = 14;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final int GALLOP_RECORDS = 32;
+
+    /**
+     * Receives the rates of a range scan; nothing is boxed
+     */
+    @FunctionalInterface
+    public interface RateVisitor {
+        void accept(long epochDay, long unscaled);
+    }
+
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final boolean enabled;
+    private final String archivePath;
+
+    private FileChannel channel;
+    private volatile View view = View.EMPTY;
+
+    public RateArchive(ExchangeRateJdbcReader exchangeRateReader,
+                       @Value("${ecb.archive.enabled:true}") boolean enabled,
+                       @Value("${ecb.archive.path:}") String archivePath) {
+        this.exchangeRateReader = exchangeRateReader;
+        this.enabled = enabled;
+        this.archivePath = archivePath;
+    }
+
+    /**
+     * @return the rate times 10^{@link RateIndex#SCALE}, or 0 if it is not archived
+     */
+    public long findUnscaled(CharSequence currencyCode, long epochDay) {
+        View current = view;
+        int ordinal = current.ordinal(currencyCode);
+        if (ordinal < 0) {
+            return 0;
+        }
+        long key = key(epochDay, ordinal);
+        int i = current.lowerBound(key);
+        return i < current.size && current.keyAt(i) == key ? current.rateAt(i) : 0;
+    }
+
+    /**
+     * @return the latest archived day on or before {@code epochDay}, or {@link Long#MIN_VALUE} if there is
+     * none within {@value #FLOOR_LOOKBACK_DAYS} days
+     */
+    public long floorDay(CharSequence currencyCode, long epochDay) {
+        View current = view;
+        int ordinal = current.ordinal(currencyCode);
+        if (ordinal < 0) {
+            return Long.MIN_VALUE;
+        }
+        for (int i = current.lowerBound(key(epochDay, ordinal) + 1) - 1;
+             i >= 0 && current.dayAt(i) >= epochDay - FLOOR_LOOKBACK_DAYS; i--) {
+            if (current.ordinalAt(i) == ordinal) {
+                return current.dayAt(i);
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Visit the archived rates of one currency between {@code fromDay} and {@code toDay} inclusive, oldest first
+     *
+     * @return number of rates visited
+     */
+    public int forEachRate(CharSequence currencyCode, long fromDay, long toDay, RateVisitor visitor) {
+        View current = view;
+        int ordinal = current.ordinal(currencyCode);
+        if (ordinal < 0) {
+            return 0;
+        }
+        int visited = 0;
+        for (int i = current.lowerBound(key(Math.max(fromDay, Integer.MIN_VALUE), 0));
+             i < current.size && current.dayAt(i) <= toDay; i++) {
+            if (current.ordinalAt(i) == ordinal) {
+                visitor.accept(current.dayAt(i), current.rateAt(i));
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Whether the archive holds every stored rate, so a range scan that finds nothing means there is nothing
+     */
+    public boolean isComplete() {
+        return view.complete;
+    }
+
+    /**
+     * Stop answering range scans as complete until the next {@link #rebuild()}, for writes that land before the
+     * archive's last day across several commits
+     */
+    public synchronized void invalidate() {
+        View current = view;
+        if (channel == null || !current.complete) {
+            return;
+        }
+        try {
+            // Also on disk, so a restart before the rebuild does not trust the archive either
+            channel.write(header(Arrays.asList(current.codes), NO_CHECKSUM), 0);
+            channel.force(false);
+            view = new View(current.buffer, current.size, current.codes, NO_CHECKSUM, false);
+        } catch (IOException e) {
+            logger.warn("Failed to invalidate rate archive {}, lookups fall back to the store", archivePath, e);
+            close();
+        }
+    }
+
+    public int size() {
+        return view.size;
+    }
+
+    /**
+     * Map the archive, rebuilding it from the store first if it is missing or does not match
+     *
+     * @return whether the archive is mapped and complete
+     */
+    public synchronized boolean open() {
+        if (!enabled || !StringUtils.hasText(archivePath)) {
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        Path target = Paths.get(archivePath);
+        try {
+            long checksum = exchangeRateReader.checksumRates();
+            View mapped = Files.exists(target) ? map(target, true) : null;
+            if (mapped == null || mapped.checksum != checksum) {
+                logger.info("Rate archive {} does not match the store, rebuilding", target);
+                rebuild();
+            } else {
+                channel = FileChannel.open(target, StandardOpenOption.WRITE);
+                view = mapped;
+            }
+            logger.info("Mapped {} archived rates ({} KB) from {} in {} ms", view.size,
+                    (HEADER_BYTES + (long) RECORD_BYTES * view.size) / 1024, target,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+            return view.complete;
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Rate archive {} unavailable, lookups fall back to the store", target, e);
+            close();
+            return false;
+        }
+    }
+
+    /**
+     * Archive rates once they are committed. Rates already archived with the same value are skipped;
+     * anything else that is not newer than the archive rebuilds it from the store.
+     */
+    public synchronized void append(Collection<RateRecord> records) {
+        if (channel == null || records.isEmpty()) {
+            return;
+        }
+
+        View current = view;
+        List<String> codes = new ArrayList<>(Arrays.asList(current.codes));
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            ordinals.put(codes.get(i), i);
+        }
+        List<long[]> entries = new ArrayList<>(records.size());
+        for (RateRecord record : records) {
+            long unscaled = unscaled(record.getRate());
+            if (unscaled <= 0) {
+                continue;
+            }
+            Integer ordinal = ordinals.get(record.getCurrencyCode());
+            if (ordinal == null) {
+                if (codes.size() == MAX_CURRENCIES) {
+                    logger.warn("Rate archive is full at {} currencies, not archiving {}",
+                            MAX_CURRENCIES, record.getCurrencyCode());
+                    continue;
+                }
+                ordinal = codes.size();
+                codes.add(record.getCurrencyCode());
+                ordinals.put(record.getCurrencyCode(), ordinal);
+            }
+            entries.add(new long[]{key(record.getDate().toEpochDay(), ordinal), unscaled});
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry[0]));
+
+        long lastKey = current.size > 0 ? current.keyAt(current.size - 1) : Long.MIN_VALUE;
+        ByteBuffer output = ByteBuffer.allocate(RECORD_BYTES * entries.size());
+        int appended = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            long[] entry = entries.get(i);
+            if (i + 1 < entries.size() && entries.get(i + 1)[0] == entry[0]) {
+                continue;  // the last of duplicate records wins, as in the store
+            }
+            if (entry[0] > lastKey) {
+                putRecord(output, entry[0], entry[1]);
+                appended++;
+            } else if (findUnscaled(current, entry[0]) != entry[1]) {
+                logger.info("Rate archive received a rate for {} older than its last day, rebuilding",
+                        LocalDate.ofEpochDay(entry[0] >> 32));
+                rebuildQuietly();
+                return;
+            }
+        }
+        if (appended == 0 && codes.size() == current.codes.length) {
+            return;
+        }
+
+        Path target = Paths.get(archivePath);
+        try {
+            // Appends follow the commit of the rates they carry, so the store's checksum now covers them
+            long checksum = current.complete ? exchangeRateReader.checksumRates() : NO_CHECKSUM;
+            channel.write(header(codes, checksum), 0);
+            output.flip();
+            long position = HEADER_BYTES + (long) RECORD_BYTES * current.size;
+            while (output.hasRemaining()) {
+                position += channel.write(output, position);
+            }
+            channel.force(false);
+            view = map(target, current.complete);
+            logger.debug("Appended {} rates to the rate archive", appended);
+        } catch (IOException | UncheckedIOException | DataAccessException e) {
+            logger.warn("Failed to append to rate archive {}, lookups fall back to the store", target, e);
+            close();
+        }
+    }
+
+    /**
+     * Rewrite the archive from the store in one streaming pass and swap it in atomically
+     */
+    public synchronized void rebuild() throws IOException {
+        if (!enabled || !StringUtils.hasText(archivePath)) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        Path target = Paths.get(archivePath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        // Taken before the rates are read, so rates committed meanwhile make the file look stale, never current
+        long checksum = exchangeRateReader.checksumRates();
+        long rows;
+        try (FileChannel output = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(output);
+            exchangeRateReader.forEachRate(writer::put);
+            rows = writer.finish(checksum);
+            output.force(false);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(target, StandardOpenOption.WRITE);
+        view = map(target, true);
+        logger.info("Rebuilt rate archive {} with {} rates in {} ms",
+                target, rows, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * {@link #rebuild()} for write paths that must not fail once the store has committed
+     */
+    public synchronized void rebuildQuietly() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to rebuild rate archive {}, lookups fall back to the store", archivePath, e);
+            close();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        view = View.EMPTY;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close rate archive", e);
+            }
+            channel = null;
+        }
+    }
+
+    private long findUnscaled(View current, long key) {
+        int i = current.lowerBound(key);
+        return i < current.size && current.keyAt(i) == key ? current.rateAt(i) : 0;
+    }
+
+    private static long key(long epochDay, int ordinal) {
+        return epochDay << 32 | ordinal;
+    }
+
+    private static void putRecord(ByteBuffer output, long key, long unscaled) {
+        output.putLong(key).putLong(unscaled);
+    }
+
+    private static long unscaled(BigDecimal rate) {
+        try {
+            return rate.setScale(RateIndex.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            logger.warn("Not archiving out-of-range rate {}", rate);
+            return 0;
+        }
+    }
+
+    private static ByteBuffer header(List<String> codes, long checksum) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(codes.size()).putLong(checksum);
+        for (String code : codes) {
+            header.put(code.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+        }
+        header.clear();
+        return header;
+    }
+
+    /**
+     * @return the mapped archive, or null if the file is not one
+     */
+    private static View map(Path path, boolean complete) throws IOException {
+        try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bytes = input.size();
+            if (bytes < HEADER_BYTES) {
+                return null;
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = input.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_BYTES) {
+                logger.warn("{} is not a rate archive of version {}", path, VERSION);
+                return null;
+            }
+            String[] codes = new String[Math.min(buffer.getInt(12), MAX_CURRENCIES)];
+            byte[] code = new byte[3];
+            for (int i = 0; i < codes.length; i++) {
+                for (int j = 0; j < code.length; j++) {
+                    code[j] = buffer.get(24 + 4 * i + j);
+                }
+                codes[i] = new String(code, StandardCharsets.US_ASCII);
+            }
+            // A torn append leaves a partial last record, which is ignored
+            int size = (int) Math.min(Integer.MAX_VALUE, (bytes - HEADER_BYTES) / RECORD_BYTES);
+            long checksum = buffer.getLong(16);
+            return new View(buffer, size, codes, checksum, complete && checksum != NO_CHECKSUM);
+        }
+    }
+
+    /**
+     * Immutable mapping of the archive as of one write
+     */
+    private static final class View {
+
+        static final View EMPTY = new View(null, 0, new String[0], NO_CHECKSUM, false);
+
+        private final ByteBuffer buffer;
+        final int size;
+        final String[] codes;
+        /**
+         * Archive ordinal + 1 per {@link CurrencyRegistry#slot}, 0 meaning absent
+         */
+        private final short[] ordinals;
+        final long checksum;
+        final boolean complete;
+        private final long firstKey;
+        private final long lastKey;
+
+        View(ByteBuffer buffer, int size, String[] codes, long checksum, boolean complete) {
+            this.buffer = buffer;
+            this.size = size;
+            this.codes = codes;
+            this.ordinals = new short[26 * 26 * 26];
+            for (int i = 0; i < codes.length; i++) {
+                int slot = CurrencyRegistry.slot(codes[i]);
+                if (slot >= 0) {
+                    ordinals[slot] = (short) (i + 1);
+                }
+            }
+            this.checksum = checksum;
+            this.complete = complete;
+            this.firstKey = size > 0 ? keyAt(0) : 0;
+            this.lastKey = size > 0 ? keyAt(size - 1) : 0;
+        }
+
+        int ordinal(CharSequence code) {
+            int slot = CurrencyRegistry.slot(code);
+            return slot < 0 ? -1 : ordinals[slot] - 1;
+        }
+
+        long keyAt(int i) {
+            return buffer.getLong(HEADER_BYTES + RECORD_BYTES * i);
+        }
+
+        int dayAt(int i) {
+            return buffer.getInt(HEADER_BYTES + RECORD_BYTES * i);
+        }
+
+        int ordinalAt(int i) {
+            return buffer.getInt(HEADER_BYTES + RECORD_BYTES * i + 4);
+        }
+
+        long rateAt(int i) {
+            return buffer.getLong(HEADER_BYTES + RECORD_BYTES * i + 8);
+        }
+
+        /**
+         * First record whose key is at least {@code key}. Working days hold about the same number of rates,
+         * so the search starts where the day falls between the first and last day and gallops outward from
+         * there, which keeps it within a few pages of the mapping instead of touching one per halving.
+         */
+        int lowerBound(long key) {
+            if (size == 0 || key <= firstKey) {
+                return 0;
+            }
+            if (key > lastKey) {
+                return size;
+            }
+            long firstDay = firstKey >> 32;
+            int guess = (int) ((double) ((key >> 32) - firstDay) / ((lastKey >> 32) - firstDay + 1) * size);
+            int low;
+            int high;
+            int step = GALLOP_RECORDS;
+            if (keyAt(guess) < key) {
+                low = guess + 1;
+                high = low + step;
+                while (high < size && keyAt(high) < key) {
+                    low = high + 1;
+                    step <<= 1;
+                    high = low + step;
+                }
+                high = Math.min(high, size);
+            } else {
+                high = guess;
+                low = high - step;
+                while (low > 0 && keyAt(low) >= key) {
+                    high = low;
+                    step <<= 1;
+                    low = high - step;
+                }
+                low = Math.max(low, 0);
+            }
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keyAt(mid) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Streams rates ordered by day into the archive layout, sorting each day by archive ordinal
+     */
+    private static final class Writer {
+
+        private final FileChannel output;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        private final List<String> codes = new ArrayList<>();
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<long[]> day = new ArrayList<>();
+        private long position = HEADER_BYTES;
+        private long rows;
+
+        Writer(FileChannel output) {
+            this.output = output;
+        }
+
+        void put(RateRecord record) {
+            long unscaled = unscaled(record.getRate());
+            if (unscaled <= 0) {
+                return;
+            }
+            Integer ordinal = ordinals.get(record.getCurrencyCode());
+            if (ordinal == null) {
+                if (codes.size() == MAX_CURRENCIES) {
+                    logger.warn("Rate archive is full at {} currencies, not archiving {}",
+                            MAX_CURRENCIES, record.getCurrencyCode());
+                    return;
+                }
+                ordinal = codes.size();
+                codes.add(record.getCurrencyCode());
+                ordinals.put(record.getCurrencyCode(), ordinal);
+            }
+            long key = key(record.getDate().toEpochDay(), ordinal);
+            if (!day.isEmpty() && key >> 32 != day.get(0)[0] >> 32) {
+                flushDay();
+            }
+            day.add(new long[]{key, unscaled});
+        }
+
+        long finish(long checksum) {
+            flushDay();
+            write();
+            try {
+                output.write(header(codes, checksum), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        }
+
+        private void flushDay() {
+            day.sort(Comparator.comparingLong(entry -> entry[0]));
+            for (long[] entry : day) {
+                if (buffer.remaining() < RECORD_BYTES) {
+                    write();
+                }
+                putRecord(buffer, entry[0], entry[1]);
+                rows++;
+            }
+            day.clear();
+        }
+
+        private void write() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    position += output.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+/**
+ * Window aggregates for one {@link RateIndex} column, over the positions of its filled days: prefix sums
+ * answer count, mean and variance in O(1), and a bottom-up segment tree answers min and max in O(log n).
+ * Built once per column when an ingest publishes it, and immutable afterwards like the column itself.
+ */
+final class RateColumnStats {
+
+    private final long[] column;
+    private final int[] filledDays;
+    /**
+     * Rates are summed as deviations from the column's first rate; see {@link RateWindowStats#squaredDeviations}
+     */
+    private final long shift;
+    private final long[] prefixSums;
+    private final double[] prefixSquares;
+    /**
+     * Inner nodes 1..n-1 of the trees; node n + i is the rate at filled position i
+     */
+    private final long[] minTree;
+    private final long[] maxTree;
+
+    RateColumnStats(long[] column, int[] filledDays) {
+        int n = filledDays.length;
+        this.column = column;
+        this.filledDays = filledDays;
+        this.shift = n == 0 ? 0 : column[filledDays[0]];
+        this.prefixSums = new long[n + 1];
+        this.prefixSquares = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            long rate = rate(i);
+            double deviation = rate - shift;
+            prefixSums[i + 1] = prefixSums[i] + rate;
+            prefixSquares[i + 1] = prefixSquares[i] + deviation * deviation;
+        }
+        this.minTree = new long[Math.max(n, 1)];
+        this.maxTree = new long[Math.max(n, 1)];
+        for (int node = n - 1; node > 0; node--) {
+            minTree[node] = Math.min(min(2 * node), min(2 * node + 1));
+            maxTree[node] = Math.max(max(2 * node), max(2 * node + 1));
+        }
+    }
+
+    /**
+     * Aggregates of the filled days with offsets in [fromOffset, toOffset]
+     */
+    RateWindowStats window(long firstDay, long fromOffset, long toOffset) {
+        int from = lowerBound(fromOffset);
+        int to = lowerBound(toOffset + 1);
+        int count = to - from;
+        if (count <= 0) {
+            return RateWindowStats.EMPTY;
+        }
+
+        int n = filledDays.length;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int left = from + n, right = to + n; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                min = Math.min(min, min(left));
+                max = Math.max(max, max(left));
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                min = Math.min(min, min(right));
+                max = Math.max(max, max(right));
+            }
+        }
+
+        long sum = prefixSums[to] - prefixSums[from];
+        double squares = prefixSquares[to] - prefixSquares[from];
+        return new RateWindowStats(count, firstDay + filledDays[from], rate(from),
+                firstDay + filledDays[to - 1], rate(to - 1), min, max, sum,
+                RateWindowStats.squaredDeviations(count, sum - count * shift, squares));
+    }
+
+    long memoryBytes() {
+        return 4 * 16 + 8L * (prefixSums.length + prefixSquares.length + minTree.length + maxTree.length);
+    }
+
+    private long rate(int position) {
+        return column[filledDays[position]];
+    }
+
+    private long min(int node) {
+        return node >= filledDays.length ? rate(node - filledDays.length) : minTree[node];
+    }
+
+    private long max(int node) {
+        return node >= filledDays.length ? rate(node - filledDays.length) : maxTree[node];
+    }
+
+    /**
+     * First position whose day offset is at least {@code offset}
+     */
+    private int lowerBound(long offset) {
+        int low = 0;
+        int high = filledDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (filledDays[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,109 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk export of the whole rate table. Rows go from a forward-only JDBC cursor straight to the output
+ * stream, so memory use does not grow with the table; nothing is collected into entities or DTOs.
+ */
+@Service
+public class RateExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateExportService.class);
+    private static final String CSV_HEADER = "date,currency_code,rate\n";
+
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final JsonFactory jsonFactory;
+
+    public RateExportService(ExchangeRateJdbcReader exchangeRateReader, ObjectMapper objectMapper) {
+        this.exchangeRateReader = exchangeRateReader;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Write every stored rate, ordered by date then currency, without closing {@code output}
+     *
+     * @return number of rows written
+     */
+    public long export(RateExportFormat format, OutputStream output) throws IOException {
+        long startNanos = System.nanoTime();
+        long rows;
+        try {
+            rows = format == RateExportFormat.CSV ? writeCsv(output) : writeNdjson(output);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor has been closed by then
+            throw e.getCause();
+        }
+        logger.info("Exported {} exchange rates as {} in {} ms",
+                rows, format, (System.nanoTime() - startNanos) / 1_000_000);
+        return rows;
+    }
+
+    private long writeNdjson(OutputStream output) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long rows = forEachRate(record -> {
+            generator.writeStartObject();
+            generator.writeStringField("date", record.getDate().toString());
+            generator.writeStringField("currency_code", record.getCurrencyCode());
+            generator.writeFieldName("rate");
+            generator.writeNumber(record.getRate().toPlainString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+        return rows;
+    }
+
+    private long writeCsv(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+
+        long rows = forEachRate(record -> {
+            writer.write(record.getDate().toString());
+            writer.write(',');
+            writer.write(record.getCurrencyCode());
+            writer.write(',');
+            writer.write(record.getRate().toPlainString());
+            writer.write('\n');
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long forEachRate(RowWriter rowWriter) {
+        long[] rows = {0};
+        exchangeRateReader.forEachRate(record -> {
+            try {
+                rowWriter.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(RateRecord record) throws IOException;
+    }
+}
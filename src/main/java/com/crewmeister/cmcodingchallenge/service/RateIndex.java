@@ -0,0 +1,325 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Read-side index of every stored rate, packed into primitive arrays: one {@code long[]} column per
+ * currency ordinal of the {@link CurrencyRegistry}, indexed by day offset from a shared first day,
+ * holding the rate unscaled at the store's six decimal places (0 meaning no rate). A lookup is two
+ * array reads and no allocation besides the returned {@link BigDecimal}; the full ECB history takes
+ * about 3 MB.
+ * <p>
+ * Each column also keeps the sorted offsets of its filled days, so the latest rate on or before a
+ * date (weekends, TARGET holidays) is one binary search away, and {@link RateColumnStats} over those
+ * days, so min, max, mean and standard deviation of any window cost O(log n) instead of a scan.
+ * <p>
+ * Writers copy the columns they touch and publish a new {@link Table}, so readers never lock and
+ * never see a half-applied batch. The index is filled after each ingest commits; a miss is not
+ * authoritative and callers fall back to the database.
+ */
+@Component
+public class RateIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateIndex.class);
+
+    /**
+     * Decimal places of exchange_rates.rate
+     */
+    public static final int SCALE = 6;
+
+    private static final int MIN_HEADROOM_DAYS = 64;
+
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private volatile Table table = Table.EMPTY;
+
+    public RateIndex(CurrencyRegistry currencyRegistry, ExchangeRateJdbcReader exchangeRateReader) {
+        this.currencyRegistry = currencyRegistry;
+        this.exchangeRateReader = exchangeRateReader;
+    }
+
+    /**
+     * @return the rate for {@code currencyCode} (any case) on {@code date}, or null if it is not indexed
+     */
+    public BigDecimal find(CharSequence currencyCode, LocalDate date) {
+        long unscaled = findUnscaled(currencyRegistry.ordinal(currencyCode), date.toEpochDay());
+        return unscaled == 0 ? null : BigDecimal.valueOf(unscaled, SCALE);
+    }
+
+    /**
+     * @return the rate times 10^{@link #SCALE}, or 0 if it is not indexed
+     */
+    public long findUnscaled(int ordinal, long epochDay) {
+        return table.get(ordinal, epochDay);
+    }
+
+    /**
+     * @return the latest indexed day on or before {@code epochDay}, or {@link Long#MIN_VALUE} if none is
+     */
+    public long floorDay(int ordinal, long epochDay) {
+        return table.floorDay(ordinal, epochDay);
+    }
+
+    /**
+     * Aggregates of the indexed rates between {@code fromDay} and {@code toDay} inclusive; empty if
+     * none is indexed, which like any miss is not authoritative
+     */
+    public RateWindowStats window(int ordinal, long fromDay, long toDay) {
+        return table.window(ordinal, fromDay, toDay);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * Approximate heap held by the rate columns
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (long[] column : table.columns) {
+            bytes += column != null ? 16 + 8L * column.length : 0;
+        }
+        for (int[] days : table.filledDays) {
+            bytes += days != null ? 16 + 4L * days.length : 0;
+        }
+        for (RateColumnStats stats : table.stats) {
+            bytes += stats != null ? stats.memoryBytes() : 0;
+        }
+        return bytes;
+    }
+
+    /**
+     * Add or replace rates. Call once the rows are committed; currencies must already be registered.
+     */
+    public synchronized void putAll(Collection<RateRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Editor editor = new Editor(table);
+        records.forEach(editor::put);
+        table = editor.build();
+    }
+
+    /**
+     * Rebuild the index from the rate store in one streaming pass
+     */
+    public synchronized void reload() {
+        long startNanos = System.nanoTime();
+        Editor editor = new Editor(Table.EMPTY);
+        exchangeRateReader.forEachRate(editor::put);
+        table = editor.build();
+        logger.info("Indexed {} exchange rates over {} days ({} KB) in {} ms",
+                table.size, table.days(), memoryBytes() / 1024, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    public synchronized void clear() {
+        table = Table.EMPTY;
+    }
+
+    /**
+     * Immutable day × currency grid. Columns are never written after publication.
+     */
+    private static final class Table {
+
+        static final Table EMPTY = new Table(0, new long[0][], new int[0][], new RateColumnStats[0], 0);
+
+        final long firstDay;
+        final long[][] columns;
+        final int[][] filledDays;
+        final RateColumnStats[] stats;
+        final int size;
+
+        Table(long firstDay, long[][] columns, int[][] filledDays, RateColumnStats[] stats, int size) {
+            this.firstDay = firstDay;
+            this.columns = columns;
+            this.filledDays = filledDays;
+            this.stats = stats;
+            this.size = size;
+        }
+
+        long get(int ordinal, long epochDay) {
+            if (ordinal < 0 || ordinal >= columns.length) {
+                return 0;
+            }
+            long[] column = columns[ordinal];
+            long offset = epochDay - firstDay;
+            if (column == null || offset < 0 || offset >= column.length) {
+                return 0;
+            }
+            return column[(int) offset];
+        }
+
+        long floorDay(int ordinal, long epochDay) {
+            if (ordinal < 0 || ordinal >= filledDays.length || filledDays[ordinal] == null) {
+                return Long.MIN_VALUE;
+            }
+            int[] days = filledDays[ordinal];
+            long offset = epochDay - firstDay;
+            if (offset < 0 || days.length == 0) {
+                return Long.MIN_VALUE;
+            }
+            int index = Arrays.binarySearch(days, (int) Math.min(offset, Integer.MAX_VALUE));
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index < 0 ? Long.MIN_VALUE : firstDay + days[index];
+        }
+
+        RateWindowStats window(int ordinal, long fromDay, long toDay) {
+            if (ordinal < 0 || ordinal >= stats.length || stats[ordinal] == null || fromDay > toDay) {
+                return RateWindowStats.EMPTY;
+            }
+            // Clamped so that open bounds cannot overflow the offsets
+            long fromOffset = Math.max(fromDay, firstDay - 1) - firstDay;
+            long toOffset = Math.min(toDay, firstDay + Integer.MAX_VALUE) - firstDay;
+            return stats[ordinal].window(firstDay, fromOffset, toOffset);
+        }
+
+        int days() {
+            int days = 0;
+            for (long[] column : columns) {
+                days = Math.max(days, column != null ? column.length : 0);
+            }
+            return days;
+        }
+    }
+
+    /**
+     * Copy-on-write builder: each column is copied at most once per batch
+     */
+    private final class Editor {
+
+        private final CurrencyRegistry.Table currencies = currencyRegistry.current();
+        private long firstDay;
+        private long[][] columns;
+        private int[][] filledDays;
+        private RateColumnStats[] stats;
+        private boolean[] owned;
+        private int size;
+
+        Editor(Table base) {
+            this.firstDay = base.firstDay;
+            this.columns = base.columns.clone();
+            this.filledDays = base.filledDays.clone();
+            this.stats = base.stats.clone();
+            this.owned = new boolean[columns.length];
+            this.size = base.size;
+        }
+
+        void put(RateRecord record) {
+            int ordinal = currencies.ordinal(record.getCurrencyCode());
+            if (ordinal < 0) {
+                logger.debug("Not indexing rate for unregistered currency {}", record.getCurrencyCode());
+                return;
+            }
+            long unscaled;
+            try {
+                unscaled = record.getRate().setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                logger.warn("Not indexing out-of-range rate {} for {}", record.getRate(), record.getCurrencyCode());
+                return;
+            }
+            if (unscaled <= 0) {
+                return;
+            }
+
+            long epochDay = record.getDate().toEpochDay();
+            if (size == 0 && columns.length == 0) {
+                firstDay = epochDay - MIN_HEADROOM_DAYS;
+            } else if (epochDay < firstDay) {
+                rebase(epochDay);
+            }
+            long[] column = writableColumn(ordinal, (int) (epochDay - firstDay) + 1);
+            int offset = (int) (epochDay - firstDay);
+            if (column[offset] == 0) {
+                size++;
+            }
+            column[offset] = unscaled;
+        }
+
+        /**
+         * Re-derives the filled-day offsets and window aggregates of the columns this batch touched, in
+         * one linear pass each; untouched columns keep theirs
+         */
+        Table build() {
+            for (int i = 0; i < columns.length; i++) {
+                if (owned[i]) {
+                    filledDays[i] = filledDays(columns[i]);
+                    stats[i] = new RateColumnStats(columns[i], filledDays[i]);
+                }
+            }
+            return new Table(firstDay, columns, filledDays, stats, size);
+        }
+
+        private int[] filledDays(long[] column) {
+            int count = 0;
+            for (long unscaled : column) {
+                if (unscaled != 0) {
+                    count++;
+                }
+            }
+            int[] days = new int[count];
+            for (int offset = 0, i = 0; i < count; offset++) {
+                if (column[offset] != 0) {
+                    days[i++] = offset;
+                }
+            }
+            return days;
+        }
+
+        private long[] writableColumn(int ordinal, int minLength) {
+            if (ordinal >= columns.length) {
+                columns = Arrays.copyOf(columns, ordinal + 1);
+                filledDays = Arrays.copyOf(filledDays, ordinal + 1);
+                stats = Arrays.copyOf(stats, ordinal + 1);
+                owned = Arrays.copyOf(owned, ordinal + 1);
+            }
+            long[] column = columns[ordinal];
+            if (column == null || column.length < minLength) {
+                int length = column == null ? minLength + MIN_HEADROOM_DAYS
+                        : Math.max(minLength + MIN_HEADROOM_DAYS, column.length + column.length / 2);
+                column = column == null ? new long[length] : Arrays.copyOf(column, length);
+            } else if (!owned[ordinal]) {
+                column = column.clone();
+            } else {
+                return column;
+            }
+            columns[ordinal] = column;
+            owned[ordinal] = true;
+            return column;
+        }
+
+        /**
+         * Move the first day back far enough that a history loaded newest-first rebases only a few times
+         */
+        private void rebase(long epochDay) {
+            long headroom = Math.max(MIN_HEADROOM_DAYS, (firstDay - epochDay) * 2);
+            for (long[] column : columns) {
+                headroom = Math.max(headroom, column != null ? column.length / 2 : 0);
+            }
+            long newFirstDay = epochDay - headroom;
+            int shift = (int) (firstDay - newFirstDay);
+            for (int i = 0; i < columns.length; i++) {
+                long[] column = columns[i];
+                if (column != null) {
+                    long[] shifted = new long[column.length + shift];
+                    System.arraycopy(column, 0, shifted, shift, column.length);
+                    columns[i] = shifted;
+                    owned[i] = true;
+                }
+            }
+            firstDay = newFirstDay;
+        }
+    }
+}
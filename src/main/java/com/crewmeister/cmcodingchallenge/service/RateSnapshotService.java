@@ -0,0 +1,193 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.RateSnapshotFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Saves the rate store to a compact snapshot file after each successful ingest and restores it at
+ * startup, so rates can be served before (or without) the first network call to ECB.
+ */
+@Service
+public class RateSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotService.class);
+
+    private final ExchangeRateJdbcReader exchangeRateReader;
+    private final ExchangeRateJdbcWriter exchangeRateWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final ResourceLoader resourceLoader;
+    private final CurrencyRegistry currencyRegistry;
+    private final IngestionMetrics metrics;
+    private final AtomicBoolean saveRequested = new AtomicBoolean();
+    private final Object saveLock = new Object();
+
+    @Value("${ecb.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ecb.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${ecb.snapshot.bundled:}")
+    private String bundledSnapshot;
+
+    @Value("${ecb.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    public RateSnapshotService(ExchangeRateJdbcReader exchangeRateReader, ExchangeRateJdbcWriter exchangeRateWriter,
+                               PlatformTransactionManager transactionManager, ResourceLoader resourceLoader,
+                               CurrencyRegistry currencyRegistry, IngestionMetrics metrics) {
+        this.exchangeRateReader = exchangeRateReader;
+        this.exchangeRateWriter = exchangeRateWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resourceLoader = resourceLoader;
+        this.currencyRegistry = currencyRegistry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Load the on-disk snapshot, or the bundled one if there is none yet
+     *
+     * @return number of rates restored, 0 if no snapshot was available or readable
+     */
+    public long restore() {
+        if (!enabled) {
+            return 0;
+        }
+
+        Resource snapshot = locateSnapshot();
+        if (snapshot == null) {
+            logger.info("No rate snapshot found, starting empty");
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        try (InputStream input = snapshot.getInputStream()) {
+            Restored restored = transactionTemplate.execute(status -> load(input));
+            metrics.recordWrite("snapshot", System.nanoTime() - startNanos,
+                    restored.inserted, restored.rows - restored.inserted);
+            logger.info("Restored {} exchange rates ({} new) from snapshot {} in {} ms", restored.rows,
+                    restored.inserted, snapshot.getDescription(), (System.nanoTime() - startNanos) / 1_000_000);
+            return restored.rows;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to restore rate snapshot {}, starting empty", snapshot.getDescription(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Write the current store to the snapshot path. The file is replaced atomically, so a crash
+     * mid-write leaves the previous snapshot intact. Saves run one at a time, and callers that queue
+     * behind a running save share a single write, which starts after all of their commits.
+     */
+    public void save() {
+        if (!enabled || !StringUtils.hasText(snapshotPath)) {
+            return;
+        }
+
+        saveRequested.set(true);
+        synchronized (saveLock) {
+            if (saveRequested.getAndSet(false)) {
+                write();
+            } else {
+                logger.debug("Rate snapshot already written by a save queued alongside this one");
+            }
+        }
+    }
+
+    private void write() {
+        long startNanos = System.nanoTime();
+        Path target = Paths.get(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            long rows;
+            try (OutputStream output = Files.newOutputStream(temp);
+                 RateSnapshotFormat.Writer writer = RateSnapshotFormat.writer(output, exchangeRateReader.findCurrencyNames())) {
+                exchangeRateReader.forEachRate(writer);
+                rows = writer.getRows();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote rate snapshot with {} rates to {} in {} ms",
+                    rows, target, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to write rate snapshot to {}", target, e);
+        }
+    }
+
+    private Restored load(InputStream input) {
+        try {
+            RateSnapshotFormat.Reader reader = RateSnapshotFormat.reader(input);
+            exchangeRateWriter.upsertCurrencies(reader.getCurrencyNames());
+            currencyRegistry.register(reader.getCurrencyNames());
+
+            // A fresh store (the usual case at startup) takes plain inserts, anything else is merged
+            Function<List<RateRecord>, Integer> write = exchangeRateReader.countRates() == 0
+                    ? exchangeRateWriter::insertRates
+                    : exchangeRateWriter::upsertRates;
+            List<RateRecord> chunk = new ArrayList<>(batchSize);
+            long[] inserted = new long[1];
+            long rows = reader.readRates(record -> {
+                chunk.add(record);
+                if (chunk.size() == batchSize) {
+                    inserted[0] += write.apply(chunk);
+                    chunk.clear();
+                }
+            });
+            inserted[0] += write.apply(chunk);
+            return new Restored(rows, inserted[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Resource locateSnapshot() {
+        if (StringUtils.hasText(snapshotPath) && Files.isReadable(Paths.get(snapshotPath))) {
+            return resourceLoader.getResource("file:" + snapshotPath);
+        }
+        if (StringUtils.hasText(bundledSnapshot)) {
+            Resource bundled = resourceLoader.getResource(bundledSnapshot);
+            if (bundled.exists()) {
+                return bundled;
+            }
+        }
+        return null;
+    }
+
+    private static final class Restored {
+
+        final long rows;
+        final long inserted;
+
+        Restored(long rows, long inserted) {
+            this.rows = rows;
+            this.inserted = inserted;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Aggregates of one currency's rates over a window of days. Rates are unscaled at
+ * {@link RateIndex#SCALE} decimal places, like the index columns they are computed from.
+ */
+public final class RateWindowStats {
+
+    static final RateWindowStats EMPTY = new RateWindowStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final int count;
+    private final long firstDay;
+    private final long first;
+    private final long lastDay;
+    private final long last;
+    private final long min;
+    private final long max;
+    private final long sum;
+    /**
+     * Sum of squared deviations from the mean, in unscaled units squared
+     */
+    private final double squaredDeviations;
+
+    RateWindowStats(int count, long firstDay, long first, long lastDay, long last, long min, long max, long sum,
+                    double squaredDeviations) {
+        this.count = count;
+        this.firstDay = firstDay;
+        this.first = first;
+        this.lastDay = lastDay;
+        this.last = last;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.squaredDeviations = Math.max(0, squaredDeviations);
+    }
+
+    /**
+     * Aggregate rates read elsewhere, e.g. from the store when the index misses
+     *
+     * @param epochDays days in ascending order
+     * @param unscaled  rate of each day
+     */
+    static RateWindowStats scan(long[] epochDays, long[] unscaled) {
+        int count = epochDays.length;
+        if (count == 0) {
+            return EMPTY;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long sum = 0;
+        double squares = 0;
+        for (long rate : unscaled) {
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+            sum += rate;
+            double deviation = rate - unscaled[0];
+            squares += deviation * deviation;
+        }
+        return new RateWindowStats(count, epochDays[0], unscaled[0], epochDays[count - 1], unscaled[count - 1],
+                min, max, sum, squaredDeviations(count, sum - (long) count * unscaled[0], squares));
+    }
+
+    /**
+     * Sum of squared deviations from the mean, from sums of deviations from a shift value close to the data.
+     * The shift keeps the subtraction from cancelling away the variance of rates in the thousands.
+     */
+    static double squaredDeviations(int count, long shiftedSum, double shiftedSquares) {
+        return shiftedSquares - (double) shiftedSum * shiftedSum / count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public LocalDate getFirstDate() {
+        return count == 0 ? null : LocalDate.ofEpochDay(firstDay);
+    }
+
+    public BigDecimal getFirst() {
+        return decimal(first);
+    }
+
+    public LocalDate getLastDate() {
+        return count == 0 ? null : LocalDate.ofEpochDay(lastDay);
+    }
+
+    public BigDecimal getLast() {
+        return decimal(last);
+    }
+
+    public BigDecimal getMin() {
+        return decimal(min);
+    }
+
+    public BigDecimal getMax() {
+        return decimal(max);
+    }
+
+    public BigDecimal getMean() {
+        return count == 0 ? null
+                : BigDecimal.valueOf(sum, RateIndex.SCALE).divide(BigDecimal.valueOf(count), RateIndex.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Sample standard deviation, null below two rates
+     */
+    public BigDecimal getStddev() {
+        if (count < 2) {
+            return null;
+        }
+        return BigDecimal.valueOf(Math.sqrt(squaredDeviations / (count - 1)))
+                .movePointLeft(RateIndex.SCALE)
+                .setScale(RateIndex.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal decimal(long unscaled) {
+        return count == 0 ? null : BigDecimal.valueOf(unscaled, RateIndex.SCALE);
+    }
+}
@@ -0,0 +1,162 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
+import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateR2dbcReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of {@link ExchangeRateService} for the reactive endpoints. Lookups are answered from the
+ * {@link RateIndex} like on the servlet stack, and a miss goes to the database through R2DBC instead of
+ * JPA, so no request ever waits on a blocked thread. Page filters, paging and the rate caches are those
+ * of the servlet stack. Not-found errors are signalled, not thrown.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveExchangeRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExchangeRateService.class);
+
+    private final ExchangeRateR2dbcReader exchangeRateReader;
+    private final CurrencyRegistry currencyRegistry;
+    private final RateIndex rateIndex;
+    private final ExchangeRateService exchangeRateService;
+
+    public ReactiveExchangeRateService(ExchangeRateR2dbcReader exchangeRateReader, CurrencyRegistry currencyRegistry,
+                                       RateIndex rateIndex, ExchangeRateService exchangeRateService) {
+        this.exchangeRateReader = exchangeRateReader;
+        this.currencyRegistry = currencyRegistry;
+        this.rateIndex = rateIndex;
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    public Flux<CurrencyDto> getCurrencies() {
+        return exchangeRateReader.findCurrencies();
+    }
+
+    /**
+     * One page of rates, as {@link ExchangeRateService#getExchangeRates}
+     */
+    public Mono<RatePage> getExchangeRates(Collection<String> currencyCodes, LocalDate from, LocalDate to,
+                                           RatePageCursor after, int limit) {
+        Collection<String> codes = exchangeRateService.normalizeCodes(currencyCodes);
+        if (codes == null) {
+            return Mono.just(new RatePage(List.of(), null));
+        }
+
+        return exchangeRateReader.findPage(codes, from, to, after, limit + 1)
+                .collectList()
+                .map(rates -> ExchangeRateService.toPage(rates, limit));
+    }
+
+    public Mono<ExchangeRateDto> getExchangeRate(String currencyCode, LocalDate date) {
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            return Mono.error(new ExchangeRateNotFoundException(currencyCode, date));
+        }
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(currencyCode);
+        long unscaled = rateIndex.findUnscaled(ordinal, date.toEpochDay());
+        if (unscaled != 0) {
+            return Mono.just(new ExchangeRateDto(currencies.code(ordinal), currencies.name(ordinal), date,
+                    BigDecimal.valueOf(unscaled, RateIndex.SCALE)));
+        }
+        ExchangeRateDto cached = exchangeRateService.cachedRate(currencyCode, date, false);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        // Shares the servlet stack's caches: known gaps skip the database, found rates are kept
+        String code = exchangeRateService.normalizeCode(currencyCode);
+        if (exchangeRateService.isKnownMissing(code, date)) {
+            return Mono.error(new ExchangeRateNotFoundException(currencyCode, date));
+        }
+        logger.debug("Rate for {} on {} not indexed, reading the store", currencyCode, date);
+        return exchangeRateReader.findRate(code, date)
+                .doOnNext(rate -> exchangeRateService.cacheRate(currencyCode, date, false, rate))
+                .switchIfEmpty(Mono.error(() -> {
+                    exchangeRateService.rememberMissing(code, date);
+                    return new ExchangeRateNotFoundException(currencyCode, date);
+                }));
+    }
+
+    /**
+     * Latest rate on or before {@code date}, as {@link ExchangeRateService#getExchangeRateOnOrBefore}
+     */
+    public Mono<ExchangeRateDto> getExchangeRateOnOrBefore(String currencyCode, LocalDate date) {
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            return Mono.error(new ExchangeRateNotFoundException(currencyCode, date));
+        }
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(currencyCode);
+        long day = rateIndex.floorDay(ordinal, date.toEpochDay());
+        long unscaled = day != Long.MIN_VALUE ? rateIndex.findUnscaled(ordinal, day) : 0;
+        if (unscaled != 0) {
+            return Mono.just(new ExchangeRateDto(currencies.code(ordinal), currencies.name(ordinal), date,
+                    BigDecimal.valueOf(unscaled, RateIndex.SCALE), LocalDate.ofEpochDay(day)));
+        }
+        ExchangeRateDto cached = exchangeRateService.cachedRate(currencyCode, date, true);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return exchangeRateReader.findLatestOnOrBefore(exchangeRateService.normalizeCode(currencyCode), date)
+                .doOnNext(rate -> exchangeRateService.cacheRate(currencyCode, date, true, rate))
+                .switchIfEmpty(Mono.error(() -> new ExchangeRateNotFoundException(currencyCode, date)));
+    }
+
+    /**
+     * Rate series of one currency, as {@link ExchangeRateService#getExchangeRateSeries}
+     */
+    public Mono<RateSeries> getExchangeRateSeries(String currencyCode, LocalDate from, LocalDate to) {
+        if (!CurrencyRegistry.isCurrencyCode(currencyCode)) {
+            return Mono.error(new ExchangeRateNotFoundException(currencyCode));
+        }
+        String code = exchangeRateService.normalizeCode(currencyCode);
+        CurrencyRegistry.Table currencies = currencyRegistry.current();
+        int ordinal = currencies.ordinal(code);
+        String registeredName = ordinal >= 0 && currencies.isStored(ordinal) ? currencies.name(ordinal) : null;
+        Mono<String> name = registeredName != null
+                ? Mono.just(registeredName)
+                : exchangeRateReader.findCurrencyName(code);
+        return Mono.zip(exchangeRateReader.findSeries(code, from, to), name.defaultIfEmpty(""))
+                .flatMap(found -> {
+                    Map<LocalDate, BigDecimal> rates = found.getT1();
+                    String currencyName = found.getT2().isEmpty() ? null : found.getT2();
+                    if (currencyName == null && rates.isEmpty()) {
+                        return Mono.error(new ExchangeRateNotFoundException(currencyCode));
+                    }
+                    return Mono.just(new RateSeries(code, currencyName, from, to, rates));
+                });
+    }
+
+    /**
+     * Convert to EUR at the rate of {@code date}, or of the latest earlier day when {@code onOrBefore}
+     */
+    public Mono<CurrencyConversionRates> convertCurrency(BigDecimal amount, String fromCurrency, LocalDate date,
+                                                         boolean onOrBefore) {
+        if ("EUR".equalsIgnoreCase(fromCurrency)) {
+            return Mono.just(onOrBefore
+                    ? exchangeRateService.convertCurrencyOnOrBefore(amount, fromCurrency, date)
+                    : exchangeRateService.convertCurrency(amount, fromCurrency, date));
+        }
+        Mono<ExchangeRateDto> rate = onOrBefore
+                ? getExchangeRateOnOrBefore(fromCurrency, date)
+                : getExchangeRate(fromCurrency, date);
+        return rate.map(exchangeRate -> exchangeRateService.convertAt(amount, exchangeRate, date));
+    }
+}
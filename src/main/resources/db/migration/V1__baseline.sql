@@ -0,0 +1,23 @@
+-- Schema of the entities as of the first durable release. Plain SQL that H2 and PostgreSQL both accept.
+
+CREATE TABLE currencies (
+    code VARCHAR(3)   NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_currencies PRIMARY KEY (code)
+);
+
+-- Each value reserves 50 ids, handed out by Hibernate's pooled-lo optimizer and the JDBC writer alike
+CREATE SEQUENCE exchange_rates_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE exchange_rates (
+    id            BIGINT         NOT NULL,
+    currency_code VARCHAR(3)     NOT NULL,
+    rate_date     DATE           NOT NULL,
+    rate          DECIMAL(19, 6) NOT NULL,
+    CONSTRAINT pk_exchange_rates PRIMARY KEY (id),
+    CONSTRAINT uk_currency_date UNIQUE (currency_code, rate_date),
+    CONSTRAINT fk_exchange_rates_currency FOREIGN KEY (currency_code) REFERENCES currencies (code)
+);
+
+CREATE INDEX idx_rate_date_currency ON exchange_rates (rate_date, currency_code);
+CREATE INDEX idx_currency_date_rate ON exchange_rates (currency_code, rate_date, rate);
@@ -0,0 +1,5 @@
+-- Keyset pages run newest first (rate_date DESC, currency_code ASC); declare the index in that order
+-- so each page is one forward range scan with no reverse or sort step.
+
+DROP INDEX idx_rate_date_currency;
+CREATE INDEX idx_rate_date_currency ON exchange_rates (rate_date DESC, currency_code);
@@ -0,0 +1,7 @@
+-- uk_currency_date becomes a unique index that also carries the rate, so a currency's series is one range scan
+-- that never visits the table, and idx_currency_date_rate, which repeated the same key with the rate appended,
+-- is dropped: one index to maintain per written rate instead of two.
+
+DROP INDEX idx_currency_date_rate;
+ALTER TABLE exchange_rates DROP CONSTRAINT uk_currency_date;
+CREATE UNIQUE INDEX uk_currency_date ON exchange_rates (currency_code, rate_date) INCLUDE (rate);
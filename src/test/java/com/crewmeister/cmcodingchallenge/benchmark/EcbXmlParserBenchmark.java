@@ -0,0 +1,87 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.crewmeister.cmcodingchallenge.client.EcbXmlParser;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.crewmeister.cmcodingchallenge.support.Microbench;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the StAX parser against the previous String + Jackson tree path
+ * (contains() scans, trim() and a full XmlMapper tree) on daily, 90-day and full-history inputs.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class EcbXmlParserBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EcbXmlParserBenchmark.class);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+
+    private final EcbXmlParser parser = new EcbXmlParser();
+    private final XmlMapper xmlMapper = new XmlMapper();
+
+    @BeforeAll
+    static void quietParserLogging() {
+        // Without a Spring context logback defaults to DEBUG, which would measure console output
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(EcbXmlParser.class)).setLevel(Level.INFO);
+    }
+
+    @Test
+    void daily() throws Exception {
+        compare("daily", 1, 2_000, 20_000);
+    }
+
+    @Test
+    void ninetyDays() throws Exception {
+        compare("90-day", 90, 200, 1_000);
+    }
+
+    @Test
+    void fullHistory() throws Exception {
+        compare("full-history", 6_600, 3, 10);
+    }
+
+    private void compare(String name, int days, int warmup, int iterations) throws Exception {
+        String xml = EcbXmlFixtures.history(LAST_DAY, days, EcbXmlFixtures.ECB_CURRENCIES);
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        long expectedRows = (long) days * EcbXmlFixtures.ECB_CURRENCIES.length;
+
+        assertEquals(expectedRows, parser.streamRates(new ByteArrayInputStream(bytes), (date, code, rate) -> { }));
+
+        double staxMillis = Microbench.averageMillis(warmup, iterations,
+                () -> parser.streamRates(new ByteArrayInputStream(bytes), (date, code, rate) -> { }));
+        double legacyMillis = Microbench.averageMillis(warmup, iterations, () -> legacyTreeParse(bytes));
+
+        logger.info("{} ({} rows, {} KB): stax {} ms/op ({} rows/sec), jackson tree {} ms/op, speedup x{}",
+                name, expectedRows, bytes.length / 1024,
+                String.format("%.3f", staxMillis),
+                String.format("%.0f", expectedRows * 1000 / staxMillis),
+                String.format("%.3f", legacyMillis),
+                String.format("%.1f", legacyMillis / staxMillis));
+    }
+
+    /**
+     * Mirrors the work of the former fetch + parseEcbXml: decoding the body to a String,
+     * three contains() scans, a trimmed copy and a fully materialized Jackson tree
+     */
+    private JsonNode legacyTreeParse(byte[] body) throws Exception {
+        String xml = new String(body, StandardCharsets.UTF_8);
+        String trimmed = xml.trim();
+        if (!trimmed.contains("Envelope") || !trimmed.contains("Cube") || !trimmed.contains("currency=")) {
+            throw new IllegalStateException("Invalid ECB XML format");
+        }
+        return xmlMapper.readTree(xml);
+    }
+}
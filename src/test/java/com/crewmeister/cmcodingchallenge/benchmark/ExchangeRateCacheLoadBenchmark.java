@@ -0,0 +1,123 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Random-date load against the cached single-rate lookup: the bounded Caffeine cache keeps heap flat
+ * while the former unbounded ConcurrentMapCache keeps growing with every new key.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "ecb.cache.exchange-rates=maximumSize=10000,expireAfterWrite=24h,recordStats",
+        "logging.level.com.crewmeister.cmcodingchallenge.service=WARN"
+})
+@ActiveProfiles("test")
+class ExchangeRateCacheLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateCacheLoadBenchmark.class);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int DAYS = 9_000;
+    private static final int ROUNDS = 5;
+    private static final int LOOKUPS_PER_ROUND = 200_000;
+    private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private RateIndex rateIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void tearDown() {
+        rateIndex.clear();
+        cacheManager.getCache("exchangeRates").clear();
+    }
+
+    @Test
+    void randomDateAccess() {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        List<RateRecord> history = new ArrayList<>(DAYS * codes.length);
+        for (int day = 0; day < DAYS; day++) {
+            for (String code : codes) {
+                history.add(new RateRecord(LAST_DAY.minusDays(day), code, new BigDecimal("1.234567")));
+            }
+        }
+        rateIndex.putAll(history);
+        history = null;
+
+        Cache<Object, Object> cache = ((CaffeineCache) cacheManager.getCache("exchangeRates")).getNativeCache();
+        long[] bounded = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < LOOKUPS_PER_ROUND; i++) {
+                exchangeRateService.getExchangeRate(randomCode(codes), randomDay());
+            }
+            cache.cleanUp();
+            bounded[round] = usedHeap();
+            logger.info("caffeine round {}: {} entries, {} evictions, hit ratio {}, heap {} MB",
+                    round, cache.estimatedSize(), cache.stats().evictionCount(),
+                    String.format("%.3f", cache.stats().hitRate()), bounded[round] / (1024 * 1024));
+        }
+
+        ConcurrentMapCache unboundedCache = new ConcurrentMapCache("unbounded");
+        long[] unbounded = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < LOOKUPS_PER_ROUND; i++) {
+                String code = randomCode(codes);
+                LocalDate date = randomDay();
+                unboundedCache.get(code + "_" + date, () -> exchangeRateService.getExchangeRate(code, date));
+            }
+            unbounded[round] = usedHeap();
+            logger.info("concurrent map round {}: {} entries, heap {} MB",
+                    round, unboundedCache.getNativeCache().size(), unbounded[round] / (1024 * 1024));
+        }
+
+        long boundedGrowth = bounded[ROUNDS - 1] - bounded[0];
+        logger.info("Heap growth after the first round: caffeine {} MB, concurrent map {} MB",
+                boundedGrowth / (1024 * 1024), (unbounded[ROUNDS - 1] - unbounded[0]) / (1024 * 1024));
+        assertTrue(cache.estimatedSize() <= 10_000, "cache size " + cache.estimatedSize());
+        assertTrue(boundedGrowth < MAX_HEAP_GROWTH_BYTES, "bounded cache heap grew by " + boundedGrowth);
+    }
+
+    private static String randomCode(String[] codes) {
+        return codes[ThreadLocalRandom.current().nextInt(codes.length)];
+    }
+
+    private static LocalDate randomDay() {
+        return LAST_DAY.minusDays(ThreadLocalRandom.current().nextInt(DAYS));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,145 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.entity.Currency;
+import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the set-based JDBC upsert for 10k/100k/1M rows, with the former
+ * per-row JPA path (lookup + saveAll) as a 10k baseline. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.org.springframework.jdbc=WARN",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@ActiveProfiles("test")
+class ExchangeRateIngestionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateIngestionBenchmark.class);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int CHUNK_ROWS = 30_000;
+
+    private static boolean warmedUp;
+
+    @Autowired
+    private ExchangeRateJdbcWriter writer;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateRepository.deleteAllInBatch();
+        currencyRepository.deleteAllInBatch();
+        writer.upsertCurrencies(Arrays.stream(EcbXmlFixtures.ECB_CURRENCIES)
+                .collect(Collectors.toMap(Function.identity(), code -> code + " Currency")));
+
+        if (!warmedUp) {
+            writer.upsertRates(records(0, CHUNK_ROWS));
+            exchangeRateRepository.deleteAllInBatch();
+            warmedUp = true;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAllInBatch();
+        currencyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void jdbcUpsert10k() {
+        measureJdbc(10_000);
+    }
+
+    @Test
+    void jdbcUpsert100k() {
+        measureJdbc(100_000);
+    }
+
+    @Test
+    void jdbcUpsert1m() {
+        measureJdbc(1_000_000);
+    }
+
+    @Test
+    void jpaPerRow10k() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<RateRecord> records = records(0, 10_000);
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ExchangeRate> rates = new ArrayList<>(records.size());
+            for (RateRecord record : records) {
+                Currency currency = currencyRepository.findById(record.getCurrencyCode()).orElseThrow();
+                rates.add(new ExchangeRate(currency, record.getDate(), record.getRate()));
+            }
+            exchangeRateRepository.saveAll(rates);
+        });
+        report("jpa per-row", records.size(), System.nanoTime() - start);
+    }
+
+    private void measureJdbc(int rows) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long elapsed = 0;
+
+        for (int offset = 0; offset < rows; offset += CHUNK_ROWS) {
+            List<RateRecord> chunk = records(offset, Math.min(CHUNK_ROWS, rows - offset));
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> writer.upsertRates(chunk));
+            elapsed += System.nanoTime() - start;
+        }
+
+        assertEquals(rows, exchangeRateRepository.count());
+        report("jdbc upsert", rows, elapsed);
+    }
+
+    private List<RateRecord> records(int offset, int count) {
+        String[] currencies = EcbXmlFixtures.ECB_CURRENCIES;
+        List<RateRecord> records = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            records.add(new RateRecord(LAST_DAY.minusDays(i / currencies.length), currencies[i % currencies.length],
+                    BigDecimal.valueOf(10_000 + i % 5_000, 4)));
+        }
+        return records;
+    }
+
+    private void report(String name, int rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        logger.warn("{} {} rows: {} s ({} rows/sec)", name, rows,
+                String.format("%.2f", seconds), String.format("%.0f", rows / seconds));
+    }
+}
@@ -0,0 +1,129 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.CmCodingChallengeApplication;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.service.RateSnapshotService;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Startup-to-first-served-rate with 25 years of rates for every ECB currency: a restart of the
+ * {@code persistent} profile, which finds the rates on disk, against the in-memory default, which has
+ * to restore them from a snapshot first. Each start is timed twice and the faster one reported.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PersistentStoreStartupBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentStoreStartupBenchmark.class);
+
+    private static final LocalDate FROM = LocalDate.of(2000, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+    private static final int ROUNDS = 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restartWithTwentyFiveYears() throws IOException {
+        Path snapshot = tempDir.resolve("rates.snapshot");
+        long rows;
+        // The persistent profile writes no snapshot of its own; this one seeds the in-memory starts
+        try (ConfigurableApplicationContext context = start("persistent", snapshot, "--ecb.snapshot.enabled=true")) {
+            rows = seed(context.getBean(ExchangeRateJdbcWriter.class));
+            context.getBean(RateSnapshotService.class).save();
+        }
+
+        long persistentMillis = Long.MAX_VALUE;
+        long inMemoryMillis = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            inMemoryMillis = Math.min(inMemoryMillis, timeToFirstRate("default", snapshot));
+            persistentMillis = Math.min(persistentMillis, timeToFirstRate("persistent", snapshot));
+        }
+
+        logger.info("{} rates, {}..{}", rows, FROM, TO);
+        logger.info("startup to first served rate: persistent restart {} ms, in-memory snapshot restore {} ms",
+                persistentMillis, inMemoryMillis);
+        assertTrue(persistentMillis < inMemoryMillis, persistentMillis + " ms vs " + inMemoryMillis + " ms");
+    }
+
+    private long timeToFirstRate(String profile, Path snapshot) throws IOException {
+        long startNanos = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(profile, snapshot)) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://localhost:" + port + "/api/exchange-rates/USD/" + TO).openConnection();
+            String body;
+            try (InputStream input = connection.getInputStream()) {
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(body.contains("\"USD\""), body);
+            return elapsedMillis;
+        }
+    }
+
+    private ConfigurableApplicationContext start(String profile, Path snapshot, String... extraArgs) {
+        // The persistent profile always reopens the same file; each in-memory start gets a fresh database
+        String store = "persistent".equals(profile)
+                ? "--ecb.store.dir=" + tempDir.resolve("store")
+                : "--spring.datasource.url=jdbc:h2:mem:startup-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;MODE=MYSQL;LAZY_QUERY_EXECUTION=TRUE";
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.profiles.active=" + profile,
+                store,
+                "--ecb.snapshot.path=" + snapshot,
+                "--ecb.api.daily-rates-url=http://127.0.0.1:1/daily.xml",
+                "--ecb.api.retry-attempts=0",
+                "--ecb.refresh.enabled=false",
+                "--providers.bundesbank.enabled=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.springframework.jdbc=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplicationBuilder(CmCodingChallengeApplication.class).run(args.toArray(new String[0]));
+    }
+
+    private static long seed(ExchangeRateJdbcWriter writer) {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        writer.upsertCurrencies(Arrays.stream(codes).collect(Collectors.toMap(Function.identity(), code -> code)));
+        List<RateRecord> records = new ArrayList<>();
+        for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (String code : codes) {
+                records.add(new RateRecord(day, code, BigDecimal.valueOf(1_000_000 + records.size(), 6)));
+            }
+        }
+        writer.insertRates(records);
+        return records.size();
+    }
+}
@@ -0,0 +1,153 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import com.crewmeister.cmcodingchallenge.service.RateArchive;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.crewmeister.cmcodingchallenge.support.Microbench;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The memory-mapped rate archive holding a full ECB history (every working day since 1999 for all
+ * current ECB currencies): opening an existing archive against reloading the rate index from the store,
+ * point lookups with their allocation, and one-year range scans. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RateArchiveBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateArchiveBenchmark.class);
+    private static final LocalDate FIRST_DAY = LocalDate.of(1999, 1, 4);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int LOOKUPS = 1_000_000;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RateIndex.class)).setLevel(Level.WARN);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RateArchive.class)).setLevel(Level.WARN);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullHistoryLookups() throws Exception {
+        List<RateRecord> history = fullHistory();
+        ExchangeRateJdbcReader exchangeRateReader = mock(ExchangeRateJdbcReader.class);
+        when(exchangeRateReader.checksumRates()).thenReturn((long) history.size());
+        doAnswer(invocation -> {
+            history.forEach(invocation.<Consumer<RateRecord>>getArgument(0));
+            return null;
+        }).when(exchangeRateReader).forEachRate(any(Consumer.class));
+
+        Path path = tempDir.resolve("rates.archive");
+        RateArchive built = new RateArchive(exchangeRateReader, true, path.toString());
+        long buildNanos = System.nanoTime();
+        built.open();
+        buildNanos = System.nanoTime() - buildNanos;
+        built.close();
+
+        RateArchive rateArchive = new RateArchive(exchangeRateReader, true, path.toString());
+        double openMillis = Microbench.averageMillis(3, 10, () -> {
+            rateArchive.close();
+            return rateArchive.open();
+        });
+        RateIndex rateIndex = new RateIndex(new CurrencyRegistry(), exchangeRateReader);
+        // Lower bound for a reload: the rows come from memory here rather than from the database
+        double reloadMillis = Microbench.averageMillis(3, 10, () -> {
+            rateIndex.reload();
+            return rateIndex.size();
+        });
+        assertEquals(history.size(), rateArchive.size());
+
+        String[] codes = new String[LOOKUPS];
+        long[] days = new long[LOOKUPS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long span = LAST_DAY.toEpochDay() - FIRST_DAY.toEpochDay();
+        for (int i = 0; i < LOOKUPS; i++) {
+            codes[i] = EcbXmlFixtures.ECB_CURRENCIES[random.nextInt(EcbXmlFixtures.ECB_CURRENCIES.length)];
+            days[i] = FIRST_DAY.toEpochDay() + random.nextLong(span + 1);
+        }
+        double lookupMillis = Microbench.averageMillis(5, 20, () -> {
+            long sum = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                sum += rateArchive.findUnscaled(codes[i], days[i]);
+            }
+            return sum;
+        });
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBytes = threads.getCurrentThreadAllocatedBytes();
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += rateArchive.findUnscaled(codes[i], days[i]);
+            sum += rateArchive.floorDay(codes[i], days[i]);
+        }
+        allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        int scans = 10_000;
+        long[] visited = new long[1];
+        double scanMillis = Microbench.averageMillis(3, 10, () -> {
+            for (int i = 0; i < scans; i++) {
+                long from = FIRST_DAY.toEpochDay() + (long) i * 7 % (span - 365);
+                rateArchive.forEachRate(codes[i], from, from + 365, (day, unscaled) -> visited[0]++);
+            }
+            return visited[0];
+        });
+        rateArchive.close();
+
+        logger.info("{} rates in {} KB, built in {} ms", history.size(), Files.size(path) / 1024, buildNanos / 1_000_000);
+        logger.info("open existing archive {} ms, rate index reload {} ms",
+                String.format("%.2f", openMillis), String.format("%.1f", reloadMillis));
+        logger.info("findUnscaled {} ns/lookup, {} bytes allocated per 2M lookups (checksum {}); one-year range scan {} µs",
+                String.format("%.1f", lookupMillis * 1_000_000 / LOOKUPS), allocatedBytes, sum,
+                String.format("%.1f", scanMillis * 1000 / scans));
+        assertTrue(openMillis * 10 < reloadMillis, openMillis + " ms vs " + reloadMillis + " ms");
+        assertTrue(allocatedBytes < 1024, allocatedBytes + " bytes");
+    }
+
+    /**
+     * Every working day since 1999 for all ECB currencies, ordered by day and code as the store reads them
+     */
+    private static List<RateRecord> fullHistory() {
+        List<RateRecord> history = new ArrayList<>();
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES.clone();
+        Arrays.sort(codes);
+        int day = 0;
+        for (LocalDate date = FIRST_DAY; !date.isAfter(LAST_DAY); date = date.plusDays(1)) {
+            if (date.getDayOfWeek().getValue() > 5) {
+                continue;
+            }
+            for (String code : codes) {
+                history.add(new RateRecord(date, code, BigDecimal.valueOf(1_234_567 + day % 1000, RateIndex.SCALE)));
+            }
+            day++;
+        }
+        return history;
+    }
+}
@@ -0,0 +1,145 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import com.crewmeister.cmcodingchallenge.service.RateExportService;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a million synthetic rates in both formats into a byte-counting sink. The live heap is
+ * sampled (after a full GC) every few MB of output; it must stay within a fixed budget above the
+ * pre-export baseline and must not drift upwards as rows go by. Without H2's lazy query execution the
+ * driver buffers about 34 MB of result rows up front (flat, but above the budget). Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.org.springframework.jdbc=WARN",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@ActiveProfiles("test")
+class RateExportBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateExportBenchmark.class);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int ROWS = 1_000_000;
+    private static final int CHUNK_ROWS = 30_000;
+    private static final long SAMPLE_EVERY_BYTES = 4L * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+    private static final long MAX_HEAP_DRIFT_BYTES = 4L * 1024 * 1024;
+
+    @Autowired
+    private RateExportService rateExportService;
+
+    @Autowired
+    private ExchangeRateJdbcWriter writer;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAllInBatch();
+        currencyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void exportMillionRows() throws IOException {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        writer.upsertCurrencies(Arrays.stream(codes).collect(Collectors.toMap(Function.identity(), code -> code)));
+        List<RateRecord> chunk = new ArrayList<>(CHUNK_ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            chunk.add(new RateRecord(LAST_DAY.minusDays(row / codes.length), codes[row % codes.length],
+                    BigDecimal.valueOf(1_000_000 + row, 6)));
+            if (chunk.size() == CHUNK_ROWS || row == ROWS - 1) {
+                writer.insertRates(chunk);
+                chunk.clear();
+            }
+        }
+        chunk = null;
+
+        for (RateExportFormat format : RateExportFormat.values()) {
+            HeapSamplingSink sink = new HeapSamplingSink();
+            long startNanos = System.nanoTime();
+            long rows = rateExportService.export(format, sink);
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+
+            logger.info("{}: {} rows, {} MB in {} ms ({} rows/s incl. {} heap samples), heap growth max {} MB",
+                    format, rows, sink.bytes / (1024 * 1024), elapsedMillis, rows * 1000 / elapsedMillis,
+                    sink.samples, sink.maxGrowth / (1024 * 1024));
+            assertEquals(ROWS, rows);
+            assertTrue(sink.samples > 3, "samples " + sink.samples);
+            assertTrue(sink.maxGrowth < MAX_HEAP_GROWTH_BYTES, format + " export heap grew by " + sink.maxGrowth);
+            assertTrue(sink.maxGrowth - sink.firstGrowth < MAX_HEAP_DRIFT_BYTES,
+                    format + " export heap kept growing: " + sink.firstGrowth + " -> " + sink.maxGrowth);
+        }
+    }
+
+    /**
+     * Discards the export but records how far the live heap rose above its starting point
+     */
+    private static final class HeapSamplingSink extends OutputStream {
+
+        private final long baseline = usedHeap();
+        private long bytes;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private long firstGrowth;
+        private long maxGrowth;
+        private int samples;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            count(length);
+        }
+
+        private void count(int length) {
+            bytes += length;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                long growth = usedHeap() - baseline;
+                firstGrowth = samples == 0 ? growth : firstGrowth;
+                maxGrowth = Math.max(maxGrowth, growth);
+                samples++;
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
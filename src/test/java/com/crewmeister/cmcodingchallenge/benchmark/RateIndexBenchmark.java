@@ -0,0 +1,167 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.crewmeister.cmcodingchallenge.support.Microbench;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Lookup and window-statistics latency and footprint of the rate index loaded with a full ECB history
+ * (every working day since 1999 for all current ECB currencies). Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RateIndexBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateIndexBenchmark.class);
+    private static final LocalDate FIRST_DAY = LocalDate.of(1999, 1, 4);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int LOOKUPS = 1_000_000;
+
+    @BeforeAll
+    static void quietIndexLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RateIndex.class)).setLevel(Level.INFO);
+    }
+
+    @Test
+    void fullHistoryLookups() throws Exception {
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry();
+        RateIndex rateIndex = new RateIndex(currencyRegistry, mock(ExchangeRateJdbcReader.class));
+        int rows = loadFullHistory(rateIndex);
+
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        int[] ordinals = new int[LOOKUPS];
+        long[] days = new long[LOOKUPS];
+        LocalDate[] dates = new LocalDate[LOOKUPS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long span = LAST_DAY.toEpochDay() - FIRST_DAY.toEpochDay();
+        for (int i = 0; i < LOOKUPS; i++) {
+            ordinals[i] = currencyRegistry.ordinal(codes[random.nextInt(codes.length)]);
+            days[i] = FIRST_DAY.toEpochDay() + random.nextLong(span + 1);
+            dates[i] = LocalDate.ofEpochDay(days[i]);
+        }
+
+        double unscaledMillis = Microbench.averageMillis(5, 20, () -> {
+            long sum = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                sum += rateIndex.findUnscaled(ordinals[i], days[i]);
+            }
+            return sum;
+        });
+        double decimalMillis = Microbench.averageMillis(5, 20, () -> {
+            int hits = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (rateIndex.find(codes[i % codes.length], dates[i]) != null) {
+                    hits++;
+                }
+            }
+            return hits;
+        });
+
+        logger.info("{} rates in {} KB: findUnscaled {} ns/lookup, find (code + BigDecimal) {} ns/lookup",
+                rows, rateIndex.memoryBytes() / 1024,
+                String.format("%.1f", unscaledMillis * 1_000_000 / LOOKUPS),
+                String.format("%.1f", decimalMillis * 1_000_000 / LOOKUPS));
+    }
+
+    /**
+     * Window statistics from the prefix aggregates against summing the same window day by day from the
+     * columns, the cheapest possible scan
+     */
+    @Test
+    void windowStatistics() throws Exception {
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry();
+        RateIndex rateIndex = new RateIndex(currencyRegistry, mock(ExchangeRateJdbcReader.class));
+        int rows = loadFullHistory(rateIndex);
+
+        int queries = 10_000;
+        int[] ordinals = new int[queries];
+        long[] from = new long[queries];
+        long[] to = new long[queries];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long span = LAST_DAY.toEpochDay() - FIRST_DAY.toEpochDay();
+        for (int i = 0; i < queries; i++) {
+            ordinals[i] = currencyRegistry.ordinal(EcbXmlFixtures.ECB_CURRENCIES[random.nextInt(EcbXmlFixtures.ECB_CURRENCIES.length)]);
+            from[i] = FIRST_DAY.toEpochDay() + random.nextLong(span / 2);
+            to[i] = from[i] + random.nextLong(span / 2);
+        }
+
+        double windowMillis = Microbench.averageMillis(5, 20, () -> {
+            long count = 0;
+            for (int i = 0; i < queries; i++) {
+                count += rateIndex.window(ordinals[i], from[i], to[i]).getCount();
+            }
+            return count;
+        });
+        double scanMillis = Microbench.averageMillis(2, 5, () -> {
+            long count = 0;
+            for (int i = 0; i < queries; i++) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                long sum = 0;
+                double squares = 0;
+                for (long day = from[i]; day <= to[i]; day++) {
+                    long unscaled = rateIndex.findUnscaled(ordinals[i], day);
+                    if (unscaled != 0) {
+                        count++;
+                        min = Math.min(min, unscaled);
+                        max = Math.max(max, unscaled);
+                        sum += unscaled;
+                        squares += (double) unscaled * unscaled;
+                    }
+                }
+            }
+            return count;
+        });
+
+        logger.info("{} rates in {} KB: window stats {} µs/query, in-memory scan {} µs/query",
+                rows, rateIndex.memoryBytes() / 1024,
+                String.format("%.2f", windowMillis * 1000 / queries),
+                String.format("%.2f", scanMillis * 1000 / queries));
+        assertTrue(windowMillis * 10 < scanMillis, windowMillis + " ms vs " + scanMillis + " ms");
+    }
+
+    /**
+     * Every working day since 1999 for all ECB currencies, newest first in chunks, as the backfill feeds it
+     */
+    private static int loadFullHistory(RateIndex rateIndex) {
+        List<RateRecord> chunk = new ArrayList<>();
+        int rows = 0;
+        int day = 0;
+        for (LocalDate date = LAST_DAY; !date.isBefore(FIRST_DAY); date = date.minusDays(1)) {
+            if (date.getDayOfWeek().getValue() > 5) {
+                continue;
+            }
+            for (String code : EcbXmlFixtures.ECB_CURRENCIES) {
+                chunk.add(new RateRecord(date, code, BigDecimal.valueOf(1_234_567 + day % 1000, RateIndex.SCALE)));
+            }
+            day++;
+            if (chunk.size() >= 5000) {
+                rows += chunk.size();
+                rateIndex.putAll(chunk);
+                chunk.clear();
+            }
+        }
+        rows += chunk.size();
+        rateIndex.putAll(chunk);
+        assertEquals(rows, rateIndex.size());
+        return rows;
+    }
+}
@@ -0,0 +1,134 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.crewmeister.cmcodingchallenge.support.Microbench;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Five years of USD over HTTP: one {@code /api/exchange-rates/USD?from=&to=} request against the
+ * day-by-day loop clients used before, one {@code /api/exchange-rates/USD/{date}} request per calendar
+ * day. Rate caches are cleared before every pass so the loop pays its database lookups each time.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "logging.level.org.springframework.jdbc=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.crewmeister.cmcodingchallenge.service=WARN"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateSeriesBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSeriesBenchmark.class);
+    private static final LocalDate FROM = LocalDate.of(2020, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExchangeRateJdbcWriter writer;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAllInBatch();
+        currencyRepository.deleteAllInBatch();
+        clearRateCaches();
+    }
+
+    @Test
+    void fiveYearsOfOneCurrency() throws Exception {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        writer.upsertCurrencies(Arrays.stream(codes).collect(Collectors.toMap(Function.identity(), code -> code)));
+        List<RateRecord> records = new ArrayList<>();
+        for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (String code : codes) {
+                records.add(new RateRecord(day, code, BigDecimal.valueOf(1_000_000 + records.size(), 6)));
+            }
+        }
+        writer.insertRates(records);
+        int businessDays = records.size() / codes.length;
+        int days = (int) (TO.toEpochDay() - FROM.toEpochDay() + 1);
+
+        byte[] series = mockMvc.perform(get("/api/exchange-rates/USD?from=" + FROM + "&to=" + TO))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(businessDays, objectMapper.readTree(series).get("rates").size());
+
+        double seriesMillis = Microbench.averageMillis(20, 50, () -> {
+            clearRateCaches();
+            return mockMvc.perform(get("/api/exchange-rates/USD?from=" + FROM + "&to=" + TO))
+                    .andReturn().getResponse().getContentAsByteArray().length;
+        });
+        double loopMillis = Microbench.averageMillis(1, 3, () -> {
+            clearRateCaches();
+            int found = 0;
+            for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+                if (mockMvc.perform(get("/api/exchange-rates/USD/" + day)).andReturn().getResponse().getStatus() == 200) {
+                    found++;
+                }
+            }
+            assertEquals(businessDays, found);
+            return found;
+        });
+
+        logger.info("{} rows, USD {}..{}: {} rates over {} days", records.size(), FROM, TO, businessDays, days);
+        logger.info("range scan: 1 request in {} ms; day-by-day: {} requests in {} ms ({}x)",
+                String.format("%.2f", seriesMillis), days, String.format("%.0f", loopMillis),
+                String.format("%.0f", loopMillis / seriesMillis));
+        assertTrue(seriesMillis * 10 < loopMillis, seriesMillis + " ms vs " + loopMillis + " ms");
+    }
+
+    private void clearRateCaches() {
+        for (String name : Arrays.asList("exchangeRates", "missingRates", "responseBodies")) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.currency.ResponseBodyCache;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.service.CurrencyService;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.crewmeister.cmcodingchallenge.support.Microbench;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of writing a default page of {@code /api/exchange-rates} (1000 rates) per request: Jackson over the
+ * cached DTO list, as the former object cache did, against copying the cached bytes, each with and
+ * without gzip. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ResponseBodyCacheBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseBodyCacheBenchmark.class);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 6, 4);
+    private static final int PAGE_SIZE = 1000;
+    private static final int REQUESTS = 2_000;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void defaultPage() throws Exception {
+        List<ExchangeRateDto> rates = new ArrayList<>(PAGE_SIZE);
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            rates.add(new ExchangeRateDto(codes[i % codes.length], "Currency " + codes[i % codes.length],
+                    LAST_DAY.minusDays(i / codes.length), new BigDecimal("1.234567")));
+        }
+        ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, null, PAGE_SIZE))
+                .thenReturn(new RatePage(rates, null));
+        ObjectProvider<CacheManager> cacheManager = mock(ObjectProvider.class);
+        when(cacheManager.getIfAvailable()).thenReturn(new ConcurrentMapCacheManager());
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ResponseBodyCache responseBodyCache = new ResponseBodyCache(mock(CurrencyService.class), exchangeRateService,
+                new DatasetVersion(), objectMapper, cacheManager);
+
+        ResponseBodyCache.SerializedBody cached = page(responseBodyCache);
+        assertArrayEquals(objectMapper.writeValueAsBytes(rates), cached.getJson());
+        ByteArrayOutputStream response = new ByteArrayOutputStream(cached.getJson().length);
+
+        double objectMillis = Microbench.averageMillis(REQUESTS, REQUESTS, () -> {
+            response.reset();
+            objectMapper.writeValue(response, rates);
+            return response.size();
+        });
+        double bytesMillis = Microbench.averageMillis(REQUESTS, REQUESTS, () -> {
+            response.reset();
+            response.write(page(responseBodyCache).getJson());
+            return response.size();
+        });
+        double objectGzipMillis = Microbench.averageMillis(REQUESTS / 10, REQUESTS / 10, () -> {
+            response.reset();
+            try (GZIPOutputStream out = new GZIPOutputStream(response)) {
+                objectMapper.writeValue(out, rates);
+            }
+            return response.size();
+        });
+        double bytesGzipMillis = Microbench.averageMillis(REQUESTS, REQUESTS, () -> {
+            response.reset();
+            response.write(page(responseBodyCache).getGzip());
+            return response.size();
+        });
+
+        logger.info("{} rates, {} bytes ({} gzipped) per page", PAGE_SIZE, cached.getJson().length, cached.getGzip().length);
+        logger.info("identity: object cache {} req/s, byte cache {} req/s", perSecond(objectMillis), perSecond(bytesMillis));
+        logger.info("gzip:     object cache {} req/s, byte cache {} req/s", perSecond(objectGzipMillis), perSecond(bytesGzipMillis));
+        assertTrue(bytesMillis < objectMillis, bytesMillis + " ms vs " + objectMillis + " ms");
+        assertTrue(bytesGzipMillis < objectGzipMillis, bytesGzipMillis + " ms vs " + objectGzipMillis + " ms");
+    }
+
+    private static ResponseBodyCache.SerializedBody page(ResponseBodyCache responseBodyCache) {
+        return responseBodyCache.exchangeRates(Collections.emptyList(), null, null, null, PAGE_SIZE);
+    }
+
+    private static String perSecond(double millis) {
+        return String.format("%,.0f", 1000 / millis);
+    }
+}
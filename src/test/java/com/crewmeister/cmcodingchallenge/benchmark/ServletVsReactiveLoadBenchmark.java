@@ -0,0 +1,170 @@
+package com.crewmeister.cmcodingchallenge.benchmark;
+
+import com.crewmeister.cmcodingchallenge.CmCodingChallengeApplication;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The servlet stack against the {@code reactive} profile under {@value CONCURRENCY} concurrent clients.
+ * Each stack boots on its own port and database with five years of rates for every ECB currency, then
+ * serves {@value REQUESTS} one-month series requests for random currencies and months, so every request
+ * reads the store instead of a cache. Reports throughput and latency percentiles; both stacks only have
+ * to answer every request. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ServletVsReactiveLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServletVsReactiveLoadBenchmark.class);
+
+    private static final LocalDate FROM = LocalDate.of(2020, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+    private static final int CONCURRENCY = 256;
+    private static final int WARMUP_REQUESTS = 5_000;
+    private static final int REQUESTS = 20_000;
+
+    @Test
+    void seriesUnderConcurrentLoad() {
+        Result servlet = run("servlet");
+        Result reactive = run("reactive");
+
+        logger.info("{} series requests at concurrency {}:", REQUESTS, CONCURRENCY);
+        logger.info("servlet:  {}", servlet);
+        logger.info("reactive: {}", reactive);
+    }
+
+    private Result run(String stack) {
+        String database = "load-" + stack;
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.profiles.active=test" + ("reactive".equals(stack) ? ",reactive" : ""),
+                "--spring.main.web-application-type=" + stack,
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MySQL;LAZY_QUERY_EXECUTION=TRUE",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--ecb.api.daily-rates-url=http://127.0.0.1:1/daily.xml",
+                "--ecb.api.retry-attempts=0",
+                "--ecb.refresh.enabled=false",
+                "--server.tomcat.accept-count=" + CONCURRENCY,
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.springframework.jdbc=WARN",
+                "--logging.level.org.springframework.transaction=WARN",
+                "--logging.level.com.crewmeister.cmcodingchallenge.service=WARN",
+                "--logging.level.com.crewmeister.cmcodingchallenge.initilization=WARN"));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CmCodingChallengeApplication.class)
+                .run(args.toArray(new String[0]))) {
+            seed(context.getBean(ExchangeRateJdbcWriter.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+            ConnectionProvider connections = ConnectionProvider.builder(database)
+                    .maxConnections(CONCURRENCY)
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            // Own event loops, or the client would share Reactor Netty's global ones with the reactive server
+            LoopResources loops = LoopResources.create(database + "-client", 2, true);
+            try {
+                WebClient client = WebClient.builder()
+                        .baseUrl("http://localhost:" + port)
+                        .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections).runOn(loops)))
+                        .build();
+                fire(client, WARMUP_REQUESTS);
+                return fire(client, REQUESTS);
+            } finally {
+                connections.dispose();
+                loops.dispose();
+            }
+        }
+    }
+
+    private static void seed(ExchangeRateJdbcWriter writer) {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        writer.upsertCurrencies(Arrays.stream(codes).collect(Collectors.toMap(Function.identity(), code -> code)));
+        List<RateRecord> records = new ArrayList<>();
+        for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (String code : codes) {
+                records.add(new RateRecord(day, code, BigDecimal.valueOf(1_000_000 + records.size(), 6)));
+            }
+        }
+        writer.insertRates(records);
+    }
+
+    private static Result fire(WebClient client, int requests) {
+        String[] codes = EcbXmlFixtures.ECB_CURRENCIES;
+        int months = (TO.getYear() - FROM.getYear() + 1) * 12;
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+
+        long startNanos = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    LocalDate month = FROM.plusMonths(random.nextInt(months));
+                    String uri = "/api/exchange-rates/" + codes[random.nextInt(codes.length)]
+                            + "?from=" + month + "&to=" + month.plusMonths(1).minusDays(1);
+                    long requestNanos = System.nanoTime();
+                    return client.get().uri(uri).retrieve().toBodilessEntity()
+                            .doOnSuccess(response -> latencies[i] = System.nanoTime() - requestNanos)
+                            .onErrorResume(e -> {
+                                failures.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, CONCURRENCY)
+                .blockLast(Duration.ofMinutes(10));
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        assertEquals(0, failures.get(), "failed requests");
+        Arrays.sort(latencies);
+        return new Result(requests, elapsedNanos, latencies);
+    }
+
+    private static final class Result {
+
+        private final double requestsPerSecond;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Result(int requests, long elapsedNanos, long[] sortedLatencies) {
+            this.requestsPerSecond = requests / (elapsedNanos / 1e9);
+            this.p50Millis = sortedLatencies[requests / 2] / 1e6;
+            this.p99Millis = sortedLatencies[(int) (requests * 0.99)] / 1e6;
+            this.maxMillis = sortedLatencies[requests - 1] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                    requestsPerSecond, p50Millis, p99Millis, maxMillis);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.crewmeister.cmcodingchallenge.client;
+
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BundesbankApiClientTest {
+
+    private static final String ETAG = "\"rates-v1\"";
+    private static final String LAST_MODIFIED = "Fri, 16 Oct 2026 14:00:00 GMT";
+
+    private HttpServer server;
+    private BundesbankApiClient client;
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private volatile byte[] body = daily(LocalDate.of(2026, 10, 16));
+    private volatile boolean honourValidators = true;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/daily.xml", this::handle);
+        server.start();
+
+        client = new BundesbankApiClient(new EcbXmlParser());
+        ReflectionTestUtils.setField(client, "ECB_DAILY_RATES_URL",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/daily.xml");
+        ReflectionTestUtils.setField(client, "timeoutMs", 5000);
+        ReflectionTestUtils.setField(client, "retryAttempts", 0);
+        ReflectionTestUtils.setField(client, "streamBufferSize", 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getExchangeRatesIfChanged_ShouldReturnRatesAndValidatorsOnFirstPoll() {
+        BundesbankResponse response = client.getExchangeRatesIfChanged().block();
+
+        assertNotNull(response);
+        assertTrue(response.hasData());
+        assertEquals(ETAG, response.getEtag());
+        assertEquals(LAST_MODIFIED, response.getLastModified());
+        assertNotNull(response.getContentHash());
+        assertNull(ifNoneMatch.get(0));
+    }
+
+    @Test
+    void getExchangeRatesIfChanged_ShouldCompleteEmptyOnNotModified() {
+        client.markIngested(client.getExchangeRatesIfChanged().block());
+
+        assertNull(client.getExchangeRatesIfChanged().block());
+        assertEquals(ETAG, ifNoneMatch.get(1));
+    }
+
+    @Test
+    void getExchangeRatesIfChanged_ShouldCompleteEmptyWhenContentHashIsUnchanged() {
+        honourValidators = false;
+        client.markIngested(client.getExchangeRatesIfChanged().block());
+
+        assertNull(client.getExchangeRatesIfChanged().block());
+    }
+
+    @Test
+    void getExchangeRatesIfChanged_ShouldReturnRatesWhenContentChanged() {
+        honourValidators = false;
+        client.markIngested(client.getExchangeRatesIfChanged().block());
+        body = daily(LocalDate.of(2026, 10, 19));
+
+        BundesbankResponse response = client.getExchangeRatesIfChanged().block();
+
+        assertNotNull(response);
+        assertEquals(LocalDate.of(2026, 10, 19), response.getDate());
+    }
+
+    @Test
+    void getExchangeRatesIfChanged_ShouldPollUnconditionallyUntilIngested() {
+        client.getExchangeRatesIfChanged().block();
+
+        assertNotNull(client.getExchangeRatesIfChanged().block());
+        assertNull(ifNoneMatch.get(1));
+    }
+
+    @Test
+    void openHistoricalRates_ShouldStreamWholeDocument() throws IOException {
+        try (InputStream input = client.openHistoricalRates(url("/daily.xml"))) {
+            assertArrayEquals(body, input.readAllBytes());
+        }
+    }
+
+    @Test
+    void openHistoricalRates_ShouldFailTheRead_WhenServerAnswersWithError() throws IOException {
+        try (InputStream input = client.openHistoricalRates(url("/missing.xml"))) {
+            IOException error = assertThrows(IOException.class, input::readAllBytes);
+            assertTrue(error.getMessage().contains("404"), error.getMessage());
+        }
+    }
+
+    @Test
+    void openHistoricalRates_ShouldFailTheRead_WhenLocalFileIsMissing(@TempDir Path tempDir) throws IOException {
+        try (InputStream input = client.openHistoricalRates(tempDir.resolve("eurofxref-hist.xml").toString())) {
+            IOException error = assertThrows(IOException.class, input::readAllBytes);
+            assertInstanceOf(NoSuchFileException.class, error.getCause());
+        }
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatch.add(etag);
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+
+        if (honourValidators && ETAG.equals(etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] payload = body;
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+
+    private static byte[] daily(LocalDate date) {
+        return EcbXmlFixtures.history(date, 1, "USD", "JPY", "GBP").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package com.crewmeister.cmcodingchallenge.client;
+
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BundesbankSdmxRateProviderTest {
+
+    private final BundesbankSdmxRateProvider provider =
+            new BundesbankSdmxRateProvider(new CurrencyRegistry(), IngestionMetrics.detached(), "http://localhost/unused", 2, Duration.ofSeconds(1));
+
+    @Test
+    void parseSdmxCsv_ShouldKeepLatestObservationPerCurrency() {
+        String csv = "DATAFLOW,BBK_STD_FREQ,BBK_STD_CURRENCY,BBK_STD_CURRENCY_DENOM,TIME_PERIOD,OBS_VALUE\n" +
+                "BBK:BBEX3(1.0),D,USD,EUR,2023-12-14,1.0946\n" +
+                "BBK:BBEX3(1.0),D,USD,EUR,2023-12-15,1.0942\n" +
+                "BBK:BBEX3(1.0),D,JPY,EUR,2023-12-15,155.51\n" +
+                "BBK:BBEX3(1.0),D,CHF,EUR,2023-12-15,.\n";
+
+        BundesbankResponse response = provider.parseSdmxCsv(csv);
+
+        assertTrue(response.hasData());
+        assertEquals(LocalDate.of(2023, 12, 15), response.getDate());
+        assertEquals("BUNDESBANK", response.getDataSource());
+        assertEquals(2, response.getCurrencyCount());
+        assertEquals(new BigDecimal("1.0942"), response.getRate("USD").orElse(null));
+        assertEquals(new BigDecimal("155.51"), response.getRate("JPY").orElse(null));
+        assertEquals("US Dollar", response.getCurrencyName("USD").orElse(null));
+    }
+
+    @Test
+    void parseSdmxCsv_ShouldAcceptSemicolonsAndQuotes() {
+        String csv = "\"BBK_STD_CURRENCY\";\"TIME_PERIOD\";\"OBS_VALUE\"\r\n" +
+                "\"GBP\";\"2023-12-15\";\"0.8571\"\r\n";
+
+        BundesbankResponse response = provider.parseSdmxCsv(csv);
+
+        assertEquals(new BigDecimal("0.8571"), response.getRate("GBP").orElse(null));
+    }
+
+    @Test
+    void parseSdmxCsv_ShouldFailOnUnexpectedHeader() {
+        BundesbankResponse response = provider.parseSdmxCsv("KEY,VALUE\nA,1\n");
+
+        assertFalse(response.isSuccessful());
+    }
+}
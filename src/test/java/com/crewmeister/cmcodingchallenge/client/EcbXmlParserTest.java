@@ -2,16 +2,25 @@
 package com.crewmeister.cmcodingchallenge.client;
 
 import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.service.CurrencyRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class EcbXmlParserTest {
 
-    private final EcbXmlParser parser = new EcbXmlParser();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EcbXmlParser parser = new EcbXmlParser(new CurrencyRegistry(), new IngestionMetrics(meterRegistry));
 
     @Test
     void parseEcbXml_ShouldParseCorrectly() {
@@ -69,4 +78,41 @@ class EcbXmlParserTest {
         assertFalse(result.isSuccessful());
         assertEquals("Empty XML content", result.getErrorMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamRates_ShouldEmitRecordsForEveryDay() throws Exception {
+        String historyXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<gesmes:Envelope xmlns:gesmes=\"http://www.gesmes.org/xml/2002-08-01\" xmlns=\"http://www.ecb.int/vocabulary/2002-08-01/eurofxref\">" +
+                "<gesmes:subject>Reference rates</gesmes:subject>" +
+                "<Cube>" +
+                "<Cube time=\"2023-12-15\">" +
+                "<Cube currency=\"USD\" rate=\"1.0916\"/>" +
+                "<Cube currency=\"JPY\" rate=\"155.33\"/>" +
+                "</Cube>" +
+                "<Cube time=\"2023-12-14\">" +
+                "<Cube currency=\"USD\" rate=\"1.0882\"/>" +
+                "<Cube currency=\"JPY\" rate=\"not-a-number\"/>" +
+                "<Cube currency=\"GBP\" rate=\"0.8600\"/>" +
+                "</Cube>" +
+                "</Cube>" +
+                "</gesmes:Envelope>";
+
+        List<RateRecord> records = new ArrayList<>();
+        long count = parser.streamRates(
+                new ByteArrayInputStream(historyXml.getBytes(StandardCharsets.UTF_8)), records::add);
+
+        assertEquals(4, count);
+        assertEquals(4, records.size());
+
+        assertEquals(LocalDate.of(2023, 12, 15), records.get(0).getDate());
+        assertEquals("USD", records.get(0).getCurrencyCode());
+        assertEquals(new BigDecimal("1.0916"), records.get(0).getRate());
+
+        assertEquals(LocalDate.of(2023, 12, 14), records.get(3).getDate());
+        assertEquals("GBP", records.get(3).getCurrencyCode());
+        assertEquals(new BigDecimal("0.8600"), records.get(3).getRate());
+
+        assertEquals(4, meterRegistry.get(IngestionMetrics.ROWS_PARSED).counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.ROWS_REJECTED).tag("stage", "parse").counter().count());
+    }
+}
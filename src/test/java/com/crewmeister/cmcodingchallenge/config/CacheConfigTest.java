@@ -0,0 +1,46 @@
+package com.crewmeister.cmcodingchallenge.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigTest {
+
+    @Test
+    void cacheManager_ShouldBuildBoundedCachesFromSpecs() {
+        CacheManager cacheManager = new CacheConfig().cacheManager(
+                "maximumSize=100,expireAfterWrite=1h,recordStats",
+                "maximumSize=10,expireAfterWrite=1h",
+                "maximumSize=20",
+                "maximumWeight=1000");
+
+        Cache<Object, Object> exchangeRates = nativeCache(cacheManager, "exchangeRates");
+        for (int i = 0; i < 1_000; i++) {
+            cacheManager.getCache("exchangeRates").put("USD_" + i, i);
+        }
+        exchangeRates.cleanUp();
+
+        assertTrue(exchangeRates.estimatedSize() <= 100, "size " + exchangeRates.estimatedSize());
+        assertTrue(exchangeRates.stats().evictionCount() >= 900);
+        assertEquals(TimeUnit.HOURS.toNanos(1),
+                exchangeRates.policy().expireAfterWrite().orElseThrow().getExpiresAfter(TimeUnit.NANOSECONDS));
+
+        assertEquals(10L, nativeCache(cacheManager, "missingRates").policy().eviction().orElseThrow().getMaximum());
+        assertEquals(20L, nativeCache(cacheManager, "crossRates").policy().eviction().orElseThrow().getMaximum());
+        assertTrue(nativeCache(cacheManager, "responseBodies").policy().eviction().orElseThrow().isWeighted());
+    }
+
+    @Test
+    void build_ShouldRejectRefresh() {
+        assertThrows(IllegalArgumentException.class, () -> CacheConfig.build("maximumSize=1,refreshAfterWrite=1m"));
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+}
@@ -1,39 +1,77 @@
 package com.crewmeister.cmcodingchallenge.currency;
 
+import com.crewmeister.cmcodingchallenge.dto.BatchConversionResult;
 import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
 import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.dto.RateStatistics;
 import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.crewmeister.cmcodingchallenge.service.BatchConversionService;
 import com.crewmeister.cmcodingchallenge.service.CurrencyService;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
 import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.service.RateExportService;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CurrencyController.class)
+@Import({DatasetVersion.class, ResponseBodyCache.class})
 class CurrencyControllerGetCurrenciesTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private DatasetVersion datasetVersion;
+
     @MockBean
     private CurrencyService currencyService;
 
     @MockBean
     private ExchangeRateService exchangeRateService;
 
+    @MockBean
+    private RateExportService rateExportService;
+
+    @MockBean
+    private BatchConversionService batchConversionService;
+
     @Test
     void getCurrencies_ShouldReturnCurrencyList_WhenCurrenciesExist() throws Exception {
         List<CurrencyDto> expectedCurrencies = Arrays.asList(
@@ -95,7 +133,8 @@ class CurrencyControllerGetCurrenciesTest {
                 new ExchangeRateDto("GBP", "British Pound", yesterday, new BigDecimal("0.8520"))
         );
 
-        when(exchangeRateService.getAllExchangeRates()).thenReturn(expectedRates);
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, null, 1000))
+                .thenReturn(new RatePage(expectedRates, null));
 
         mockMvc.perform(get("/api/exchange-rates")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -122,7 +161,7 @@ class CurrencyControllerGetCurrenciesTest {
                 .andExpect(jsonPath("$[3].date", is(yesterday.toString())))
                 .andExpect(jsonPath("$[3].rate", is(1.1345)));
 
-        verify(exchangeRateService, times(1)).getAllExchangeRates();
+        verify(exchangeRateService, times(1)).getExchangeRates(Collections.emptyList(), null, null, null, 1000);
     }
 
     @Test
@@ -135,14 +174,245 @@ class CurrencyControllerGetCurrenciesTest {
                 new ExchangeRateDto("GBP", "British Pound", date2, new BigDecimal("0.84210"))
         );
 
-        when(exchangeRateService.getAllExchangeRates()).thenReturn(rates);
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, null, 1000))
+                .thenReturn(new RatePage(rates, null));
 
         mockMvc.perform(get("/api/exchange-rates"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].date", is("2025-06-04")))
                 .andExpect(jsonPath("$[1].date", is("2025-05-14")));
 
-        verify(exchangeRateService, times(1)).getAllExchangeRates();
+        verify(exchangeRateService, times(1)).getExchangeRates(Collections.emptyList(), null, null, null, 1000);
+    }
+
+    @Test
+    void getAllExchangeRates_ShouldLinkNextPage_WhenMoreRowsFollow() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        RatePageCursor next = new RatePageCursor(date, "GBP");
+        when(exchangeRateService.getExchangeRates(Arrays.asList("GBP", "USD"), date.minusDays(7), date, null, 2))
+                .thenReturn(new RatePage(Arrays.asList(
+                        new ExchangeRateDto("GBP", "British Pound", date, new BigDecimal("0.84210")),
+                        new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384"))), next));
+
+        mockMvc.perform(get("/api/exchange-rates?currency=USD,GBP&from=2025-05-28&to=2025-06-04&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("Link", allOf(
+                        containsString("from=2025-05-28"),
+                        containsString("limit=2"),
+                        containsString("cursor=" + next.encode()),
+                        org.hamcrest.Matchers.endsWith(">; rel=\"next\""))));
+    }
+
+    @Test
+    void getAllExchangeRates_ShouldPassDecodedCursor() throws Exception {
+        RatePageCursor cursor = new RatePageCursor(LocalDate.of(2025, 6, 4), "USD");
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, cursor, 1000))
+                .thenReturn(new RatePage(Collections.emptyList(), null));
+
+        mockMvc.perform(get("/api/exchange-rates").param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void getAllExchangeRates_ShouldSendGzipVariant_OnlyWhenAccepted() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        List<ExchangeRateDto> rates = new ArrayList<>();
+        for (int day = 0; day < 50; day++) {
+            rates.add(new ExchangeRateDto("USD", "US Dollar", date.minusDays(day), new BigDecimal("1.1384")));
+        }
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, null, 1000))
+                .thenReturn(new RatePage(rates, null));
+
+        byte[] plain = mockMvc.perform(get("/api/exchange-rates").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.startsWith("W/")))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(jsonPath("$", hasSize(50)))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] gzipped = mockMvc.perform(get("/api/exchange-rates").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+        assertTrue(gzipped.length < plain.length / 4, gzipped.length + " of " + plain.length);
+        // The identity body's validator revalidates the gzip variant: the two are equivalent, not byte-identical
+        mockMvc.perform(get("/api/exchange-rates").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, datasetVersion.etag()))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllExchangeRates_ShouldReturn400_ForBadCursorOrLimit() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/exchange-rates").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exchangeRateService);
+    }
+
+    @Test
+    void exportExchangeRates_ShouldStreamCsvAttachment() throws Exception {
+        when(rateExportService.export(eq(RateExportFormat.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("date,currency_code,rate\n2025-06-04,USD,1.138400\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/exchange-rates/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", containsString("exchange-rates.csv")))
+                .andExpect(content().string("date,currency_code,rate\n2025-06-04,USD,1.138400\n"));
+    }
+
+    @Test
+    void exportExchangeRates_ShouldReturn400_ForUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(rateExportService);
+    }
+
+    @Test
+    void getExchangeRateSeries_ShouldReturnDateToRateMap() throws Exception {
+        LocalDate from = LocalDate.of(2025, 6, 2);
+        LocalDate to = LocalDate.of(2025, 6, 4);
+        Map<LocalDate, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put(from, new BigDecimal("1.1345"));
+        rates.put(to, new BigDecimal("1.1384"));
+        when(exchangeRateService.getExchangeRateSeries("USD", from, to))
+                .thenReturn(new RateSeries("USD", "US Dollar", from, to, rates));
+
+        mockMvc.perform(get("/api/exchange-rates/USD?from=2025-06-02&to=2025-06-04"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(jsonPath("$.currency_code", is("USD")))
+                .andExpect(jsonPath("$.from", is("2025-06-02")))
+                .andExpect(jsonPath("$.rates['2025-06-02']", is(1.1345)))
+                .andExpect(jsonPath("$.rates['2025-06-04']", is(1.1384)));
+    }
+
+    @Test
+    void getExchangeRateSeries_ShouldReturn404_ForUnknownCurrency() throws Exception {
+        when(exchangeRateService.getExchangeRateSeries("XYZ", null, null))
+                .thenThrow(new ExchangeRateNotFoundException("XYZ"));
+
+        mockMvc.perform(get("/api/exchange-rates/XYZ"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("No exchange rates for currency 'XYZ' found")));
+        mockMvc.perform(get("/api/exchange-rates/US"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getExchangeRateStatistics_ShouldReturnSummary() throws Exception {
+        LocalDate from = LocalDate.of(2025, 6, 2);
+        LocalDate to = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRateStatistics("USD", from, to)).thenReturn(new RateStatistics(
+                "USD", "US Dollar", from, to, 3, from, new BigDecimal("1.144400"), to, new BigDecimal("1.141100"),
+                new BigDecimal("1.137600"), new BigDecimal("1.144400"), new BigDecimal("1.141033"),
+                new BigDecimal("0.003400")));
+
+        mockMvc.perform(get("/api/exchange-rates/USD/stats?from=2025-06-02&to=2025-06-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(3)))
+                .andExpect(jsonPath("$.first_date", is("2025-06-02")))
+                .andExpect(jsonPath("$.min", is(1.1376)))
+                .andExpect(jsonPath("$.mean", is(1.141033)))
+                .andExpect(jsonPath("$.stddev", is(0.0034)));
+    }
+
+    @Test
+    void getExchangeRateStatistics_ShouldOmitAggregates_ForEmptyRange() throws Exception {
+        when(exchangeRateService.getExchangeRateStatistics("USD", null, null)).thenReturn(new RateStatistics(
+                "USD", "US Dollar", null, null, 0, null, null, null, null, null, null, null, null));
+
+        mockMvc.perform(get("/api/exchange-rates/USD/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(0)))
+                .andExpect(jsonPath("$.mean").doesNotExist())
+                .andExpect(jsonPath("$.from").doesNotExist());
+        verify(exchangeRateService, never()).getExchangeRate(any(), any());
+    }
+
+    @Test
+    void convertBatch_ShouldReturnResultsInOrder_WithPerItemErrors() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(batchConversionService.convert(anyList(), eq(RateFallback.PREVIOUS))).thenReturn(Arrays.asList(
+                BatchConversionResult.converted(0, new CurrencyConversionRates(
+                        new BigDecimal("100"), "USD", new BigDecimal("87.842586"), "EUR", new BigDecimal("1.1384"), date)),
+                BatchConversionResult.failed(1, 404, "Exchange rate for currency 'XYZ' on date '2025-06-04' not found")));
+
+        mockMvc.perform(post("/api/convert/batch?fallback=previous")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"amount\":100,\"currency\":\"USD\",\"date\":\"2025-06-04\"},"
+                                + "{\"amount\":5,\"currency\":\"XYZ\",\"date\":\"2025-06-04\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].status", is(200)))
+                .andExpect(jsonPath("$[0].conversion.converted_amount", is(87.842586)))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].status", is(404)))
+                .andExpect(jsonPath("$[1].conversion").doesNotExist())
+                .andExpect(jsonPath("$[1].error", containsString("XYZ")));
+    }
+
+    @Test
+    void convertBatch_ShouldReject_OversizedOrUnreadableBodies() throws Exception {
+        String item = "{\"amount\":1,\"currency\":\"USD\",\"date\":\"2025-06-04\"}";
+        String oversized = "[" + String.join(",", Collections.nCopies(10_001, item)) + "]";
+
+        mockMvc.perform(post("/api/convert/batch").contentType(MediaType.APPLICATION_JSON).content(oversized))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("at most 10000 items")));
+        // Refused at the first surplus item, before the parser reaches the broken tail
+        String truncated = "[" + String.join(",", Collections.nCopies(10_001, item)) + ",{\"amount\":";
+        mockMvc.perform(post("/api/convert/batch").contentType(MediaType.APPLICATION_JSON).content(truncated))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("at most 10000 items")));
+        mockMvc.perform(post("/api/convert/batch").contentType(MediaType.APPLICATION_JSON).content("{\"amount\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Malformed Request Body")));
+        mockMvc.perform(post("/api/convert/batch").contentType(MediaType.APPLICATION_JSON).content("[" + item))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Malformed Request Body")));
+        verifyNoInteractions(batchConversionService);
+    }
+
+    @Test
+    void convertBatch_ShouldStreamNdjson() throws Exception {
+        when(batchConversionService.convert(any(InputStream.class), any(OutputStream.class), eq(RateFallback.EXACT)))
+                .thenAnswer(invocation -> {
+                    OutputStream output = invocation.getArgument(1);
+                    output.write("{\"index\":0,\"status\":400,\"error\":\"Amount is required\"}\n"
+                            .getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        MvcResult result = mockMvc.perform(post("/api/convert/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{\"currency\":\"USD\",\"date\":\"2025-06-04\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"index\":0,\"status\":400,\"error\":\"Amount is required\"}\n"));
     }
 
     @Test
@@ -163,6 +433,70 @@ class CurrencyControllerGetCurrenciesTest {
         verify(exchangeRateService, times(1)).getExchangeRate(currencyCode, date);
     }
 
+    @Test
+    void getExchangeRate_ShouldMarkHistoricalRateImmutable() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384")));
+
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", date))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, datasetVersion.etag()))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void getExchangeRate_ShouldIgnoreIfModifiedSince() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384")));
+
+        // A later bump within the same second would look unmodified to a seconds-resolution validator
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", date)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, datasetVersion.current() + 60_000))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getExchangeRate_ShouldRequireRevalidation_ForFallbackAndErrors() throws Exception {
+        LocalDate saturday = LocalDate.of(2025, 6, 7);
+        when(exchangeRateService.getExchangeRateOnOrBefore("USD", saturday)).thenReturn(new ExchangeRateDto(
+                "USD", "US Dollar", saturday, new BigDecimal("1.1400"), saturday.minusDays(1)));
+        when(exchangeRateService.getExchangeRate("USD", saturday))
+                .thenThrow(new ExchangeRateNotFoundException("USD", saturday));
+
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", saturday).param("fallback", "previous"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", saturday))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+    }
+
+    @Test
+    void getExchangeRate_ShouldAnswer304_UntilDatasetVersionChanges() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384")));
+        String etag = datasetVersion.etag();
+
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", date)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/currencies").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(exchangeRateService, currencyService);
+
+        datasetVersion.bump();
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", date)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, datasetVersion.etag()));
+    }
+
     @Test
     void getExchangeRate_ShouldReturn404_WhenExchangeRateNotFound() throws Exception {
         String currencyCode = "USD";
@@ -182,6 +516,58 @@ class CurrencyControllerGetCurrenciesTest {
         verify(exchangeRateService, times(1)).getExchangeRate(currencyCode, date);
     }
 
+    @Test
+    void getExchangeRate_ShouldResolvePreviousBusinessDay_WhenFallbackRequested() throws Exception {
+        LocalDate saturday = LocalDate.of(2025, 6, 7);
+        ExchangeRateDto friday = new ExchangeRateDto(
+                "USD", "US Dollar", saturday, new BigDecimal("1.1400"), saturday.minusDays(1));
+
+        when(exchangeRateService.getExchangeRateOnOrBefore("USD", saturday)).thenReturn(friday);
+
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", saturday).param("fallback", "previous"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date", is("2025-06-07")))
+                .andExpect(jsonPath("$.effective_date", is("2025-06-06")))
+                .andExpect(jsonPath("$.rate", is(1.1400)));
+
+        verify(exchangeRateService, never()).getExchangeRate(anyString(), any());
+    }
+
+    @Test
+    void getExchangeRate_ShouldOmitEffectiveDate_WhenExact() throws Exception {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384")));
+
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", date).param("fallback", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.effective_date").doesNotExist());
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturn400_WhenFallbackUnknown() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/{currency}/{date}", "USD", "2025-06-07").param("fallback", "next"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exchangeRateService);
+    }
+
+    @Test
+    void convertCurrency_ShouldUsePreviousBusinessDay_WhenFallbackRequested() throws Exception {
+        BigDecimal amount = new BigDecimal("100.00");
+        LocalDate sunday = LocalDate.of(2025, 6, 8);
+        CurrencyConversionRates conversion = new CurrencyConversionRates(
+                amount, "USD", new BigDecimal("87.719298"), "EUR",
+                new BigDecimal("1.1400"), sunday, sunday.minusDays(2));
+
+        when(exchangeRateService.convertCurrencyOnOrBefore(amount, "USD", sunday)).thenReturn(conversion);
+
+        mockMvc.perform(get("/api/convert/{amount}/{currency}/{date}", amount, "USD", sunday).param("fallback", "previous"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.conversion_date", is("2025-06-08")))
+                .andExpect(jsonPath("$.effective_date", is("2025-06-06")));
+    }
+
     @Test
     void convertCurrency_ShouldReturnConversion_WhenValidParameters() throws Exception {
         BigDecimal amount = new BigDecimal("100.00");
@@ -210,6 +596,37 @@ class CurrencyControllerGetCurrenciesTest {
         verify(exchangeRateService, times(1)).convertCurrency(amount, currency, date);
     }
 
+    @Test
+    void convertCrossCurrency_ShouldConvertBetweenNonEuroCurrencies() throws Exception {
+        BigDecimal amount = new BigDecimal("100.00");
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.convertCurrency(amount, "USD", "GBP", date)).thenReturn(new CurrencyConversionRates(
+                amount, "USD", new BigDecimal("73.972242"), "GBP", new BigDecimal("1.1384"), date, null,
+                new BigDecimal("0.7397224173401265")));
+
+        mockMvc.perform(get("/api/convert/{amount}/{from}/{to}/{date}", amount, "USD", "GBP", date))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.original_currency", is("USD")))
+                .andExpect(jsonPath("$.target_currency", is("GBP")))
+                .andExpect(jsonPath("$.converted_amount", is(73.972242)))
+                .andExpect(jsonPath("$.exchange_rate", is(1.1384)))
+                .andExpect(jsonPath("$.cross_rate", is(0.7397224173401265)))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+    }
+
+    @Test
+    void convertCrossCurrency_ShouldReturn404_WhenEitherRateIsMissing() throws Exception {
+        LocalDate saturday = LocalDate.of(2025, 6, 7);
+        when(exchangeRateService.convertCurrency(BigDecimal.TEN, "USD", "GBP", saturday))
+                .thenThrow(new ExchangeRateNotFoundException("USD", saturday));
+
+        mockMvc.perform(get("/api/convert/{amount}/{from}/{to}/{date}", 10, "USD", "GBP", saturday))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+        mockMvc.perform(get("/api/convert/{amount}/{from}/{to}/{date}", 10, "USD", "POUND", saturday))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void convertCurrency_ShouldReturn422_WhenArithmeticException() throws Exception {
         BigDecimal amount = new BigDecimal("100.00");
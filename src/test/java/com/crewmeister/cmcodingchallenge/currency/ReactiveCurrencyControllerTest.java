@@ -0,0 +1,171 @@
+package com.crewmeister.cmcodingchallenge.currency;
+
+import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.crewmeister.cmcodingchallenge.initilization.InitialLoadReadiness;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import com.crewmeister.cmcodingchallenge.service.ReactiveExchangeRateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveCurrencyController.class)
+@Import(DatasetVersion.class)
+class ReactiveCurrencyControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatasetVersion datasetVersion;
+
+    @MockBean
+    private ReactiveExchangeRateService exchangeRateService;
+
+    @MockBean
+    private InitialLoadReadiness initialLoadReadiness;
+
+    @BeforeEach
+    void setUp() {
+        when(initialLoadReadiness.isReady()).thenReturn(true);
+    }
+
+    @Test
+    void getCurrencies_ShouldReturnCurrencyList() {
+        when(exchangeRateService.getCurrencies()).thenReturn(Flux.just(
+                new CurrencyDto("USD", "US Dollar"), new CurrencyDto("GBP", "British Pound")));
+
+        webTestClient.get().uri("/api/currencies").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache, public")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].code").isEqualTo("USD");
+    }
+
+    @Test
+    void getExchangeRate_ShouldMarkHistoricalRateImmutable() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(Mono.just(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384"))));
+
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USD", date).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, datasetVersion.etag())
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable")
+                .expectBody()
+                .jsonPath("$.currency_code").isEqualTo("USD")
+                .jsonPath("$.rate").isEqualTo(1.1384);
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturn404_WhenSignalledNotFound() {
+        LocalDate saturday = LocalDate.of(2025, 6, 7);
+        when(exchangeRateService.getExchangeRate("USD", saturday))
+                .thenReturn(Mono.error(new ExchangeRateNotFoundException("USD", saturday)));
+
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USD", saturday).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").value(containsString("USD"));
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturn400_ForInvalidParameters() {
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USDX", "2025-06-04").exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USD", LocalDate.now().plusDays(2)).exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/convert/{amount}/{currency}/{date}", "-5", "USD", "2025-06-04").exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(exchangeRateService);
+    }
+
+    @Test
+    void getExchangeRates_ShouldLinkNextPage() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        RatePageCursor next = new RatePageCursor(date, "GBP");
+        when(exchangeRateService.getExchangeRates(any(), eq(null), eq(null), eq(null), anyInt()))
+                .thenReturn(Mono.just(new RatePage(
+                        List.of(new ExchangeRateDto("GBP", "British Pound", date, new BigDecimal("0.8500"))), next)));
+
+        webTestClient.get().uri("/api/exchange-rates?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, containsString("cursor=" + next.encode()))
+                .expectHeader().value(HttpHeaders.LINK, containsString("rel=\"next\""))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1);
+    }
+
+    @Test
+    void getExchangeRateSeries_ShouldReturnRatesByDate() {
+        Map<LocalDate, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put(LocalDate.of(2025, 6, 2), new BigDecimal("1.1400"));
+        rates.put(LocalDate.of(2025, 6, 3), new BigDecimal("1.1384"));
+        when(exchangeRateService.getExchangeRateSeries("USD", null, null))
+                .thenReturn(Mono.just(new RateSeries("USD", "US Dollar", null, null, rates)));
+
+        webTestClient.get().uri("/api/exchange-rates/USD").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.currency_code").isEqualTo("USD")
+                .jsonPath("$.rates['2025-06-03']").isEqualTo(1.1384);
+    }
+
+    @Test
+    void getExchangeRate_ShouldAnswer304_UntilDatasetVersionChanges() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRate("USD", date))
+                .thenReturn(Mono.just(new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384"))));
+        String etag = datasetVersion.etag();
+
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USD", date)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        verifyNoInteractions(exchangeRateService);
+
+        datasetVersion.bump();
+        webTestClient.get().uri("/api/exchange-rates/{currency}/{date}", "USD", date)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, datasetVersion.etag());
+    }
+
+    @Test
+    void api_ShouldAnswer503_UntilInitialLoadCompletes() {
+        when(initialLoadReadiness.isReady()).thenReturn(false);
+
+        webTestClient.get().uri("/api/currencies").exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "5");
+        verifyNoInteractions(exchangeRateService);
+    }
+}
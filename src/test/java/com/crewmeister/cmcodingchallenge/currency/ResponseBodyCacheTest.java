@@ -0,0 +1,124 @@
+package com.crewmeister.cmcodingchallenge.currency;
+
+import com.crewmeister.cmcodingchallenge.dto.CurrencyDto;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.service.CurrencyService;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseBodyCacheTest {
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Mock
+    private ObjectProvider<CacheManager> cacheManagerProvider;
+
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ResponseBodyCache responseBodyCache;
+
+    @BeforeEach
+    void setUp() {
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(new ConcurrentMapCacheManager());
+        responseBodyCache = new ResponseBodyCache(
+                currencyService, exchangeRateService, datasetVersion, objectMapper, cacheManagerProvider);
+    }
+
+    @Test
+    void currencies_ShouldSerializeOncePerDatasetVersion() {
+        when(currencyService.getAllCurrencies()).thenReturn(Collections.singletonList(new CurrencyDto("USD", "US Dollar")));
+
+        ResponseBodyCache.SerializedBody first = responseBodyCache.currencies();
+        ResponseBodyCache.SerializedBody second = responseBodyCache.currencies();
+
+        assertSame(first, second);
+        assertEquals("[{\"code\":\"USD\",\"name\":\"US Dollar\"}]", new String(first.getJson(), StandardCharsets.UTF_8));
+        assertNull(first.getGzip(), "small bodies are not compressed");
+        verify(currencyService, times(1)).getAllCurrencies();
+
+        datasetVersion.bump();
+        assertNotSame(first, responseBodyCache.currencies());
+        verify(currencyService, times(2)).getAllCurrencies();
+    }
+
+    @Test
+    void exchangeRates_ShouldKeyByQueryAndKeepNextCursor() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        RatePageCursor next = new RatePageCursor(date, "USD");
+        List<String> codes = Arrays.asList("USD");
+        when(exchangeRateService.getExchangeRates(codes, null, date, null, 1))
+                .thenReturn(new RatePage(Collections.singletonList(
+                        new ExchangeRateDto("USD", "US Dollar", date, new BigDecimal("1.1384"))), next));
+        when(exchangeRateService.getExchangeRates(codes, null, date, next, 1))
+                .thenReturn(new RatePage(Collections.emptyList(), null));
+
+        ResponseBodyCache.SerializedBody page = responseBodyCache.exchangeRates(codes, null, date, null, 1);
+        ResponseBodyCache.SerializedBody last = responseBodyCache.exchangeRates(codes, null, date, next, 1);
+        responseBodyCache.exchangeRates(codes, null, date, new RatePageCursor(date, "USD"), 1);
+
+        assertEquals(next, page.getNext());
+        assertTrue(new String(page.getJson(), StandardCharsets.UTF_8).contains("\"date\":\"2025-06-04\""));
+        assertNull(last.getNext());
+        assertEquals("[]", new String(last.getJson(), StandardCharsets.UTF_8));
+        verify(exchangeRateService, times(1)).getExchangeRates(codes, null, date, next, 1);
+    }
+
+    @Test
+    void exchangeRates_ShouldShareEntryBetweenSpellingsOfTheSameFilter() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRates(Arrays.asList("JPY", "USD"), date, date, null, 10))
+                .thenReturn(new RatePage(Collections.emptyList(), null));
+
+        ResponseBodyCache.SerializedBody first = responseBodyCache.exchangeRates(Arrays.asList("usd", "JPY"), date, date, null, 10);
+
+        assertSame(first, responseBodyCache.exchangeRates(Arrays.asList("JPY", " USD"), date, date, null, 10));
+        assertSame(first, responseBodyCache.exchangeRates(Arrays.asList("USD", "jpy", "USD"), date, date, null, 10));
+        verify(exchangeRateService, times(1)).getExchangeRates(Arrays.asList("JPY", "USD"), date, date, null, 10);
+    }
+
+    @Test
+    void exchangeRates_ShouldNotCacheFailures() {
+        LocalDate date = LocalDate.of(2025, 6, 4);
+        when(exchangeRateService.getExchangeRates(Collections.emptyList(), date, date, null, 10))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(new RatePage(Collections.emptyList(), null));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> responseBodyCache.exchangeRates(Collections.emptyList(), date, date, null, 10));
+
+        assertEquals("database down", error.getMessage());
+        assertEquals("[]", new String(responseBodyCache.exchangeRates(Collections.emptyList(), date, date, null, 10)
+                .getJson(), StandardCharsets.UTF_8));
+    }
+}
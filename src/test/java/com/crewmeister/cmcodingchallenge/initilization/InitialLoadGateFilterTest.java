@@ -0,0 +1,40 @@
+package com.crewmeister.cmcodingchallenge.initilization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class InitialLoadGateFilterTest {
+
+    private final InitialLoadReadiness readiness = new InitialLoadReadiness(mock(ApplicationEventPublisher.class), true);
+    private final InitialLoadGateFilter filter = new InitialLoadGateFilter(readiness);
+
+    @Test
+    void shouldRejectRequestsUntilInitialLoadFinished() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/exchange-rates"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void shouldPassRequestsThroughOnceReady() throws Exception {
+        readiness.markReady();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/exchange-rates"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+}
@@ -2,23 +2,31 @@ package com.crewmeister.cmcodingchallenge.integration;
 
 import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
 import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
 import com.crewmeister.cmcodingchallenge.entity.Currency;
 import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
 import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
 import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
 import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
 import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import io.r2dbc.spi.ConnectionFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -41,6 +49,12 @@ class ExchangeRateServiceIntegrationTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
     private Currency usdCurrency;
     private Currency gbpCurrency;
     private Currency jpyCurrency;
@@ -90,39 +104,44 @@ class ExchangeRateServiceIntegrationTest {
     }
 
     @Test
-    void getAllExchangeRates_ShouldReturnAllRatesFromDatabase() {
-        List<ExchangeRateDto> result = exchangeRateService.getAllExchangeRates();
-
-        assertNotNull(result);
-        assertEquals(9, result.size());
-
-        long usdCount = result.stream().filter(r -> "USD".equals(r.getCurrencyCode())).count();
-        long gbpCount = result.stream().filter(r -> "GBP".equals(r.getCurrencyCode())).count();
-        long jpyCount = result.stream().filter(r -> "JPY".equals(r.getCurrencyCode())).count();
-        long chfCount = result.stream().filter(r -> "CHF".equals(r.getCurrencyCode())).count();
-
-        assertEquals(3, usdCount);
-        assertEquals(3, gbpCount);
-        assertEquals(2, jpyCount);
-        assertEquals(1, chfCount);
-
-        Optional<ExchangeRateDto> usdRate = result.stream()
-                .filter(r -> "USD".equals(r.getCurrencyCode()))
-                .findFirst();
-
-        assertTrue(usdRate.isPresent());
-        assertEquals("US Dollar", usdRate.get().getCurrencyName());
+    void getExchangeRates_ShouldWalkAllRowsInStablePages() {
+        List<String> keys = new ArrayList<>();
+        RatePageCursor cursor = null;
+        int pages = 0;
+        do {
+            RatePage page = exchangeRateService.getExchangeRates(Collections.emptyList(), null, null, cursor, 4);
+            assertTrue(page.getRates().size() == 4 || !page.hasNext());
+            page.getRates().forEach(rate -> keys.add(rate.getDate() + " " + rate.getCurrencyCode()));
+            cursor = page.getNext();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(
+                today + " CHF", today + " GBP", today + " JPY", today + " USD",
+                yesterday + " GBP", yesterday + " JPY", yesterday + " USD",
+                dayBeforeYesterday + " GBP", dayBeforeYesterday + " USD"), keys);
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT currency_code, rate_date FROM exchange_rates"
+                + " ORDER BY rate_date DESC, currency_code LIMIT 4", String.class);
+        assertTrue(plan.toUpperCase().contains("IDX_RATE_DATE_CURRENCY"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
     }
 
     @Test
-    void getAllExchangeRates_ShouldReturnEmptyList_WhenNoDatabaseData() {
-        cacheManager.getCacheNames().forEach(cacheName ->
-                Objects.requireNonNull(cacheManager.getCache(cacheName)).clear());
-        exchangeRateRepository.deleteAll();
-        List<ExchangeRateDto> result = exchangeRateService.getAllExchangeRates();
-
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+    void getExchangeRates_ShouldPushFiltersDown() {
+        RatePage page = exchangeRateService.getExchangeRates(List.of("usd", "JPY"), yesterday, yesterday, null, 10);
+
+        assertFalse(page.hasNext());
+        assertEquals(2, page.getRates().size());
+        assertEquals("JPY", page.getRates().get(0).getCurrencyCode());
+        assertEquals("Japanese Yen", page.getRates().get(0).getCurrencyName());
+        assertEquals(new BigDecimal("1.134500"), page.getRates().get(1).getRate());
+
+        RatePage afterJpy = exchangeRateService.getExchangeRates(List.of("USD", "JPY"), null, yesterday,
+                new RatePageCursor(yesterday, "JPY"), 10);
+        assertEquals(2, afterJpy.getRates().size());
+        assertEquals(dayBeforeYesterday, afterJpy.getRates().get(1).getDate());
     }
 
     @Test
@@ -169,6 +188,23 @@ class ExchangeRateServiceIntegrationTest {
         );
     }
 
+    @Test
+    void getExchangeRateSeries_ShouldReadOneRangeFromTheCoveringKey() {
+        RateSeries series = exchangeRateService.getExchangeRateSeries("usd", yesterday, null);
+
+        assertEquals("USD", series.getCurrencyCode());
+        assertEquals("US Dollar", series.getCurrencyName());
+        assertEquals(List.of(yesterday, today), new ArrayList<>(series.getRates().keySet()));
+        assertEquals(0, new BigDecimal("1.1384").compareTo(series.getRates().get(today)));
+        assertTrue(exchangeRateService.getExchangeRateSeries("CHF", today, yesterday).getRates().isEmpty());
+        assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRateSeries("XYZ", null, null));
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT rate_date, rate FROM exchange_rates"
+                + " WHERE currency_code = 'USD' AND rate_date >= DATE '2025-06-03' ORDER BY rate_date", String.class);
+        assertTrue(plan.toUpperCase().contains("UK_CURRENCY_DATE"), plan);
+    }
+
     @Test
     void convertCurrency_ShouldThrowException_WhenRateNotInDatabase() {
         BigDecimal amount = new BigDecimal("100.00");
@@ -182,4 +218,9 @@ class ExchangeRateServiceIntegrationTest {
         assertTrue(exception.getMessage().contains("SOMETHING"));
         assertTrue(exception.getMessage().contains(futureDate.toString()));
     }
+
+    @Test
+    void servletStack_ShouldOpenNoR2dbcPool() {
+        assertEquals(0, applicationContext.getBeanNamesForType(ConnectionFactory.class).length);
+    }
 }
@@ -6,7 +6,8 @@ import com.crewmeister.cmcodingchallenge.entity.Currency;
 import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
 import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
 import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
-import com.crewmeister.cmcodingchallenge.service.ExchangeRateService;
+import com.crewmeister.cmcodingchallenge.service.ExchangeRateIngestionService;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,7 +31,7 @@ import static org.mockito.Mockito.when;
 class FetchAndStoreIntegrationTest {
 
     @Autowired
-    private ExchangeRateService exchangeRateService;
+    private ExchangeRateIngestionService ingestionService;
 
     @Autowired
     private ExchangeRateRepository exchangeRateRepository;
@@ -38,6 +39,9 @@ class FetchAndStoreIntegrationTest {
     @Autowired
     private CurrencyRepository currencyRepository;
 
+    @Autowired
+    private RateIndex rateIndex;
+
     @MockBean
     private BundesbankApiClient bundesbankApiClient;
 
@@ -51,6 +55,7 @@ class FetchAndStoreIntegrationTest {
 
         exchangeRateRepository.deleteAll();
         currencyRepository.deleteAll();
+        rateIndex.clear();
 
         successfulResponse = BundesbankResponse.success(today, "ECB");
         successfulResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
@@ -62,14 +67,14 @@ class FetchAndStoreIntegrationTest {
     void tearDown() {
         exchangeRateRepository.deleteAll();
         currencyRepository.deleteAll();
+        rateIndex.clear();
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldStoreNewData() throws InterruptedException {
+    void ingestLatest_ShouldStoreNewData() {
         when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(successfulResponse));
 
-        exchangeRateService.fetchAndStoreExchangeRates();
-        Thread.sleep(500);
+        ingestionService.ingestLatest().block();
 
         List<Currency> currencies = currencyRepository.findAll();
         assertEquals(3, currencies.size());
@@ -109,7 +114,7 @@ class FetchAndStoreIntegrationTest {
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldUpdateExistingData() throws InterruptedException {
+    void ingestLatest_ShouldUpdateExistingData() {
         Currency existingUsd = new Currency("USD", "Old US Dollar");
         Currency existingGbp = new Currency("GBP", "Old British Pound");
         currencyRepository.saveAll(List.of(existingUsd, existingGbp));
@@ -120,8 +125,7 @@ class FetchAndStoreIntegrationTest {
 
         when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(successfulResponse));
 
-        exchangeRateService.fetchAndStoreExchangeRates();
-        Thread.sleep(500);
+        ingestionService.ingestLatest().block();
 
         Currency updatedUsd = currencyRepository.findByCode("USD").orElse(null);
         assertNotNull(updatedUsd);
@@ -152,7 +156,7 @@ class FetchAndStoreIntegrationTest {
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldHandleMultipleDates() throws InterruptedException {
+    void ingestLatest_ShouldHandleMultipleDates() {
         LocalDate firstDate = LocalDate.of(2025, 6, 4);
         BundesbankResponse firstResponse = BundesbankResponse.success(firstDate, "ECB");
         firstResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
@@ -162,12 +166,10 @@ class FetchAndStoreIntegrationTest {
         secondResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1313"));
 
         when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(firstResponse));
-        exchangeRateService.fetchAndStoreExchangeRates();
-        Thread.sleep(500);
+        ingestionService.ingestLatest().block();
 
         when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(secondResponse));
-        exchangeRateService.fetchAndStoreExchangeRates();
-        Thread.sleep(500);
+        ingestionService.ingestLatest().block();
 
         assertEquals(1, currencyRepository.count());
         assertEquals(2, exchangeRateRepository.count());
@@ -182,12 +184,11 @@ class FetchAndStoreIntegrationTest {
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldNotStoreOnFailure() throws InterruptedException {
+    void ingestLatest_ShouldNotStoreOnFailure() {
         BundesbankResponse failedResponse = BundesbankResponse.failure("API timeout");
         when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(failedResponse));
 
-        exchangeRateService.fetchAndStoreExchangeRates();
-        Thread.sleep(500);
+        ingestionService.ingestLatest().block();
 
         assertEquals(0, currencyRepository.count());
         assertEquals(0, exchangeRateRepository.count());
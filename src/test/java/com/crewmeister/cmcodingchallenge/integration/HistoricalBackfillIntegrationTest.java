@@ -0,0 +1,161 @@
+package com.crewmeister.cmcodingchallenge.integration;
+
+import com.crewmeister.cmcodingchallenge.dto.BackfillReport;
+import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import com.crewmeister.cmcodingchallenge.service.DatasetVersion;
+import com.crewmeister.cmcodingchallenge.service.HistoricalBackfillService;
+import com.crewmeister.cmcodingchallenge.service.RateArchive;
+import com.crewmeister.cmcodingchallenge.service.RateIndex;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+
+@SpringBootTest(properties = "ecb.backfill.chunk-size=250")
+@ActiveProfiles("test")
+class HistoricalBackfillIntegrationTest {
+
+    private static final String[] CURRENCIES = {"USD", "JPY", "GBP", "CHF", "SEK"};
+    private static final LocalDate LAST_DAY = LocalDate.of(2023, 12, 15);
+    private static final int DAYS = 200;
+
+    @Autowired
+    private HistoricalBackfillService backfillService;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private RateIndex rateIndex;
+
+    @SpyBean
+    private RateArchive rateArchive;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @SpyBean
+    private DatasetVersion datasetVersion;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+        rateIndex.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+        rateIndex.clear();
+    }
+
+    @Test
+    void backfill_ShouldStoreEveryRowInChunks() {
+        BackfillReport report = backfillService.backfill(historyXml(BigDecimal.ONE));
+
+        assertEquals(DAYS * CURRENCIES.length, report.getRows());
+        assertEquals(DAYS, report.getDays());
+        assertEquals(4, report.getChunks());
+        // The archive is not trusted while chunks commit, and the version moves again once it is rebuilt
+        InOrder order = inOrder(rateArchive, datasetVersion);
+        order.verify(rateArchive).invalidate();
+        order.verify(datasetVersion, times(4)).bump();
+        order.verify(rateArchive).rebuildQuietly();
+        order.verify(datasetVersion).bump();
+        assertTrue(report.getRowsPerSecond() > 0);
+
+        assertEquals(CURRENCIES.length, currencyRepository.count());
+        assertEquals(DAYS * CURRENCIES.length, exchangeRateRepository.count());
+        assertEquals("Swiss Franc", currencyRepository.findByCode("CHF").orElseThrow().getName());
+
+        Optional<ExchangeRate> oldest = exchangeRateRepository
+                .findByCurrencyCodeAndRateDate("USD", LAST_DAY.minusDays(DAYS - 1));
+        assertTrue(oldest.isPresent());
+    }
+
+    @Test
+    void backfill_ShouldUpdateExistingRatesOnRerun() {
+        backfillService.backfill(historyXml(BigDecimal.ONE));
+        backfillService.backfill(historyXml(new BigDecimal("2")));
+
+        assertEquals(DAYS * CURRENCIES.length, exchangeRateRepository.count());
+
+        ExchangeRate usd = exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", LAST_DAY).orElseThrow();
+        assertEquals(0, new BigDecimal("2").compareTo(usd.getRate()));
+
+        assertEquals(DAYS * CURRENCIES.length, rateIndex.size());
+        assertEquals(new BigDecimal("2.000000"), rateIndex.find("usd", LAST_DAY));
+        assertEquals(new BigDecimal("2.000000"), rateIndex.find("SEK", LAST_DAY.minusDays(DAYS - 1)));
+    }
+
+    @Test
+    void backfill_ShouldStreamFromLocalFile(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("eurofxref-hist.xml");
+        Files.write(file, historyXmlContent(BigDecimal.ONE).getBytes(StandardCharsets.UTF_8));
+
+        BackfillReport report = backfillService.backfill(file.toString());
+
+        assertEquals(DAYS * CURRENCIES.length, report.getRows());
+        assertEquals(DAYS * CURRENCIES.length, exchangeRateRepository.count());
+    }
+
+    @Test
+    void backfill_ShouldReportSourceFailure_WhenStreamBreaksMidDocument() {
+        Cache missingRates = cacheManager.getCache("missingRates");
+        missingRates.put("USD_" + LAST_DAY, Boolean.TRUE);
+        byte[] content = historyXmlContent(BigDecimal.ONE).getBytes(StandardCharsets.UTF_8);
+        IOException reset = new IOException("Connection reset");
+        InputStream truncated = new SequenceInputStream(new ByteArrayInputStream(content, 0, content.length / 2),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw reset;
+                    }
+                });
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> backfillService.backfill(truncated));
+
+        assertEquals("Failed to read historical rates", error.getMessage());
+        assertSame(reset, error.getCause());
+        // The chunks committed before the failure are served, so nothing cached before it may be
+        assertNull(missingRates.get("USD_" + LAST_DAY));
+    }
+
+    private ByteArrayInputStream historyXml(BigDecimal rate) {
+        return new ByteArrayInputStream(historyXmlContent(rate).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String historyXmlContent(BigDecimal rate) {
+        return EcbXmlFixtures.history(LAST_DAY, DAYS, rate, CURRENCIES);
+    }
+}
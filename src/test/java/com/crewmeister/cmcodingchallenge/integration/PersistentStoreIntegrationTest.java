@@ -0,0 +1,107 @@
+package com.crewmeister.cmcodingchallenge.integration;
+
+import com.crewmeister.cmcodingchallenge.CmCodingChallengeApplication;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.initilization.InitialLoadReadiness;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.service.RateArchive;
+import com.crewmeister.cmcodingchallenge.service.RateSnapshotService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code persistent} profile across a restart: rates written by one run are served by the next
+ * without a snapshot or a provider
+ */
+class PersistentStoreIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 4);
+
+    @TempDir
+    Path storeDir;
+
+    @Test
+    void restart_ShouldServeRatesStoredByPreviousRun() throws IOException {
+        try (ConfigurableApplicationContext context = start("persistent")) {
+            ExchangeRateJdbcWriter writer = context.getBean(ExchangeRateJdbcWriter.class);
+            writer.upsertCurrencies(Map.of("USD", "US Dollar", "JPY", "Japanese Yen"));
+            writer.upsertRates(Arrays.asList(
+                    new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                    new RateRecord(DAY, "JPY", new BigDecimal("164.15"))));
+            context.getBean(RateSnapshotService.class).save();
+
+            List<String> versions = context.getBean(JdbcTemplate.class).queryForList(
+                    "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL",
+                    String.class);
+            assertEquals(List.of("1", "2", "3"), versions);
+        }
+        assertTrue(Files.exists(storeDir.resolve("rates.mv.db")));
+        assertTrue(Files.exists(storeDir.resolve("rates.archive")));
+        assertFalse(Files.exists(storeDir.resolve("rates.snapshot")));
+
+        // Second run on the reactive stack, which also reads the file through R2DBC
+        try (ConfigurableApplicationContext context = start("persistent,reactive")) {
+            assertTrue(context.getBean(InitialLoadReadiness.class).isReady());
+            assertEquals(2, context.getBean(RateArchive.class).size());
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+            String rate = get(port, "/api/exchange-rates/USD/" + DAY);
+            assertTrue(rate.contains("\"rate\":1.1384"), rate);
+            String currencies = get(port, "/api/currencies");
+            assertTrue(currencies.contains("Japanese Yen"), currencies);
+        }
+    }
+
+    @Test
+    void migrations_ShouldApplyInPostgreSqlMode() {
+        Flyway flyway = Flyway.configure()
+                .dataSource("jdbc:h2:mem:postgresql-migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "sa", "")
+                .load();
+
+        assertEquals(3, flyway.migrate().migrationsExecuted);
+        assertTrue(flyway.validateWithResult().validationSuccessful);
+    }
+
+    private ConfigurableApplicationContext start(String profiles) {
+        return new SpringApplicationBuilder(CmCodingChallengeApplication.class).run(
+                "--server.port=0",
+                "--spring.profiles.active=" + profiles,
+                "--ecb.store.dir=" + storeDir.toAbsolutePath(),
+                "--ecb.snapshot.path=" + storeDir.resolve("rates.snapshot"),
+                "--ecb.api.daily-rates-url=http://127.0.0.1:1/daily.xml",
+                "--ecb.api.retry-attempts=0",
+                "--ecb.refresh.enabled=false",
+                "--providers.bundesbank.enabled=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.springframework.jdbc=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    private static String get(int port, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        assertEquals(200, connection.getResponseCode(), path);
+        try (InputStream input = connection.getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.crewmeister.cmcodingchallenge.integration;
+
+import com.crewmeister.cmcodingchallenge.dto.RateExportFormat;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import com.crewmeister.cmcodingchallenge.service.RateExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RateExportIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 4);
+
+    @Autowired
+    private RateExportService rateExportService;
+
+    @Autowired
+    private ExchangeRateJdbcWriter exchangeRateWriter;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        tearDown();
+        exchangeRateWriter.upsertCurrencies(Map.of("USD", "US Dollar", "JPY", "Japanese Yen"));
+        exchangeRateWriter.upsertRates(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                new RateRecord(DAY, "JPY", new BigDecimal("164.15")),
+                new RateRecord(DAY.minusDays(1), "USD", new BigDecimal("0.000001"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(3, rateExportService.export(RateExportFormat.NDJSON, output));
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(4, lines.length);
+        assertEquals("", lines[3]);
+        assertEquals("{\"date\":\"2025-06-03\",\"currency_code\":\"USD\",\"rate\":0.000001}", lines[0]);
+        assertEquals("JPY", objectMapper.readTree(lines[1]).get("currency_code").asText());
+        assertEquals(1.1384, objectMapper.readTree(lines[2]).get("rate").doubleValue());
+    }
+
+    @Test
+    void export_ShouldWriteCsvWithHeader() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        rateExportService.export(RateExportFormat.CSV, output);
+
+        assertEquals("date,currency_code,rate\n"
+                + "2025-06-03,USD,0.000001\n"
+                + "2025-06-04,JPY,164.150000\n"
+                + "2025-06-04,USD,1.138400\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_ShouldPropagateClientDisconnect() {
+        OutputStream brokenPipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> rateExportService.export(RateExportFormat.CSV, brokenPipe));
+    }
+}
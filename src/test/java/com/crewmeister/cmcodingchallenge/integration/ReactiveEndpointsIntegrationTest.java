@@ -0,0 +1,133 @@
+package com.crewmeister.cmcodingchallenge.integration;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The {@code reactive} profile end to end: rates written over JDBC are read back through R2DBC
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles({"test", "reactive"})
+class ReactiveEndpointsIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 4);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ExchangeRateJdbcWriter exchangeRateWriter;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        tearDown();
+        exchangeRateWriter.upsertCurrencies(Map.of("USD", "US Dollar", "JPY", "Japanese Yen"));
+        exchangeRateWriter.upsertRates(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                new RateRecord(DAY, "JPY", new BigDecimal("164.15")),
+                new RateRecord(DAY.minusDays(1), "USD", new BigDecimal("1.1400"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAll();
+        currencyRepository.deleteAll();
+    }
+
+    @Test
+    void getExchangeRate_ShouldRememberGapsInTheServletStacksCache() {
+        cacheManager.getCache("missingRates").clear();
+
+        webTestClient.get().uri("/api/exchange-rates/usd/{date}", DAY.plusDays(1)).exchange()
+                .expectStatus().isNotFound();
+
+        assertNotNull(cacheManager.getCache("missingRates").get("USD_" + DAY.plusDays(1)));
+    }
+
+    @Test
+    void getCurrencies_ShouldReadStore() {
+        webTestClient.get().uri("/api/currencies").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].code").isEqualTo("JPY");
+    }
+
+    @Test
+    void getExchangeRate_ShouldReadStore_AndFallBackToPreviousDay() {
+        webTestClient.get().uri("/api/exchange-rates/usd/{date}", DAY).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.currency_code").isEqualTo("USD")
+                .jsonPath("$.rate").isEqualTo(1.1384);
+
+        webTestClient.get().uri("/api/exchange-rates/JPY/{date}?fallback=previous", DAY.plusDays(3)).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rate").isEqualTo(164.15)
+                .jsonPath("$.effective_date").isEqualTo(DAY.toString());
+
+        webTestClient.get().uri("/api/exchange-rates/JPY/{date}", DAY.minusDays(1)).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getExchangeRates_ShouldPageThroughStore() {
+        webTestClient.get().uri("/api/exchange-rates?limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, containsString("rel=\"next\""))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].currency_code").isEqualTo("JPY")
+                .jsonPath("$[1].currency_code").isEqualTo("USD");
+
+        webTestClient.get().uri("/api/exchange-rates?currency=USD&from={from}", DAY).exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.LINK)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1);
+    }
+
+    @Test
+    void getExchangeRateSeries_AndConvert_ShouldReadStore() {
+        webTestClient.get().uri("/api/exchange-rates/USD").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rates.length()").isEqualTo(2)
+                .jsonPath("$.rates['2025-06-03']").isEqualTo(1.14);
+
+        webTestClient.get().uri("/api/convert/{amount}/USD/{date}", "113.84", DAY).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.converted_amount").isEqualTo(100.0);
+    }
+}
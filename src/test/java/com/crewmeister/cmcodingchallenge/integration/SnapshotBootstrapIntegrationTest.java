@@ -0,0 +1,139 @@
+package com.crewmeister.cmcodingchallenge.integration;
+
+import com.crewmeister.cmcodingchallenge.CmCodingChallengeApplication;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.RateSnapshotFormat;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the full application against a snapshot file while the ECB endpoint hangs, and reports how
+ * long it takes from startup until the first rate is served over HTTP.
+ */
+class SnapshotBootstrapIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotBootstrapIntegrationTest.class);
+
+    private static final LocalDate LAST_DAY = LocalDate.of(2023, 12, 15);
+    private static final int DAYS = 250;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer ecbStub;
+    private final CountDownLatch releaseEcb = new CountDownLatch(1);
+    private final AtomicInteger ecbRequests = new AtomicInteger();
+    private ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ecbStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ecbStub.createContext("/", exchange -> {
+            ecbRequests.incrementAndGet();
+            try {
+                releaseEcb.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        ecbStub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        releaseEcb.countDown();
+        ecbStub.stop(0);
+    }
+
+    @Test
+    void startup_ShouldServeRatesFromSnapshotBeforeEcbResponds() throws IOException {
+        Path snapshot = tempDir.resolve("rates.snapshot");
+        long rows = writeSnapshot(snapshot);
+
+        long startNanos = System.nanoTime();
+        context = new SpringApplicationBuilder(CmCodingChallengeApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:snapshot-bootstrap;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                        "--ecb.api.daily-rates-url=http://127.0.0.1:" + ecbStub.getAddress().getPort() + "/daily.xml",
+                        "--ecb.api.retry-attempts=0",
+                        "--ecb.refresh.enabled=false",
+                        "--providers.bundesbank.enabled=false",
+                        "--ecb.snapshot.path=" + snapshot,
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.springframework.jdbc=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        long contextMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://localhost:" + port + "/api/exchange-rates/USD/" + LAST_DAY).openConnection();
+        String body;
+        try (InputStream input = connection.getInputStream()) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(body.contains("\"USD\""), body);
+        assertEquals(1, releaseEcb.getCount(), "ECB must still be pending when the first rate is served");
+
+        logger.info("Startup to first served rate: {} ms (context ready after {} ms, {} rates restored from snapshot, "
+                + "{} ECB requests pending)", elapsedMillis, contextMillis, rows, ecbRequests.get());
+    }
+
+    private static long writeSnapshot(Path path) throws IOException {
+        Map<String, String> names = new HashMap<>();
+        for (String code : EcbXmlFixtures.ECB_CURRENCIES) {
+            names.put(code, code);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (RateSnapshotFormat.Writer writer = RateSnapshotFormat.writer(buffer, names)) {
+            for (int day = DAYS - 1; day >= 0; day--) {
+                LocalDate date = LAST_DAY.minusDays(day);
+                for (int i = 0; i < EcbXmlFixtures.ECB_CURRENCIES.length; i++) {
+                    writer.accept(new RateRecord(date, EcbXmlFixtures.ECB_CURRENCIES[i],
+                            BigDecimal.valueOf(1_000_000L + day * 31L + i, 6)));
+                }
+            }
+        }
+        try (OutputStream output = Files.newOutputStream(path)) {
+            buffer.writeTo(output);
+        }
+        return (long) DAYS * EcbXmlFixtures.ECB_CURRENCIES.length;
+    }
+}
@@ -0,0 +1,55 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.entity.Currency;
+import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ExchangeRateBatchInsertTest {
+
+    private static final int ROWS = 1_000;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAll_ShouldBatchInsertsInsteadOfOneStatementPerRow() {
+        Currency usd = currencyRepository.saveAndFlush(new Currency("USD", "US Dollar"));
+        LocalDate firstDay = LocalDate.of(2020, 1, 1);
+
+        List<ExchangeRate> rates = new ArrayList<>(ROWS);
+        for (int day = 0; day < ROWS; day++) {
+            rates.add(new ExchangeRate(usd, firstDay.plusDays(day), new BigDecimal("1.1000")));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        exchangeRateRepository.saveAll(rates);
+        exchangeRateRepository.flush();
+
+        // 1,000 rows / batch_size 50 = 20 insert batches, plus one sequence call per 50 ids
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2 * ROWS / 50 + 2,
+                "Expected batched inserts but got " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(ROWS, exchangeRateRepository.count());
+    }
+}
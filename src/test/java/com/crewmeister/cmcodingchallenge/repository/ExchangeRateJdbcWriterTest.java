@@ -0,0 +1,96 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.entity.Currency;
+import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ExchangeRateJdbcWriter.class)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ecb.ingestion.batch-size=7"
+})
+class ExchangeRateJdbcWriterTest {
+
+    @Autowired
+    private ExchangeRateJdbcWriter writer;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    private final LocalDate today = LocalDate.of(2025, 6, 4);
+
+    @Test
+    void upsertCurrencies_ShouldInsertAndRename() {
+        writer.upsertCurrencies(Map.of("USD", "Old US Dollar", "GBP", "British Pound"));
+        writer.upsertCurrencies(Map.of("USD", "US Dollar"));
+
+        assertEquals(2, currencyRepository.count());
+        assertEquals("US Dollar", currencyRepository.findByCode("USD").map(Currency::getName).orElse(null));
+    }
+
+    @Test
+    void upsertRates_ShouldInsertAcrossBatchesAndUpdateOnNaturalKey() {
+        writer.upsertCurrencies(Map.of("USD", "US Dollar", "GBP", "British Pound"));
+
+        List<RateRecord> records = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            records.add(new RateRecord(today.minusDays(day), "USD", new BigDecimal("1.1000")));
+            records.add(new RateRecord(today.minusDays(day), "GBP", new BigDecimal("0.8500")));
+        }
+        assertEquals(20, writer.upsertRates(records));
+        assertEquals(20, exchangeRateRepository.count());
+
+        List<RateRecord> next = List.of(
+                new RateRecord(today, "USD", new BigDecimal("1.1411")),
+                new RateRecord(today.plusDays(1), "USD", new BigDecimal("1.1420")),
+                new RateRecord(today.plusDays(1), "USD", new BigDecimal("1.1430")));
+
+        // Only the new day counts as inserted, its repeat is applied as an update
+        assertEquals(1, writer.upsertRates(next));
+        assertEquals(21, exchangeRateRepository.count());
+        ExchangeRate updated = exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", today).orElseThrow();
+        assertEquals(0, new BigDecimal("1.1411").compareTo(updated.getRate()));
+        ExchangeRate added = exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", today.plusDays(1)).orElseThrow();
+        assertEquals(0, new BigDecimal("1.1430").compareTo(added.getRate()));
+    }
+
+    @Test
+    void insertRates_ShouldDrawIdsFromSequenceBlocksSharedWithHibernate() {
+        writer.upsertCurrencies(Map.of("USD", "US Dollar", "GBP", "British Pound"));
+        List<RateRecord> records = new ArrayList<>();
+        for (int day = 0; day < 60; day++) {
+            records.add(new RateRecord(today.minusDays(day), "USD", new BigDecimal("1.1000")));
+        }
+
+        writer.insertRates(records);
+        ExchangeRate saved = exchangeRateRepository.saveAndFlush(
+                new ExchangeRate(currencyRepository.findByCode("GBP").orElseThrow(), today, new BigDecimal("0.8500")));
+
+        List<Long> ids = exchangeRateRepository.findAll().stream()
+                .map(ExchangeRate::getId)
+                .filter(id -> !id.equals(saved.getId()))
+                .sorted()
+                .collect(Collectors.toList());
+        // One id per row, at most two sequence blocks for 60 rows, none shared with Hibernate's block
+        assertEquals(60, ids.stream().distinct().count());
+        assertTrue(ids.get(59) - ids.get(0) < 2 * ExchangeRateJdbcWriter.ID_BLOCK_SIZE, ids.toString());
+    }
+}
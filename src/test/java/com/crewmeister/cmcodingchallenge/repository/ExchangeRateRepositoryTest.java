@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
@@ -50,20 +51,6 @@ class ExchangeRateRepositoryTest {
         exchangeRateRepository.save(new ExchangeRate(eurCurrency, today, new BigDecimal("1.0000")));
     }
 
-    @Test
-    void findAllWithCurrency_ShouldUseJoinFetch() {
-        List<ExchangeRate> results = exchangeRateRepository.findAllWithCurrency();
-
-        assertNotNull(results);
-        assertEquals(6, results.size());
-
-        for (ExchangeRate rate : results) {
-            assertNotNull(rate.getCurrency());
-            assertNotNull(rate.getCurrency().getCode());
-            assertNotNull(rate.getCurrency().getName());
-        }
-    }
-
     @Test
     void findByCurrencyCodeAndDate_ShouldFindExactMatchRate() {
         Optional<ExchangeRate> result = exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", today);
@@ -81,4 +68,16 @@ class ExchangeRateRepositoryTest {
 
         assertFalse(result.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findLatestOnOrBefore_ShouldReturnFloorRate() {
+        List<ExchangeRate> weekend = exchangeRateRepository.findLatestOnOrBefore("GBP", today.plusDays(3), PageRequest.of(0, 1));
+        List<ExchangeRate> exact = exchangeRateRepository.findLatestOnOrBefore("USD", today.minusDays(1), PageRequest.of(0, 1));
+
+        assertEquals(1, weekend.size());
+        assertEquals(today, weekend.get(0).getRateDate());
+        assertEquals("British Pound", weekend.get(0).getCurrency().getName());
+        assertEquals(new BigDecimal("1.1345"), exact.get(0).getRate());
+        assertTrue(exchangeRateRepository.findLatestOnOrBefore("GBP", today.minusDays(2), PageRequest.of(0, 1)).isEmpty());
+    }
+}
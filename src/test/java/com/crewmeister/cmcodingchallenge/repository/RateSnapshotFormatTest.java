@@ -0,0 +1,74 @@
+package com.crewmeister.cmcodingchallenge.repository;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateSnapshotFormatTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2023, 12, 14);
+    private static final LocalDate DAY_2 = LocalDate.of(2023, 12, 15);
+
+    @Test
+    void shouldRoundTripCurrenciesAndRates() throws IOException {
+        Map<String, String> names = new LinkedHashMap<>();
+        names.put("GBP", "British Pound Sterling");
+        names.put("JPY", "Japanese Yen");
+        names.put("USD", "US Dollar");
+        List<RateRecord> rates = Arrays.asList(
+                new RateRecord(DAY_1, "GBP", new BigDecimal("0.842600")),
+                new RateRecord(DAY_1, "USD", new BigDecimal("1.141100")),
+                new RateRecord(DAY_2, "JPY", new BigDecimal("164.620000")),
+                new RateRecord(DAY_2, "USD", new BigDecimal("1.1384")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RateSnapshotFormat.Writer writer = RateSnapshotFormat.writer(out, names)) {
+            rates.forEach(writer);
+            assertEquals(2, writer.getRows());
+        }
+
+        RateSnapshotFormat.Reader reader = RateSnapshotFormat.reader(new ByteArrayInputStream(out.toByteArray()));
+        List<RateRecord> read = new ArrayList<>();
+        long rows = reader.readRates(read::add);
+
+        assertEquals(names, reader.getCurrencyNames());
+        assertEquals(4, rows);
+        for (int i = 0; i < rates.size(); i++) {
+            assertEquals(rates.get(i).getDate(), read.get(i).getDate());
+            assertEquals(rates.get(i).getCurrencyCode(), read.get(i).getCurrencyCode());
+            assertEquals(rates.get(i).getRate(), read.get(i).getRate());
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownCurrency() throws IOException {
+        RateSnapshotFormat.Writer writer = RateSnapshotFormat.writer(new ByteArrayOutputStream(), Map.of("USD", "US Dollar"));
+        writer.accept(new RateRecord(DAY_1, "XXX", BigDecimal.ONE));
+
+        assertThrows(IllegalArgumentException.class, writer::close);
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write("date,currency,rate".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThrows(IOException.class, () -> RateSnapshotFormat.reader(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
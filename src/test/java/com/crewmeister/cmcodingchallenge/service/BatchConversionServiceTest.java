@@ -0,0 +1,141 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
+import com.crewmeister.cmcodingchallenge.dto.BatchConversionResult;
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RateFallback;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BatchConversionServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 4);
+
+    private final ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BatchConversionService batchConversionService = new BatchConversionService(
+            exchangeRateService, objectMapper, Validation.buildDefaultValidatorFactory().getValidator());
+
+    @BeforeEach
+    void setUp() {
+        when(exchangeRateService.convertAt(any(), any(), any())).thenCallRealMethod();
+        when(exchangeRateService.getExchangeRate("USD", DAY))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", DAY, new BigDecimal("1.1384")));
+        when(exchangeRateService.getExchangeRate("XYZ", DAY)).thenThrow(new ExchangeRateNotFoundException("XYZ", DAY));
+    }
+
+    @Test
+    void convert_ShouldResolveEachRateOnce_AndKeepBadItemsInPlace() throws Exception {
+        List<JsonNode> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(item("{\"amount\":100,\"currency\":\"USD\",\"date\":\"2025-06-04\"}"));
+        }
+        items.add(item("{\"amount\":-1,\"currency\":\"US\",\"date\":\"2025-06-04\"}"));
+        items.add(item("{\"amount\":\"abc\",\"currency\":\"USD\",\"date\":\"2025-06-04\"}"));
+        items.add(item("{\"amount\":5,\"currency\":\"XYZ\",\"date\":\"2025-06-04\"}"));
+        items.add(item("{\"amount\":5,\"currency\":\"XYZ\",\"date\":\"2025-06-04\"}"));
+        items.add(item("null"));
+
+        List<BatchConversionResult> results = batchConversionService.convert(items, RateFallback.EXACT);
+
+        assertEquals(1005, results.size());
+        CurrencyConversionRates first = results.get(0).getConversion();
+        assertEquals(new BigDecimal("87.842586"), first.getConvertedAmount());
+        assertEquals("USD", first.getOriginalCurrency());
+        assertEquals(999, results.get(999).getIndex());
+
+        BatchConversionResult invalid = results.get(1000);
+        assertEquals(400, invalid.getStatus());
+        assertEquals("Amount must be positive, Currency code must be exactly 3 characters", invalid.getError());
+        assertEquals(400, results.get(1001).getStatus());
+        assertTrue(results.get(1001).getError().startsWith("Malformed item"), results.get(1001).getError());
+        assertEquals(404, results.get(1002).getStatus());
+        assertEquals(404, results.get(1003).getStatus());
+        assertEquals("Item is required", results.get(1004).getError());
+
+        verify(exchangeRateService, times(1)).getExchangeRate("USD", DAY);
+        verify(exchangeRateService, times(1)).getExchangeRate("XYZ", DAY);
+    }
+
+    @Test
+    void convert_ShouldUsePreviousBusinessDay_WhenRequested() {
+        LocalDate saturday = LocalDate.of(2025, 6, 7);
+        when(exchangeRateService.getExchangeRateOnOrBefore("USD", saturday))
+                .thenReturn(new ExchangeRateDto("USD", "US Dollar", saturday, new BigDecimal("1.1384"), DAY));
+
+        List<BatchConversionResult> results = batchConversionService.convert(
+                List.of(item("{\"amount\":100,\"currency\":\"usd\",\"date\":\"2025-06-07\"}")), RateFallback.PREVIOUS);
+
+        assertEquals(DAY, results.get(0).getConversion().getEffectiveDate());
+        verify(exchangeRateService, never()).getExchangeRate(any(), any());
+    }
+
+    @Test
+    void convert_ShouldStreamOneResultLinePerItem() throws Exception {
+        String input = "{\"amount\":100,\"currency\":\"USD\",\"date\":\"2025-06-04\"}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"amount\":5,\"currency\":\"XYZ\",\"date\":\"2025-06-04\"}";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long items = batchConversionService.convert(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, RateFallback.EXACT);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, items);
+        assertEquals(3, lines.length);
+        assertEquals(0, objectMapper.readTree(lines[0]).get("index").asInt());
+        assertEquals("87.842586", objectMapper.readTree(lines[0]).get("conversion").get("converted_amount").asText());
+        assertEquals(400, objectMapper.readTree(lines[1]).get("status").asInt());
+        assertEquals(2, objectMapper.readTree(lines[2]).get("index").asInt());
+        assertEquals(404, objectMapper.readTree(lines[2]).get("status").asInt());
+    }
+
+    @Test
+    void convert_ShouldRefuseOverlongLineAlone_WithoutLosingTheNext() throws Exception {
+        String item = "{\"amount\":100,\"currency\":\"USD\",\"date\":\"2025-06-04\"}";
+        String input = item + "\r\n"
+                + " ".repeat(BatchConversionService.MAX_ITEM_CHARS - item.length()) + item + "\r\n"
+                + "[" + "1,".repeat(BatchConversionService.MAX_ITEM_CHARS * 100) + "1]\n"
+                + item;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long items = batchConversionService.convert(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, RateFallback.EXACT);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, items);
+        assertEquals(200, objectMapper.readTree(lines[0]).get("status").asInt());
+        assertEquals(200, objectMapper.readTree(lines[1]).get("status").asInt());
+        assertEquals(400, objectMapper.readTree(lines[2]).get("status").asInt());
+        assertEquals("Item is longer than " + BatchConversionService.MAX_ITEM_CHARS + " characters",
+                objectMapper.readTree(lines[2]).get("error").asText());
+        assertEquals(3, objectMapper.readTree(lines[3]).get("index").asInt());
+        assertEquals(200, objectMapper.readTree(lines[3]).get("status").asInt());
+    }
+
+    private JsonNode item(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(json, e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CrossRateMatrixTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 4);
+
+    private final CurrencyRegistry currencyRegistry = new CurrencyRegistry();
+    private final ExchangeRateJdbcReader exchangeRateReader = mock(ExchangeRateJdbcReader.class);
+    private final RateIndex rateIndex = spy(new RateIndex(currencyRegistry, exchangeRateReader));
+    private final CrossRateMatrix crossRateMatrix =
+            new CrossRateMatrix(currencyRegistry, rateIndex, exchangeRateReader, new ConcurrentMapCacheManager());
+
+    @Test
+    void crossRate_ShouldTriangulateThroughEur() {
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                new RateRecord(DAY, "GBP", new BigDecimal("0.8421")),
+                new RateRecord(DAY, "JPY", new BigDecimal("164.15"))));
+
+        assertEquals(new BigDecimal("0.8421").divide(new BigDecimal("1.1384"), MathContext.DECIMAL64),
+                crossRateMatrix.crossRate("USD", "GBP", DAY));
+        assertEquals(0, new BigDecimal("194.929343").compareTo(
+                crossRateMatrix.crossRate("gbp", "JPY", DAY).setScale(6, RoundingMode.HALF_UP)));
+        assertEquals(0, new BigDecimal("1.1384").compareTo(crossRateMatrix.crossRate("EUR", "USD", DAY)));
+        assertEquals(0, BigDecimal.ONE.compareTo(
+                crossRateMatrix.crossRate("USD", "EUR", DAY).multiply(new BigDecimal("1.1384"), MathContext.DECIMAL64)));
+        assertEquals(BigDecimal.ONE, crossRateMatrix.crossRate("USD", "usd", DAY));
+        verifyNoInteractions(exchangeRateReader);
+    }
+
+    @Test
+    void crossRate_ShouldBuildEachDateOnce() {
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                new RateRecord(DAY, "GBP", new BigDecimal("0.8421"))));
+
+        crossRateMatrix.crossRate("USD", "GBP", DAY);
+        crossRateMatrix.crossRate("GBP", "USD", DAY);
+        crossRateMatrix.crossRate("EUR", "GBP", DAY);
+
+        verify(rateIndex, times(currencyRegistry.current().size())).findUnscaled(anyInt(), eq(DAY.toEpochDay()));
+    }
+
+    @Test
+    void crossRate_ShouldNameTheCurrencyWithoutRate() {
+        rateIndex.putAll(List.of(new RateRecord(DAY, "USD", new BigDecimal("1.1384"))));
+
+        ExchangeRateNotFoundException missingTarget = assertThrows(ExchangeRateNotFoundException.class,
+                () -> crossRateMatrix.crossRate("USD", "GBP", DAY));
+        ExchangeRateNotFoundException unknownSource = assertThrows(ExchangeRateNotFoundException.class,
+                () -> crossRateMatrix.crossRate("XYZ", "USD", DAY));
+
+        assertTrue(missingTarget.getMessage().contains("'GBP'"), missingTarget.getMessage());
+        assertTrue(unknownSource.getMessage().contains("'XYZ'"), unknownSource.getMessage());
+    }
+
+    @Test
+    void crossRate_ShouldReadTheStore_WhenIndexHasNothingForTheDate() {
+        when(exchangeRateReader.findPage(eq(List.of()), eq(DAY), eq(DAY), isNull(), anyInt())).thenReturn(Arrays.asList(
+                new ExchangeRateDto("GBP", "British Pound", DAY, new BigDecimal("0.842100")),
+                new ExchangeRateDto("USD", "US Dollar", DAY, new BigDecimal("1.138400"))));
+
+        BigDecimal rate = crossRateMatrix.crossRate("GBP", "USD", DAY);
+        crossRateMatrix.crossRate("USD", "GBP", DAY);
+
+        assertEquals(0, new BigDecimal("1.138400").divide(new BigDecimal("0.842100"), MathContext.DECIMAL64).compareTo(rate));
+        verify(exchangeRateReader, times(1)).findPage(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void crossRate_ShouldNotCacheDayWithoutRates() {
+        assertThrows(ExchangeRateNotFoundException.class, () -> crossRateMatrix.crossRate("USD", "GBP", DAY));
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.1384")),
+                new RateRecord(DAY, "GBP", new BigDecimal("0.8421"))));
+
+        assertEquals(new BigDecimal("0.8421").divide(new BigDecimal("1.1384"), MathContext.DECIMAL64),
+                crossRateMatrix.crossRate("USD", "GBP", DAY));
+    }
+}
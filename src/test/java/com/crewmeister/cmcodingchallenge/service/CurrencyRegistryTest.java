@@ -0,0 +1,86 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyRegistryTest {
+
+    private final CurrencyRegistry registry = new CurrencyRegistry();
+
+    @Test
+    void shouldKnowEcbCurrenciesOutOfTheBox() {
+        assertEquals(30, registry.current().size());
+        assertEquals("US Dollar", registry.getName("USD"));
+        assertEquals(0, registry.ordinal("USD"));
+    }
+
+    @Test
+    void shouldMarkCurrenciesStoredOnlyOnceRegistered() {
+        int usd = registry.ordinal("USD");
+        assertFalse(registry.current().isStored(usd));
+
+        registry.register(Map.of("USD", "US Dollar", "XAU", "Gold"));
+
+        assertTrue(registry.current().isStored(usd));
+        assertTrue(registry.current().isStored(registry.ordinal("XAU")));
+        assertFalse(registry.current().isStored(registry.ordinal("JPY")));
+        assertEquals(usd, registry.ordinal("USD"));
+    }
+
+    @Test
+    void shouldResolveCodesCaseInsensitivelyToInternedInstance() {
+        String canonical = registry.canonicalCode("USD");
+
+        assertSame(canonical, registry.canonicalCode("usd"));
+        assertSame(canonical, registry.canonicalCode(new StringBuilder("uSd")));
+        assertEquals(registry.ordinal("USD"), registry.ordinal("usd"));
+    }
+
+    @Test
+    void shouldRejectMalformedCodes() {
+        assertEquals(-1, registry.ordinal(null));
+        assertEquals(-1, registry.ordinal("US"));
+        assertEquals(-1, registry.ordinal("USDX"));
+        assertEquals(-1, registry.ordinal("U$D"));
+        assertEquals(-1, registry.ordinal("1SD"));
+        assertEquals(-1, registry.ordinal("Ü S"));
+        assertFalse(CurrencyRegistry.isCurrencyCode("{AB"));
+        assertTrue(CurrencyRegistry.isCurrencyCode("zzz"));
+    }
+
+    @Test
+    void registerShouldAppendOrdinalsAndSwapTable() {
+        CurrencyRegistry.Table before = registry.current();
+        int usd = registry.ordinal("USD");
+
+        Map<String, String> update = new LinkedHashMap<>();
+        update.put("xau", "Gold");
+        update.put("USD", "United States Dollar");
+        registry.register(update);
+
+        CurrencyRegistry.Table after = registry.current();
+        assertNotSame(before, after);
+        assertEquals(30, after.ordinal("XAU"));
+        assertEquals("XAU", after.code(30));
+        assertEquals(usd, after.ordinal("USD"));
+        assertEquals("United States Dollar", registry.getName("USD"));
+
+        // a reader holding the old table is unaffected
+        assertEquals(-1, before.ordinal("XAU"));
+        assertEquals("US Dollar", before.name(usd));
+    }
+
+    @Test
+    void registerShouldKeepTableWhenNothingChanges() {
+        registry.register(Map.of("USD", "US Dollar"));
+        CurrencyRegistry.Table before = registry.current();
+
+        registry.register(Map.of("USD", "US Dollar", "12$", "Broken"));
+
+        assertSame(before, registry.current());
+    }
+}
@@ -0,0 +1,290 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.dto.IngestionResult;
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateIngestionServiceTest {
+
+    @Mock
+    private BundesbankApiClient bundesbankApiClient;
+
+    @Mock
+    private RateAggregationService rateAggregation;
+
+    @Mock
+    private ExchangeRateJdbcWriter exchangeRateWriter;
+
+    @Mock
+    private ExchangeRateJdbcReader exchangeRateReader;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private RateSnapshotService snapshotService;
+
+    @Mock
+    private RateArchive rateArchive;
+
+    private final CurrencyRegistry currencyRegistry = new CurrencyRegistry();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+    private RateIndex rateIndex;
+    private Scheduler scheduler;
+    private ExchangeRateIngestionService ingestionService;
+    private LocalDate testDate;
+    private BundesbankResponse successfulResponse;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Schedulers.newBoundedElastic(1, 4, "test-ingestion");
+        rateIndex = new RateIndex(currencyRegistry, exchangeRateReader);
+        ingestionService = new ExchangeRateIngestionService(
+                bundesbankApiClient, rateAggregation, exchangeRateWriter, cacheManager, transactionManager,
+                scheduler, snapshotService, rateArchive, currencyRegistry, rateIndex, datasetVersion, new IngestionMetrics(meterRegistry));
+        testDate = LocalDate.of(2025, 6, 4);
+
+        successfulResponse = BundesbankResponse.success(testDate, "ECB");
+        successfulResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
+        successfulResponse.addCurrency("GBP", "British Pound Sterling", new BigDecimal("0.8426"));
+        successfulResponse.addCurrency("JPY", "Japanese Yen", new BigDecimal("164.62"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void ingestLatest_ShouldCompleteAfterWriteAndEviction() {
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        long version = datasetVersion.current();
+        List<Long> versionsAtAppend = new ArrayList<>();
+        doAnswer(invocation -> versionsAtAppend.add(datasetVersion.current())).when(rateArchive).append(anyCollection());
+
+        IngestionResult result = ingestionService.ingestLatest().block();
+
+        assertNotNull(result);
+        assertTrue(result.isStored());
+        assertEquals(testDate, result.getDate());
+        assertEquals(3, result.getRates());
+        assertTrue(datasetVersion.current() > version);
+
+        InOrder order = inOrder(transactionManager, exchangeRateWriter, cache, rateArchive, snapshotService);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(exchangeRateWriter).upsertCurrencies(anyMap());
+        order.verify(exchangeRateWriter).upsertRates(anyCollection());
+        order.verify(transactionManager).commit(any());
+        order.verify(rateArchive).append(argThat(records -> records.size() == 3));
+        order.verify(cache, times(3)).clear();
+        order.verify(snapshotService).save();
+        assertEquals(List.of(version), versionsAtAppend);
+        verify(bundesbankApiClient, never()).markIngested(any());
+    }
+
+    @Test
+    void ingestLatest_ShouldRegisterNewCurrenciesAfterStoring() {
+        successfulResponse.addCurrency("XAU", "Gold", new BigDecimal("0.0005"));
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+
+        ingestionService.ingestLatest().block();
+
+        assertEquals("Gold", currencyRegistry.getName("XAU"));
+        assertEquals(new BigDecimal("0.000500"), rateIndex.find("XAU", testDate));
+        assertEquals(new BigDecimal("1.141100"), rateIndex.find("USD", testDate));
+    }
+
+    @Test
+    void ingestLatest_ShouldWriteOnIngestionScheduler() {
+        AtomicReference<String> writerThread = new AtomicReference<>();
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+        when(exchangeRateWriter.upsertRates(anyCollection())).thenAnswer(invocation -> {
+            writerThread.set(Thread.currentThread().getName());
+            return 3;
+        });
+
+        ingestionService.ingestLatest().block();
+
+        assertTrue(writerThread.get().startsWith("test-ingestion"), writerThread.get());
+    }
+
+    @Test
+    void ingestLatest_ShouldUpsertCurrencyNames() {
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+
+        ingestionService.ingestLatest().block();
+
+        ArgumentCaptor<Map<String, String>> currencyCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(exchangeRateWriter).upsertCurrencies(currencyCaptor.capture());
+        Map<String, String> savedCurrencies = currencyCaptor.getValue();
+
+        assertEquals(3, savedCurrencies.size());
+        assertEquals("US Dollar", savedCurrencies.get("USD"));
+        assertEquals("British Pound Sterling", savedCurrencies.get("GBP"));
+        assertEquals("Japanese Yen", savedCurrencies.get("JPY"));
+    }
+
+    @Test
+    void ingestLatest_ShouldUpsertRatesForResponseDate() {
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+
+        ingestionService.ingestLatest().block();
+
+        ArgumentCaptor<Collection<RateRecord>> rateCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(exchangeRateWriter).upsertRates(rateCaptor.capture());
+        Collection<RateRecord> savedRates = rateCaptor.getValue();
+
+        assertEquals(3, savedRates.size());
+        assertTrue(savedRates.stream().allMatch(r -> testDate.equals(r.getDate())));
+
+        RateRecord usdRate = savedRates.stream()
+                .filter(r -> "USD".equals(r.getCurrencyCode()))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(usdRate);
+        assertEquals(new BigDecimal("1.1411"), usdRate.getRate());
+    }
+
+    @Test
+    void ingestLatest_ShouldDropNonPositiveRates() {
+        successfulResponse.addCurrency("XXX", "Broken", BigDecimal.ZERO);
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+
+        IngestionResult result = ingestionService.ingestLatest().block();
+
+        assertNotNull(result);
+        assertEquals(3, result.getRates());
+        ArgumentCaptor<Collection<RateRecord>> rateCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(exchangeRateWriter).upsertRates(rateCaptor.capture());
+        assertTrue(rateCaptor.getValue().stream().noneMatch(r -> "XXX".equals(r.getCurrencyCode())));
+    }
+
+    @Test
+    void ingestLatest_ShouldRecordStageMetrics() {
+        successfulResponse.addCurrency("XXX", "Broken", BigDecimal.ZERO);
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        when(exchangeRateWriter.upsertRates(anyCollection())).thenReturn(2);
+
+        ingestionService.ingestLatest().block();
+
+        assertEquals(1, meterRegistry.get(IngestionMetrics.ROWS_REJECTED).tag("stage", "validate").counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.WRITE).tag("source", "daily").timer().count());
+        assertEquals(2, meterRegistry.get(IngestionMetrics.ROWS_WRITTEN).tags("source", "daily", "result", "inserted").counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.ROWS_WRITTEN).tags("source", "daily", "result", "updated").counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.CACHE_EVICTIONS).tag("cache", "exchangeRates").counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.CACHE_EVICTIONS).tag("cache", "missingRates").counter().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.RUNS).tag("status", "stored").counter().count());
+        assertTrue(meterRegistry.get(IngestionMetrics.LAST_SUCCESS).gauge().value() > 0);
+    }
+
+    @Test
+    void ingestLatest_ShouldFailOnApiError() {
+        when(rateAggregation.fetchLatest())
+                .thenReturn(Mono.error(new RuntimeException("API connection failed")));
+
+        IngestionResult result = ingestionService.ingestLatest().block();
+
+        assertNotNull(result);
+        assertEquals(IngestionResult.Status.FAILED, result.getStatus());
+        assertEquals("API connection failed", result.getErrorMessage());
+        verifyNoInteractions(exchangeRateWriter, cacheManager);
+    }
+
+    @Test
+    void ingestLatest_ShouldFailWithoutEvictionWhenWriterFails() {
+        when(rateAggregation.fetchLatest()).thenReturn(Mono.just(successfulResponse));
+        when(exchangeRateWriter.upsertCurrencies(anyMap())).thenThrow(new RuntimeException("Database unavailable"));
+        long version = datasetVersion.current();
+
+        IngestionResult result = ingestionService.ingestLatest().block();
+        assertEquals(version, datasetVersion.current());
+
+        assertNotNull(result);
+        assertEquals(IngestionResult.Status.FAILED, result.getStatus());
+        assertEquals(0, rateIndex.size());
+        verify(exchangeRateWriter, never()).upsertRates(anyCollection());
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(cacheManager, rateArchive, snapshotService);
+        verify(bundesbankApiClient, never()).markIngested(any());
+    }
+
+    @Test
+    void refresh_ShouldRememberValidatorsAfterStoring() {
+        when(bundesbankApiClient.getExchangeRatesIfChanged()).thenReturn(Mono.just(successfulResponse));
+
+        IngestionResult result = ingestionService.refresh().block();
+
+        assertNotNull(result);
+        assertTrue(result.isStored());
+        verify(bundesbankApiClient).markIngested(successfulResponse);
+    }
+
+    @Test
+    void refresh_ShouldSkipStorageWhenUnchanged() {
+        when(bundesbankApiClient.getExchangeRatesIfChanged()).thenReturn(Mono.empty());
+        String etag = datasetVersion.etag();
+
+        IngestionResult result = ingestionService.refresh().block();
+        assertEquals(etag, datasetVersion.etag());
+
+        assertNotNull(result);
+        assertEquals(IngestionResult.Status.UNCHANGED, result.getStatus());
+        verifyNoInteractions(exchangeRateWriter, cacheManager, transactionManager);
+        verify(bundesbankApiClient, never()).markIngested(any());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.FETCH).tags("provider", "ECB", "outcome", "not_modified").timer().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.RUNS).tag("status", "unchanged").counter().count());
+    }
+
+    @Test
+    void refresh_ShouldNotRememberValidatorsOnFailure() {
+        when(bundesbankApiClient.getExchangeRatesIfChanged())
+                .thenReturn(Mono.just(BundesbankResponse.failure("ECB API call failed")));
+
+        IngestionResult result = ingestionService.refresh().block();
+
+        assertNotNull(result);
+        assertEquals(IngestionResult.Status.FAILED, result.getStatus());
+        verifyNoInteractions(exchangeRateWriter, cacheManager);
+        verify(bundesbankApiClient, never()).markIngested(any());
+    }
+}
@@ -1,32 +1,41 @@
 package com.crewmeister.cmcodingchallenge.service;
 
-import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
 import com.crewmeister.cmcodingchallenge.currency.CurrencyConversionRates;
-import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
 import com.crewmeister.cmcodingchallenge.dto.ExchangeRateDto;
+import com.crewmeister.cmcodingchallenge.dto.RatePage;
+import com.crewmeister.cmcodingchallenge.dto.RatePageCursor;
+import com.crewmeister.cmcodingchallenge.dto.RateSeries;
+import com.crewmeister.cmcodingchallenge.dto.RateStatistics;
 import com.crewmeister.cmcodingchallenge.entity.Currency;
 import com.crewmeister.cmcodingchallenge.entity.ExchangeRate;
 import com.crewmeister.cmcodingchallenge.exception.ExchangeRateNotFoundException;
-import com.crewmeister.cmcodingchallenge.repository.CurrencyRepository;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
 import com.crewmeister.cmcodingchallenge.repository.ExchangeRateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import reactor.core.publisher.Mono;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,22 +45,30 @@ class ExchangeRateServiceTest {
     private ExchangeRateRepository exchangeRateRepository;
 
     @Mock
-    private CurrencyRepository currencyRepository;
+    private ExchangeRateJdbcReader exchangeRateReader;
+
+    @Spy
+    private CurrencyRegistry currencyRegistry = new CurrencyRegistry();
 
     @Mock
-    private CurrencyService currencyService;
+    private RateIndex rateIndex;
 
-    @InjectMocks
-    private ExchangeRateService exchangeRateService;
+    @Mock
+    private CrossRateMatrix crossRateMatrix;
 
     @Mock
-    private BundesbankApiClient bundesbankApiClient;
+    private RateArchive rateArchive;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @InjectMocks
+    private ExchangeRateService exchangeRateService;
 
     private Currency usdCurrency;
     private Currency gbpCurrency;
     private Currency jpyCurrency;
     private LocalDate testDate;
-    private BundesbankResponse successfulResponse;
 
     @BeforeEach
     void setUp() {
@@ -59,50 +76,6 @@ class ExchangeRateServiceTest {
         gbpCurrency = new Currency("GBP", "British Pound");
         jpyCurrency = new Currency("JPY", "Japanese Yen");
         testDate = LocalDate.of(2025, 6, 4);
-
-        successfulResponse = BundesbankResponse.success(testDate, "ECB");
-        successfulResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
-        successfulResponse.addCurrency("GBP", "British Pound Sterling", new BigDecimal("0.8426"));
-        successfulResponse.addCurrency("JPY", "Japanese Yen", new BigDecimal("164.62"));
-    }
-
-    @Test
-    void getAllExchangeRates_ShouldReturnAllRates() {
-        List<ExchangeRate> mockRates = Arrays.asList(
-                new ExchangeRate(usdCurrency, testDate, new BigDecimal("1.1384")),
-                new ExchangeRate(gbpCurrency, testDate, new BigDecimal("0.84210")),
-                new ExchangeRate(jpyCurrency, testDate, new BigDecimal("164.15")),
-                new ExchangeRate(usdCurrency, testDate.minusDays(1), new BigDecimal("1.1345"))
-        );
-        when(exchangeRateRepository.findAllWithCurrency()).thenReturn(mockRates);
-
-        List<ExchangeRateDto> result = exchangeRateService.getAllExchangeRates();
-
-        assertNotNull(result);
-        assertEquals(4, result.size());
-
-        ExchangeRateDto usdRate = result.get(0);
-        assertEquals("USD", usdRate.getCurrencyCode());
-        assertEquals("US Dollar", usdRate.getCurrencyName());
-        assertEquals(testDate, usdRate.getDate());
-        assertEquals(new BigDecimal("1.1384"), usdRate.getRate());
-
-        ExchangeRateDto gbpRate = result.get(1);
-        assertEquals("GBP", gbpRate.getCurrencyCode());
-        assertEquals("British Pound", gbpRate.getCurrencyName());
-        assertEquals(new BigDecimal("0.84210"), gbpRate.getRate());
-
-        ExchangeRateDto jpyRate = result.get(2);
-        assertEquals("JPY", jpyRate.getCurrencyCode());
-        assertEquals("Japanese Yen", jpyRate.getCurrencyName());
-        assertEquals(new BigDecimal("164.15"), jpyRate.getRate());
-
-        ExchangeRateDto historicalRate = result.get(3);
-        assertEquals("USD", historicalRate.getCurrencyCode());
-        assertEquals(testDate.minusDays(1), historicalRate.getDate());
-        assertEquals(new BigDecimal("1.1345"), historicalRate.getRate());
-
-        verify(exchangeRateRepository, times(1)).findAllWithCurrency();
     }
 
     @Test
@@ -132,6 +105,45 @@ class ExchangeRateServiceTest {
         verify(exchangeRateRepository, times(1)).findByCurrencyCodeAndRateDate(jpyCode, yesterday);
     }
 
+    @Test
+    void getExchangeRateStatistics_ShouldUseIndexWindow() {
+        currencyRegistry.register(Collections.singletonMap("USD", "US Dollar"));
+        when(rateIndex.window(currencyRegistry.ordinal("USD"), testDate.minusDays(1).toEpochDay(), Long.MAX_VALUE))
+                .thenReturn(RateWindowStats.scan(new long[]{testDate.minusDays(1).toEpochDay(), testDate.toEpochDay()},
+                        new long[]{1_134_500, 1_138_400}));
+
+        RateStatistics statistics = exchangeRateService.getExchangeRateStatistics("usd", testDate.minusDays(1), null);
+
+        assertEquals("USD", statistics.getCurrencyCode());
+        assertEquals("US Dollar", statistics.getCurrencyName());
+        assertEquals(2, statistics.getCount());
+        assertEquals(new BigDecimal("1.136450"), statistics.getMean());
+        assertEquals(new BigDecimal("0.002758"), statistics.getStddev());
+        assertEquals(testDate, statistics.getLastDate());
+        verifyNoInteractions(exchangeRateReader);
+    }
+
+    @Test
+    void getExchangeRateStatistics_ShouldReadStore_WhenIndexHasNoRates() {
+        currencyRegistry.register(Map.of("GBP", "British Pound Sterling"));
+        Map<LocalDate, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put(testDate.minusDays(1), new BigDecimal("0.8480"));
+        rates.put(testDate, new BigDecimal("0.8520"));
+        when(rateIndex.window(anyInt(), anyLong(), anyLong())).thenReturn(RateWindowStats.EMPTY);
+        when(exchangeRateReader.findSeries("GBP", null, testDate)).thenReturn(rates);
+
+        RateStatistics statistics = exchangeRateService.getExchangeRateStatistics("GBP", null, testDate);
+
+        assertEquals(currencyRegistry.getName("GBP"), statistics.getCurrencyName());
+        assertEquals(2, statistics.getCount());
+        assertEquals(new BigDecimal("0.848000"), statistics.getMin());
+        assertEquals(new BigDecimal("0.852000"), statistics.getLast());
+
+        when(exchangeRateReader.findSeries("XYZ", null, null)).thenReturn(Collections.emptyMap());
+        assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRateStatistics("XYZ", null, null));
+    }
+
     @Test
     void convertCurrency_ShouldHandleEurToEurConversion() {
         BigDecimal amount = new BigDecimal("100.00");
@@ -197,13 +209,27 @@ class ExchangeRateServiceTest {
         verify(exchangeRateRepository, times(1)).findByCurrencyCodeAndRateDate("JPY", testDate);
     }
 
+    @Test
+    void convertCurrency_ShouldApplyCrossRate_BetweenAnyTwoCurrencies() {
+        BigDecimal crossRate = new BigDecimal("0.8421").divide(new BigDecimal("1.1384"), MathContext.DECIMAL64);
+        when(crossRateMatrix.crossRate("usd", "GBP", testDate)).thenReturn(crossRate);
+        when(crossRateMatrix.crossRate("EUR", "usd", testDate)).thenReturn(new BigDecimal("1.1384"));
+
+        CurrencyConversionRates result = exchangeRateService.convertCurrency(new BigDecimal("100.00"), "usd", "GBP", testDate);
+
+        assertEquals("USD", result.getOriginalCurrency());
+        assertEquals("GBP", result.getTargetCurrency());
+        assertEquals(crossRate, result.getCrossRate());
+        // Same meaning as on the EUR endpoint: units of the original currency per EUR
+        assertEquals(new BigDecimal("1.1384"), result.getExchangeRate());
+        assertEquals(new BigDecimal("73.972242"), result.getConvertedAmount());
+        verifyNoInteractions(exchangeRateRepository, rateIndex);
+    }
+
     @Test
     void convertCurrency_ShouldThrowException_WhenExchangeRateNotFound() {
         BigDecimal amount = new BigDecimal("100.00");
         String currency = "SOMETHING";
-        when(exchangeRateRepository.findByCurrencyCodeAndRateDate("SOMETHING", testDate))
-                .thenReturn(Optional.empty())
-                .thenReturn(Optional.empty());
 
         ExchangeRateNotFoundException exception = assertThrows(
                 ExchangeRateNotFoundException.class,
@@ -213,143 +239,164 @@ class ExchangeRateServiceTest {
         assertTrue(exception.getMessage().contains("SOMETHING"));
         assertTrue(exception.getMessage().contains(testDate.toString()));
 
-        verify(exchangeRateRepository, times(1)).findByCurrencyCodeAndRateDate("SOMETHING", testDate);
+        verifyNoInteractions(exchangeRateRepository);
+    }
+
+    @Test
+    void getExchangeRate_ShouldStillQueryCurrenciesUnknownToRegistry() {
+        when(exchangeRateRepository.findByCurrencyCodeAndRateDate("XAU", testDate)).thenReturn(Optional.empty());
+
+        assertThrows(ExchangeRateNotFoundException.class, () -> exchangeRateService.getExchangeRate("xau", testDate));
+
+        verify(exchangeRateRepository).findByCurrencyCodeAndRateDate("XAU", testDate);
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldSucceed() {
-        Currency usdCurrency = new Currency("USD", "US Dollar");
-        Currency gbpCurrency = new Currency("GBP", "British Pound Sterling");
-        Currency jpyCurrency = new Currency("JPY", "Japanese Yen");
-
-        when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(successfulResponse));
-        when(currencyService.findByCode("USD")).thenReturn(Optional.of(usdCurrency));
-        when(currencyService.findByCode("GBP")).thenReturn(Optional.of(gbpCurrency));
-        when(currencyService.findByCode("JPY")).thenReturn(Optional.of(jpyCurrency));
-        when(exchangeRateRepository.findByRateDate(testDate)).thenReturn(Collections.emptyList());
-        when(currencyRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-        when(exchangeRateRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-
-        exchangeRateService.fetchAndStoreExchangeRates();
-
-        verify(bundesbankApiClient, timeout(1000)).getExchangeRates();
-
-        ArgumentCaptor<List<Currency>> currencyCaptor = ArgumentCaptor.forClass(List.class);
-        verify(currencyRepository).saveAll(currencyCaptor.capture());
-        List<Currency> savedCurrencies = currencyCaptor.getValue();
-        assertEquals(3, savedCurrencies.size());
-
-        ArgumentCaptor<List<ExchangeRate>> rateCaptor = ArgumentCaptor.forClass(List.class);
-        verify(exchangeRateRepository).saveAll(rateCaptor.capture());
-        List<ExchangeRate> savedRates = rateCaptor.getValue();
-        assertEquals(3, savedRates.size());
-
-        verify(currencyService, atLeast(1)).findByCode("USD");
-        verify(currencyService, atLeast(1)).findByCode("GBP");
-        verify(currencyService, atLeast(1)).findByCode("JPY");
+    void getExchangeRate_ShouldUseCanonicalRegistryCode() {
+        when(exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", testDate)).thenReturn(Optional.empty());
+
+        assertThrows(ExchangeRateNotFoundException.class, () -> exchangeRateService.getExchangeRate("usd", testDate));
+
+        verify(exchangeRateRepository).findByCurrencyCodeAndRateDate(same(currencyRegistry.canonicalCode("USD")), eq(testDate));
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldHandleApiError() {
-        when(bundesbankApiClient.getExchangeRates())
-                .thenReturn(Mono.error(new RuntimeException("API connection failed")));
+    void getExchangeRate_ShouldRememberMissingRateUntilEvicted() {
+        when(exchangeRateRepository.findByCurrencyCodeAndRateDate("USD", testDate)).thenReturn(Optional.empty());
 
-        exchangeRateService.fetchAndStoreExchangeRates();
+        assertThrows(ExchangeRateNotFoundException.class, () -> exchangeRateService.getExchangeRate("USD", testDate));
+        ExchangeRateNotFoundException exception = assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRate("usd", testDate));
+        verify(exchangeRateRepository, times(1)).findByCurrencyCodeAndRateDate("USD", testDate);
+        assertEquals(0, exception.getStackTrace().length);
+        assertTrue(exception.getMessage().contains("usd"));
 
-        verify(bundesbankApiClient, timeout(1000)).getExchangeRates();
-        verify(currencyRepository, never()).saveAll(anyList());
-        verify(exchangeRateRepository, never()).saveAll(anyList());
+        cacheManager.getCache("missingRates").clear();
+        assertThrows(ExchangeRateNotFoundException.class, () -> exchangeRateService.getExchangeRate("USD", testDate));
+        verify(exchangeRateRepository, times(2)).findByCurrencyCodeAndRateDate("USD", testDate);
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldUpdateExistingCurrencies() {
-        Currency existingUsd = new Currency("USD", "Old US Dollar Name");
-        Currency existingGbp = new Currency("GBP", "British Pound");
-        Currency newJpy = new Currency("JPY", "Japanese Yen");
-
-        when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(successfulResponse));
-        when(currencyService.findByCode("USD")).thenReturn(Optional.of(existingUsd));
-        when(currencyService.findByCode("GBP")).thenReturn(Optional.of(existingGbp));
-        when(currencyService.findByCode("JPY"))
-                .thenReturn(Optional.empty())
-                .thenReturn(Optional.of(newJpy));
-        when(exchangeRateRepository.findByRateDate(testDate)).thenReturn(Collections.emptyList());
-        when(currencyRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-        when(exchangeRateRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-
-        exchangeRateService.fetchAndStoreExchangeRates();
-
-        verify(bundesbankApiClient, timeout(1000)).getExchangeRates();
-
-        ArgumentCaptor<List<Currency>> currencyCaptor = ArgumentCaptor.forClass(List.class);
-        verify(currencyRepository).saveAll(currencyCaptor.capture());
-        List<Currency> savedCurrencies = currencyCaptor.getValue();
-
-        assertEquals(3, savedCurrencies.size());
-
-        Currency updatedUsd = savedCurrencies.stream()
-                .filter(c -> "USD".equals(c.getCode()))
-                .findFirst()
-                .orElse(null);
-        assertNotNull(updatedUsd);
-        assertEquals("US Dollar", updatedUsd.getName());
+    void getExchangeRate_ShouldServeIndexedRateWithoutQuerying() {
+        when(rateIndex.findUnscaled(currencyRegistry.ordinal("USD"), testDate.toEpochDay())).thenReturn(1_141_100L);
+
+        ExchangeRateDto result = exchangeRateService.getExchangeRate("usd", testDate);
+
+        assertEquals("USD", result.getCurrencyCode());
+        assertEquals("US Dollar", result.getCurrencyName());
+        assertEquals(testDate, result.getDate());
+        assertEquals(new BigDecimal("1.141100"), result.getRate());
+        verifyNoInteractions(exchangeRateRepository);
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldUpdateExistingRates() {
-        Currency usdCurrency = new Currency("USD", "US Dollar");
-        Currency gbpCurrency = new Currency("GBP", "British Pound Sterling");
+    void getExchangeRate_ShouldServeArchivedRate_WhenNotIndexed() {
+        when(rateArchive.findUnscaled("usd", testDate.toEpochDay())).thenReturn(1_141_100L);
 
-        ExchangeRate existingUsdRate = new ExchangeRate(usdCurrency, testDate, new BigDecimal("1.0000"));
-        List<ExchangeRate> existingRates = Arrays.asList(existingUsdRate);
+        ExchangeRateDto result = exchangeRateService.getExchangeRate("usd", testDate);
 
-        BundesbankResponse singleCurrencyResponse = BundesbankResponse.success(testDate, "ECB");
-        singleCurrencyResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
-        singleCurrencyResponse.addCurrency("GBP", "British Pound Sterling", new BigDecimal("0.8426"));
+        assertEquals("USD", result.getCurrencyCode());
+        assertEquals(new BigDecimal("1.141100"), result.getRate());
+        verifyNoInteractions(exchangeRateRepository);
+    }
 
-        when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(singleCurrencyResponse));
-        when(currencyService.findByCode("USD")).thenReturn(Optional.of(usdCurrency));
-        when(currencyService.findByCode("GBP")).thenReturn(Optional.of(gbpCurrency));
-        when(exchangeRateRepository.findByRateDate(testDate)).thenReturn(existingRates);
-        when(currencyRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-        when(exchangeRateRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
+    @Test
+    void getExchangeRateSeries_ShouldScanArchive_WhenComplete() {
+        currencyRegistry.register(Map.of("GBP", "British Pound Sterling"));
+        when(rateArchive.isComplete()).thenReturn(true);
+        when(rateArchive.forEachRate(eq("GBP"), eq(testDate.minusDays(1).toEpochDay()), eq(Long.MAX_VALUE), any()))
+                .thenAnswer(invocation -> {
+                    RateArchive.RateVisitor visitor = invocation.getArgument(3);
+                    visitor.accept(testDate.minusDays(1).toEpochDay(), 848_000L);
+                    visitor.accept(testDate.toEpochDay(), 852_000L);
+                    return 2;
+                });
+
+        RateSeries series = exchangeRateService.getExchangeRateSeries("gbp", testDate.minusDays(1), null);
+
+        assertEquals(List.of(testDate.minusDays(1), testDate), List.copyOf(series.getRates().keySet()));
+        assertEquals(new BigDecimal("0.852000"), series.getRates().get(testDate));
+        verifyNoInteractions(exchangeRateReader);
+    }
 
-        exchangeRateService.fetchAndStoreExchangeRates();
+    @Test
+    void getExchangeRateSeries_ShouldThrow_WhenPreRegisteredCurrencyWasNeverStored() {
+        when(exchangeRateReader.findSeries("ZAR", null, null)).thenReturn(Collections.emptyMap());
 
-        verify(bundesbankApiClient, timeout(1000)).getExchangeRates();
+        assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRateSeries("ZAR", null, null));
+        verify(exchangeRateReader).findCurrencyName("ZAR");
+    }
 
-        ArgumentCaptor<List<ExchangeRate>> rateCaptor = ArgumentCaptor.forClass(List.class);
-        verify(exchangeRateRepository).saveAll(rateCaptor.capture());
-        List<ExchangeRate> savedRates = rateCaptor.getValue();
+    @Test
+    void getExchangeRates_ShouldTrimProbeRowAndReturnCursor() {
+        List<ExchangeRateDto> rows = Arrays.asList(
+                new ExchangeRateDto("GBP", "British Pound", testDate, new BigDecimal("0.8421")),
+                new ExchangeRateDto("USD", "US Dollar", testDate, new BigDecimal("1.1384")),
+                new ExchangeRateDto("GBP", "British Pound", testDate.minusDays(1), new BigDecimal("0.8520")));
+        when(exchangeRateReader.findPage(anyCollection(), isNull(), isNull(), isNull(), eq(3))).thenReturn(rows);
+
+        RatePage page = exchangeRateService.getExchangeRates(List.of("gbp", "USD", "usd"), null, null, null, 2);
+
+        assertEquals(2, page.getRates().size());
+        assertEquals(new RatePageCursor(testDate, "USD"), page.getNext());
+        verify(exchangeRateReader).findPage(eq(new LinkedHashSet<>(List.of("GBP", "USD"))),
+                isNull(), isNull(), isNull(), eq(3));
+    }
 
-        assertEquals(2, savedRates.size());
+    @Test
+    void getExchangeRates_ShouldNotQuery_WhenOnlyMalformedCurrencies() {
+        RatePage page = exchangeRateService.getExchangeRates(List.of("US", "1234"), null, null, null, 10);
 
-        ExchangeRate updatedUsdRate = savedRates.stream()
-                .filter(r -> "USD".equals(r.getCurrency().getCode()))
-                .findFirst()
-                .orElse(null);
-        assertNotNull(updatedUsdRate);
-        assertEquals(new BigDecimal("1.1411"), updatedUsdRate.getRate());
+        assertTrue(page.getRates().isEmpty());
+        assertFalse(page.hasNext());
+        verifyNoInteractions(exchangeRateReader);
     }
 
     @Test
-    void fetchAndStoreExchangeRates_ShouldHandleCurrencyNotFound() {
-        BundesbankResponse singleCurrencyResponse = BundesbankResponse.success(testDate, "ECB");
-        singleCurrencyResponse.addCurrency("USD", "US Dollar", new BigDecimal("1.1411"));
-
-        when(bundesbankApiClient.getExchangeRates()).thenReturn(Mono.just(singleCurrencyResponse));
-        when(currencyService.findByCode("USD")).thenReturn(Optional.empty());
-        when(exchangeRateRepository.findByRateDate(testDate)).thenReturn(Collections.emptyList());
-        when(currencyRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-
-        assertDoesNotThrow(() -> {
-            exchangeRateService.fetchAndStoreExchangeRates();
-            Thread.sleep(500);
-        });
-
-        verify(bundesbankApiClient, timeout(1000)).getExchangeRates();
-        verify(currencyService, atLeast(1)).findByCode("USD");
-        verify(currencyRepository).saveAll(anyList());
-        verify(exchangeRateRepository, never()).saveAll(anyList());
+    void getExchangeRateOnOrBefore_ShouldServeFloorFromIndex() {
+        LocalDate friday = testDate.plusDays(2);
+        int usd = currencyRegistry.ordinal("USD");
+        when(rateIndex.floorDay(usd, friday.plusDays(1).toEpochDay())).thenReturn(friday.toEpochDay());
+        when(rateIndex.findUnscaled(usd, friday.toEpochDay())).thenReturn(1_141_100L);
+
+        ExchangeRateDto result = exchangeRateService.getExchangeRateOnOrBefore("USD", friday.plusDays(1));
+
+        assertEquals(friday.plusDays(1), result.getDate());
+        assertEquals(friday, result.getEffectiveDate());
+        assertEquals(new BigDecimal("1.141100"), result.getRate());
+        verifyNoInteractions(exchangeRateRepository);
+    }
+
+    @Test
+    void convertCurrencyOnOrBefore_ShouldFallBackToDatabaseFloor() {
+        when(rateIndex.floorDay(anyInt(), anyLong())).thenReturn(Long.MIN_VALUE);
+        when(exchangeRateRepository.findLatestOnOrBefore(eq("USD"), eq(testDate), any()))
+                .thenReturn(List.of(new ExchangeRate(usdCurrency, testDate.minusDays(3), new BigDecimal("1.25"))));
+
+        CurrencyConversionRates result = exchangeRateService.convertCurrencyOnOrBefore(new BigDecimal("100.00"), "USD", testDate);
+
+        assertEquals(new BigDecimal("80.000000"), result.getConvertedAmount());
+        assertEquals(testDate, result.getDate());
+        assertEquals(testDate.minusDays(3), result.getEffectiveDate());
+    }
+
+    @Test
+    void getExchangeRateOnOrBefore_ShouldThrow_WhenNoEarlierRate() {
+        when(rateIndex.floorDay(anyInt(), anyLong())).thenReturn(Long.MIN_VALUE);
+        when(exchangeRateRepository.findLatestOnOrBefore(eq("USD"), eq(testDate), any())).thenReturn(List.of());
+
+        assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRateOnOrBefore("USD", testDate));
+    }
+
+    @Test
+    void convertCurrency_ShouldUseIndexedRate() {
+        when(rateIndex.findUnscaled(currencyRegistry.ordinal("USD"), testDate.toEpochDay())).thenReturn(1_250_000L);
+
+        CurrencyConversionRates result = exchangeRateService.convertCurrency(new BigDecimal("100.00"), "USD", testDate);
+
+        assertEquals(new BigDecimal("80.000000"), result.getConvertedAmount());
+        verifyNoInteractions(exchangeRateRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.client.BundesbankApiClient;
+import com.crewmeister.cmcodingchallenge.client.BundesbankSdmxRateProvider;
+import com.crewmeister.cmcodingchallenge.client.EcbRateProvider;
+import com.crewmeister.cmcodingchallenge.client.EcbXmlParser;
+import com.crewmeister.cmcodingchallenge.dto.BundesbankResponse;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.support.EcbXmlFixtures;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs both providers against local stub servers with artificial latency
+ */
+class RateAggregationServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 12, 15);
+    private static final String BUNDESBANK_CSV =
+            "BBK_STD_CURRENCY,TIME_PERIOD,OBS_VALUE\n" +
+            "USD," + DAY + ",9.9999\n" +
+            "XAU," + DAY + ",0.0005\n";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile long ecbDelayMillis;
+    private volatile long bundesbankDelayMillis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/ecb", exchange -> respond(exchange, ecbDelayMillis,
+                EcbXmlFixtures.history(DAY, 1, new BigDecimal("1.1000"), "USD", "JPY")));
+        server.createContext("/bundesbank", exchange -> respond(exchange, bundesbankDelayMillis, BUNDESBANK_CSV));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fetchLatest_ShouldMergeByPriority() {
+        BundesbankResponse merged = aggregation(Duration.ofSeconds(5)).fetchLatest().block();
+
+        assertNotNull(merged);
+        assertTrue(merged.hasData());
+        assertEquals(DAY, merged.getDate());
+        assertEquals(new BigDecimal("1.1000"), merged.getRate("USD").orElse(null));
+        assertEquals("ECB", merged.getRateSources().get("USD"));
+        assertEquals(new BigDecimal("0.0005"), merged.getRate("XAU").orElse(null));
+        assertEquals("BUNDESBANK", merged.getRateSources().get("XAU"));
+        assertEquals(3, merged.getCurrencyCount());
+        assertEquals("ECB,BUNDESBANK", merged.getDataSource());
+    }
+
+    @Test
+    void fetchLatest_ShouldTakeAsLongAsTheSlowestProviderNotTheSum() {
+        ecbDelayMillis = 1000;
+        bundesbankDelayMillis = 1000;
+        RateAggregationService aggregation = aggregation(Duration.ofSeconds(5));
+        aggregation.fetchLatest().block();
+
+        long startNanos = System.nanoTime();
+        BundesbankResponse merged = aggregation.fetchLatest().block();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertNotNull(merged);
+        assertEquals(3, merged.getCurrencyCount());
+        assertTrue(elapsedMillis >= 1000, "elapsed " + elapsedMillis);
+        assertTrue(elapsedMillis < 1800, "providers were not fetched concurrently, elapsed " + elapsedMillis);
+    }
+
+    @Test
+    void fetchLatest_ShouldDropProviderThatExceedsItsTimeout() {
+        bundesbankDelayMillis = 3000;
+
+        long startNanos = System.nanoTime();
+        BundesbankResponse merged = aggregation(Duration.ofMillis(500)).fetchLatest().block();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertNotNull(merged);
+        assertEquals("ECB", merged.getDataSource());
+        assertEquals(2, merged.getCurrencyCount());
+        assertTrue(elapsedMillis < 2500, "slow provider was awaited, elapsed " + elapsedMillis);
+
+        assertEquals(1, meterRegistry.get(IngestionMetrics.FETCH)
+                .tags("provider", "BUNDESBANK", "outcome", "timeout").timer().count());
+        assertEquals(1, meterRegistry.get(IngestionMetrics.FETCH)
+                .tags("provider", "ECB", "outcome", "success").timer().count());
+        assertTrue(meterRegistry.get(IngestionMetrics.FETCH_BYTES).tag("provider", "ECB").summary().totalAmount() > 0);
+    }
+
+    @Test
+    void fetchLatest_ShouldFailWhenNoProviderHasData() {
+        server.removeContext("/ecb");
+        server.removeContext("/bundesbank");
+
+        BundesbankResponse merged = aggregation(Duration.ofSeconds(2)).fetchLatest().block();
+
+        assertNotNull(merged);
+        assertFalse(merged.isSuccessful());
+    }
+
+    private RateAggregationService aggregation(Duration bundesbankTimeout) {
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        IngestionMetrics metrics = new IngestionMetrics(meterRegistry);
+        EcbXmlParser parser = new EcbXmlParser(new CurrencyRegistry(), metrics);
+
+        BundesbankApiClient ecbClient = new BundesbankApiClient(parser, metrics);
+        ReflectionTestUtils.setField(ecbClient, "ECB_DAILY_RATES_URL", base + "/ecb");
+        ReflectionTestUtils.setField(ecbClient, "timeoutMs", 5000);
+        ReflectionTestUtils.setField(ecbClient, "retryAttempts", 0);
+
+        return new RateAggregationService(Arrays.asList(
+                new BundesbankSdmxRateProvider(new CurrencyRegistry(), metrics, base + "/bundesbank", 2, bundesbankTimeout),
+                new EcbRateProvider(ecbClient, 1, Duration.ofSeconds(5))), metrics);
+    }
+
+    private static void respond(HttpExchange exchange, long delayMillis, String body) throws IOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateArchiveTest {
+
+    // A Friday
+    private static final LocalDate DAY = LocalDate.of(2023, 12, 15);
+
+    @TempDir
+    Path tempDir;
+
+    private final ExchangeRateJdbcReader exchangeRateReader = mock(ExchangeRateJdbcReader.class);
+    private final List<RateRecord> stored = new ArrayList<>();
+    private Path path;
+    private RateArchive rateArchive;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        path = tempDir.resolve("rates.archive");
+        rateArchive = new RateArchive(exchangeRateReader, true, path.toString());
+        when(exchangeRateReader.checksumRates()).thenAnswer(invocation -> checksum());
+        doAnswer(invocation -> {
+            Consumer<RateRecord> handler = invocation.getArgument(0);
+            stored.stream()
+                    .sorted(Comparator.comparing(RateRecord::getDate).thenComparing(RateRecord::getCurrencyCode))
+                    .forEach(handler);
+            return null;
+        }).when(exchangeRateReader).forEachRate(any(Consumer.class));
+
+        stored.addAll(Arrays.asList(
+                new RateRecord(DAY.minusDays(1), "USD", new BigDecimal("1.0916")),
+                new RateRecord(DAY.minusDays(1), "JPY", new BigDecimal("155.33")),
+                new RateRecord(DAY, "USD", new BigDecimal("1.0920")),
+                new RateRecord(DAY, "JPY", new BigDecimal("155.12"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateArchive.close();
+    }
+
+    @Test
+    void open_ShouldBuildArchiveFromStore() {
+        assertTrue(rateArchive.open());
+
+        assertTrue(rateArchive.isComplete());
+        assertEquals(4, rateArchive.size());
+        assertEquals(1_092_000L, rateArchive.findUnscaled("USD", DAY.toEpochDay()));
+        assertEquals(155_330_000L, rateArchive.findUnscaled("jpy", DAY.minusDays(1).toEpochDay()));
+        assertEquals(0, rateArchive.findUnscaled("GBP", DAY.toEpochDay()));
+        assertEquals(0, rateArchive.findUnscaled("USD", DAY.plusDays(1).toEpochDay()));
+        assertEquals(0, rateArchive.findUnscaled("US", DAY.toEpochDay()));
+    }
+
+    @Test
+    void floorDay_ShouldBridgeWeekend() {
+        rateArchive.open();
+
+        assertEquals(DAY.toEpochDay(), rateArchive.floorDay("USD", DAY.plusDays(2).toEpochDay()));
+        assertEquals(DAY.minusDays(1).toEpochDay(), rateArchive.floorDay("JPY", DAY.minusDays(1).toEpochDay()));
+        assertEquals(Long.MIN_VALUE, rateArchive.floorDay("USD", DAY.minusDays(2).toEpochDay()));
+        assertEquals(Long.MIN_VALUE, rateArchive.floorDay("USD", DAY.plusDays(30).toEpochDay()));
+    }
+
+    @Test
+    void forEachRate_ShouldVisitRangeOfOneCurrencyInDateOrder() {
+        rateArchive.open();
+        List<Long> days = new ArrayList<>();
+        List<Long> rates = new ArrayList<>();
+
+        int visited = rateArchive.forEachRate("JPY", Long.MIN_VALUE, DAY.toEpochDay(), (day, unscaled) -> {
+            days.add(day);
+            rates.add(unscaled);
+        });
+
+        assertEquals(2, visited);
+        assertEquals(List.of(DAY.minusDays(1).toEpochDay(), DAY.toEpochDay()), days);
+        assertEquals(List.of(155_330_000L, 155_120_000L), rates);
+        assertEquals(1, rateArchive.forEachRate("USD", DAY.toEpochDay(), Long.MAX_VALUE, (day, unscaled) -> { }));
+        assertEquals(0, rateArchive.forEachRate("GBP", Long.MIN_VALUE, Long.MAX_VALUE, (day, unscaled) -> { }));
+    }
+
+    @Test
+    void findUnscaled_ShouldMatchStoreAcrossUnevenHistory() {
+        stored.clear();
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        String[] codes = {"USD", "JPY", "GBP", "CHF", "TRY"};
+        // Dense years, a long gap and currencies that join or leave part-way
+        for (int day = 0; day < 4000; day++) {
+            if (day > 1500 && day < 2500 || random.nextInt(7) < 2) {
+                continue;
+            }
+            for (int c = 0; c < codes.length; c++) {
+                if (c == 4 && day < 3000 || c == 3 && day > 1000 || random.nextInt(10) == 0) {
+                    continue;
+                }
+                long unscaled = 1 + random.nextInt(1_000_000_000);
+                stored.add(new RateRecord(DAY.plusDays(day), codes[c], BigDecimal.valueOf(unscaled, RateIndex.SCALE)));
+                expected.put(codes[c] + (DAY.toEpochDay() + day), unscaled);
+            }
+        }
+        rateArchive.open();
+
+        for (int day = -10; day < 4010; day++) {
+            for (String code : codes) {
+                long epochDay = DAY.toEpochDay() + day;
+                assertEquals(expected.getOrDefault(code + epochDay, 0L), rateArchive.findUnscaled(code, epochDay),
+                        code + " " + day);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void append_ShouldAddNewerDaysAndCurrenciesInPlace() {
+        rateArchive.open();
+        List<RateRecord> next = Arrays.asList(
+                new RateRecord(DAY.plusDays(3), "USD", new BigDecimal("1.0950")),
+                new RateRecord(DAY.plusDays(3), "GBP", new BigDecimal("0.8601")),
+                // Already archived, e.g. the same file ingested twice
+                new RateRecord(DAY, "USD", new BigDecimal("1.0920")));
+
+        rateArchive.append(next);
+
+        assertEquals(6, rateArchive.size());
+        assertEquals(1_095_000L, rateArchive.findUnscaled("USD", DAY.plusDays(3).toEpochDay()));
+        assertEquals(860_100L, rateArchive.findUnscaled("GBP", DAY.plusDays(3).toEpochDay()));
+        verify(exchangeRateReader, times(1)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void append_ShouldRebuild_WhenRateIsCorrectedOrBackfilled() {
+        rateArchive.open();
+        RateRecord corrected = new RateRecord(DAY.minusDays(1), "USD", new BigDecimal("1.0917"));
+        stored.set(0, corrected);
+
+        rateArchive.append(List.of(corrected));
+
+        assertEquals(1_091_700L, rateArchive.findUnscaled("USD", DAY.minusDays(1).toEpochDay()));
+        assertEquals(4, rateArchive.size());
+        verify(exchangeRateReader, times(2)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    void invalidate_ShouldKeepArchiveIncompleteUntilRebuilt() throws IOException {
+        rateArchive.open();
+        rateArchive.invalidate();
+        RateRecord next = new RateRecord(DAY.plusDays(3), "USD", new BigDecimal("1.0950"));
+        stored.add(next);
+
+        rateArchive.append(List.of(next));
+
+        assertFalse(rateArchive.isComplete());
+        assertEquals(1_095_000L, rateArchive.findUnscaled("USD", DAY.plusDays(3).toEpochDay()));
+
+        rateArchive.rebuild();
+
+        assertTrue(rateArchive.isComplete());
+        assertEquals(5, rateArchive.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_ShouldMapExistingArchiveWithoutReadingStore() {
+        rateArchive.open();
+        RateRecord next = new RateRecord(DAY.plusDays(3), "GBP", new BigDecimal("0.8601"));
+        stored.add(next);
+        rateArchive.append(List.of(next));
+        rateArchive.close();
+
+        RateArchive reopened = new RateArchive(exchangeRateReader, true, path.toString());
+        try {
+            assertTrue(reopened.open());
+            assertEquals(5, reopened.size());
+            assertEquals(860_100L, reopened.findUnscaled("GBP", DAY.plusDays(3).toEpochDay()));
+            assertEquals(1_092_000L, reopened.findUnscaled("USD", DAY.toEpochDay()));
+        } finally {
+            reopened.close();
+        }
+        verify(exchangeRateReader, times(1)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_ShouldRebuild_WhenArchiveIsTornOrForeign() throws IOException {
+        rateArchive.open();
+        rateArchive.close();
+        // Half a record left behind by an interrupted append
+        Files.write(path, new byte[RateArchive.RECORD_BYTES / 2], StandardOpenOption.APPEND);
+        stored.add(new RateRecord(DAY.plusDays(3), "USD", new BigDecimal("1.0950")));
+
+        assertTrue(rateArchive.open());
+        assertEquals(5, rateArchive.size());
+        rateArchive.close();
+
+        Files.write(path, "not an archive".getBytes());
+        assertTrue(rateArchive.open());
+        assertEquals(1_095_000L, rateArchive.findUnscaled("USD", DAY.plusDays(3).toEpochDay()));
+        verify(exchangeRateReader, times(3)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_ShouldRebuild_WhenStoreChangedWithoutAppend() {
+        rateArchive.open();
+        rateArchive.close();
+        // A correction committed, then the process stopped before archiving it
+        stored.set(0, new RateRecord(DAY.minusDays(1), "USD", new BigDecimal("1.0917")));
+
+        assertTrue(rateArchive.open());
+        assertEquals(1_091_700L, rateArchive.findUnscaled("USD", DAY.minusDays(1).toEpochDay()));
+        verify(exchangeRateReader, times(2)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_ShouldMapExistingArchive_WhenStoreHoldsRatesItCannotArchive() {
+        stored.add(new RateRecord(DAY, "XAU", BigDecimal.ZERO));
+        rateArchive.open();
+        rateArchive.close();
+
+        assertTrue(rateArchive.open());
+        assertEquals(4, rateArchive.size());
+        verify(exchangeRateReader, times(1)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_ShouldRebuild_WhenInvalidatedBeforeRestart() {
+        rateArchive.open();
+        rateArchive.invalidate();
+        rateArchive.close();
+
+        assertTrue(rateArchive.open());
+        assertTrue(rateArchive.isComplete());
+        verify(exchangeRateReader, times(2)).forEachRate(any(Consumer.class));
+    }
+
+    @Test
+    void disabled_ShouldAnswerNothing() {
+        RateArchive disabled = new RateArchive(exchangeRateReader, false, path.toString());
+
+        assertFalse(disabled.open());
+        disabled.append(stored);
+
+        assertFalse(disabled.isComplete());
+        assertEquals(0, disabled.findUnscaled("USD", DAY.toEpochDay()));
+        assertFalse(Files.exists(path));
+        verifyNoInteractions(exchangeRateReader);
+    }
+
+    private long checksum() {
+        long sum = 0;
+        for (RateRecord record : stored) {
+            sum += record.getRate().movePointRight(RateIndex.SCALE).longValue();
+        }
+        return 31L * stored.size() + sum;
+    }
+}
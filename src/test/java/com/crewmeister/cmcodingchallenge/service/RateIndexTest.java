@@ -0,0 +1,197 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class RateIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 12, 15);
+
+    private final CurrencyRegistry currencyRegistry = new CurrencyRegistry();
+    private final ExchangeRateJdbcReader exchangeRateReader = mock(ExchangeRateJdbcReader.class);
+    private final RateIndex rateIndex = new RateIndex(currencyRegistry, exchangeRateReader);
+
+    @Test
+    void find_ShouldReturnRateAtStoreScale() {
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.0916")),
+                new RateRecord(DAY, "JPY", new BigDecimal("155.33"))));
+
+        assertEquals(new BigDecimal("1.091600"), rateIndex.find("USD", DAY));
+        assertEquals(new BigDecimal("155.330000"), rateIndex.find("jpy", DAY));
+        assertNull(rateIndex.find("GBP", DAY));
+        assertNull(rateIndex.find("USD", DAY.plusDays(1)));
+        assertNull(rateIndex.find("XYZ", DAY));
+        assertEquals(2, rateIndex.size());
+    }
+
+    @Test
+    void putAll_ShouldGrowInBothDirections() {
+        List<RateRecord> history = new ArrayList<>();
+        // Newest first, as in eurofxref-hist.xml
+        for (int day = 0; day < 9000; day++) {
+            history.add(new RateRecord(DAY.minusDays(day), "USD", BigDecimal.valueOf(1 + day, 4)));
+        }
+        rateIndex.putAll(history.subList(0, 100));
+        rateIndex.putAll(history.subList(100, history.size()));
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY.plusYears(1), "USD", BigDecimal.TEN)));
+
+        assertEquals(9001, rateIndex.size());
+        assertEquals(new BigDecimal("0.000100"), rateIndex.find("USD", DAY));
+        assertEquals(new BigDecimal("0.900000"), rateIndex.find("USD", DAY.minusDays(8999)));
+        assertEquals(new BigDecimal("10.000000"), rateIndex.find("USD", DAY.plusYears(1)));
+        assertNull(rateIndex.find("USD", DAY.minusDays(9000)));
+    }
+
+    @Test
+    void putAll_ShouldReplaceExistingRate() {
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY, "USD", new BigDecimal("1.0916"))));
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY, "USD", new BigDecimal("1.1"))));
+
+        assertEquals(1, rateIndex.size());
+        assertEquals(new BigDecimal("1.100000"), rateIndex.find("USD", DAY));
+    }
+
+    @Test
+    void putAll_ShouldSkipUnregisteredCurrencies() {
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY, "XAU", new BigDecimal("0.0005"))));
+        assertNull(rateIndex.find("XAU", DAY));
+
+        currencyRegistry.register(Collections.singletonMap("XAU", "Gold"));
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY, "XAU", new BigDecimal("0.0005"))));
+        assertEquals(new BigDecimal("0.000500"), rateIndex.find("XAU", DAY));
+    }
+
+    @Test
+    void floorDay_ShouldFindLatestDayOnOrBefore() {
+        LocalDate friday = LocalDate.of(2023, 12, 22);
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(friday, "USD", new BigDecimal("1.1")),
+                new RateRecord(friday.plusDays(5), "USD", new BigDecimal("1.2"))));
+        int usd = currencyRegistry.ordinal("USD");
+
+        assertEquals(friday.toEpochDay(), rateIndex.floorDay(usd, friday.toEpochDay()));
+        assertEquals(friday.toEpochDay(), rateIndex.floorDay(usd, friday.plusDays(4).toEpochDay()));
+        assertEquals(friday.plusDays(5).toEpochDay(), rateIndex.floorDay(usd, friday.plusYears(1).toEpochDay()));
+        assertEquals(Long.MIN_VALUE, rateIndex.floorDay(usd, friday.minusDays(1).toEpochDay()));
+        assertEquals(Long.MIN_VALUE, rateIndex.floorDay(currencyRegistry.ordinal("GBP"), friday.toEpochDay()));
+
+        rateIndex.putAll(Collections.singletonList(new RateRecord(friday.plusDays(3), "USD", new BigDecimal("1.15"))));
+        assertEquals(friday.plusDays(3).toEpochDay(), rateIndex.floorDay(usd, friday.plusDays(4).toEpochDay()));
+    }
+
+    @Test
+    void window_ShouldAggregateFilledDaysInRange() {
+        rateIndex.putAll(Arrays.asList(
+                new RateRecord(DAY, "USD", new BigDecimal("1.0")),
+                new RateRecord(DAY.plusDays(1), "USD", new BigDecimal("3.0")),
+                new RateRecord(DAY.plusDays(4), "USD", new BigDecimal("2.0")),
+                new RateRecord(DAY.plusDays(5), "USD", new BigDecimal("4.0"))));
+        int usd = currencyRegistry.ordinal("USD");
+
+        RateWindowStats all = rateIndex.window(usd, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4, all.getCount());
+        assertEquals(DAY, all.getFirstDate());
+        assertEquals(new BigDecimal("1.000000"), all.getFirst());
+        assertEquals(DAY.plusDays(5), all.getLastDate());
+        assertEquals(new BigDecimal("4.000000"), all.getLast());
+        assertEquals(new BigDecimal("1.000000"), all.getMin());
+        assertEquals(new BigDecimal("4.000000"), all.getMax());
+        assertEquals(new BigDecimal("2.500000"), all.getMean());
+        assertEquals(new BigDecimal("1.290994"), all.getStddev());
+
+        RateWindowStats middle = rateIndex.window(usd, DAY.plusDays(1).toEpochDay(), DAY.plusDays(4).toEpochDay());
+        assertEquals(2, middle.getCount());
+        assertEquals(new BigDecimal("2.000000"), middle.getMin());
+        assertEquals(new BigDecimal("3.000000"), middle.getMax());
+
+        RateWindowStats single = rateIndex.window(usd, DAY.plusDays(2).toEpochDay(), DAY.plusDays(4).toEpochDay());
+        assertEquals(1, single.getCount());
+        assertNull(single.getStddev());
+
+        assertTrue(rateIndex.window(usd, DAY.plusDays(2).toEpochDay(), DAY.plusDays(3).toEpochDay()).isEmpty());
+        assertTrue(rateIndex.window(usd, DAY.plusDays(5).toEpochDay(), DAY.toEpochDay()).isEmpty());
+        assertTrue(rateIndex.window(currencyRegistry.ordinal("GBP"), Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        assertNull(RateWindowStats.EMPTY.getMean());
+    }
+
+    @Test
+    void window_ShouldMatchScan_AfterIncrementalIngests() {
+        Random random = new Random(42);
+        int usd = currencyRegistry.ordinal("USD");
+        List<Long> days = new ArrayList<>();
+        List<Long> rates = new ArrayList<>();
+        for (int batch = 0; batch < 5; batch++) {
+            List<RateRecord> records = new ArrayList<>();
+            for (int day = batch * 400; day < (batch + 1) * 400; day++) {
+                if (random.nextInt(7) < 5) {
+                    long unscaled = 15_000_000_000L + random.nextInt(2_000_000);
+                    records.add(new RateRecord(DAY.plusDays(day), "USD", BigDecimal.valueOf(unscaled, RateIndex.SCALE)));
+                    days.add(DAY.plusDays(day).toEpochDay());
+                    rates.add(unscaled);
+                }
+            }
+            rateIndex.putAll(records);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            long from = DAY.toEpochDay() - 10 + random.nextInt(2020);
+            long to = from + random.nextInt(800);
+            List<Long> windowDays = new ArrayList<>();
+            List<Long> windowRates = new ArrayList<>();
+            for (int i = 0; i < days.size(); i++) {
+                if (days.get(i) >= from && days.get(i) <= to) {
+                    windowDays.add(days.get(i));
+                    windowRates.add(rates.get(i));
+                }
+            }
+            RateWindowStats expected = RateWindowStats.scan(
+                    windowDays.stream().mapToLong(Long::longValue).toArray(),
+                    windowRates.stream().mapToLong(Long::longValue).toArray());
+            RateWindowStats actual = rateIndex.window(usd, from, to);
+
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getFirstDate(), actual.getFirstDate());
+            assertEquals(expected.getLast(), actual.getLast());
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+            assertEquals(expected.getMean(), actual.getMean());
+            if (expected.getStddev() != null) {
+                assertEquals(expected.getStddev().doubleValue(), actual.getStddev().doubleValue(), 0.000002);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reload_ShouldReplaceContentsWithStore() {
+        rateIndex.putAll(Collections.singletonList(new RateRecord(DAY, "GBP", new BigDecimal("0.86"))));
+        doAnswer(invocation -> {
+            Consumer<RateRecord> handler = invocation.getArgument(0);
+            handler.accept(new RateRecord(DAY, "USD", new BigDecimal("1.0916")));
+            handler.accept(new RateRecord(DAY.plusDays(1), "USD", new BigDecimal("1.0920")));
+            return null;
+        }).when(exchangeRateReader).forEachRate(any(Consumer.class));
+
+        rateIndex.reload();
+
+        assertEquals(2, rateIndex.size());
+        assertNull(rateIndex.find("GBP", DAY));
+        assertEquals(new BigDecimal("1.092000"), rateIndex.find("USD", DAY.plusDays(1)));
+    }
+}
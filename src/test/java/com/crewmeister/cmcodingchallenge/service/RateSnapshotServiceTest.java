@@ -0,0 +1,99 @@
+package com.crewmeister.cmcodingchallenge.service;
+
+import com.crewmeister.cmcodingchallenge.dto.RateRecord;
+import com.crewmeister.cmcodingchallenge.metrics.IngestionMetrics;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcReader;
+import com.crewmeister.cmcodingchallenge.repository.ExchangeRateJdbcWriter;
+import com.crewmeister.cmcodingchallenge.repository.RateSnapshotFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateSnapshotServiceTest {
+
+    private static final RateRecord RATE = new RateRecord(LocalDate.of(2023, 12, 15), "USD", new BigDecimal("1.0920"));
+
+    @TempDir
+    Path tempDir;
+
+    private final ExchangeRateJdbcReader exchangeRateReader = mock(ExchangeRateJdbcReader.class);
+    private RateSnapshotService snapshotService;
+    private Path path;
+
+    @BeforeEach
+    void setUp() {
+        path = tempDir.resolve("rates.snapshot");
+        snapshotService = new RateSnapshotService(exchangeRateReader, mock(ExchangeRateJdbcWriter.class),
+                mock(PlatformTransactionManager.class), new DefaultResourceLoader(), new CurrencyRegistry(),
+                new IngestionMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(snapshotService, "enabled", true);
+        ReflectionTestUtils.setField(snapshotService, "snapshotPath", path.toString());
+        when(exchangeRateReader.findCurrencyNames()).thenReturn(Map.of("USD", "US Dollar"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_ShouldShareOneWriteBetweenCallersQueuedBehindARunningSave() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            invocation.<Consumer<RateRecord>>getArgument(0).accept(RATE);
+            return null;
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<RateRecord>>getArgument(0).accept(RATE);
+            return null;
+        }).when(exchangeRateReader).forEachRate(any(Consumer.class));
+
+        Thread running = new Thread(snapshotService::save);
+        running.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        Thread first = new Thread(snapshotService::save);
+        Thread second = new Thread(snapshotService::save);
+        first.start();
+        second.start();
+        awaitBlocked(first);
+        awaitBlocked(second);
+        release.countDown();
+        for (Thread thread : new Thread[]{running, first, second}) {
+            thread.join(10_000);
+        }
+
+        verify(exchangeRateReader, times(2)).forEachRate(any(Consumer.class));
+        try (InputStream input = Files.newInputStream(path)) {
+            RateSnapshotFormat.Reader reader = RateSnapshotFormat.reader(input);
+            assertEquals(Map.of("USD", "US Dollar"), reader.getCurrencyNames());
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.BLOCKED) {
+            assertTrue(System.nanoTime() < deadline, thread.getName() + " never queued behind the running save");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.crewmeister.cmcodingchallenge.support;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Synthetic ECB eurofxref documents for tests and benchmarks
+ */
+public final class EcbXmlFixtures {
+
+    public static final String[] ECB_CURRENCIES = {
+            "USD", "JPY", "BGN", "CZK", "DKK", "GBP", "HUF", "PLN", "RON", "SEK",
+            "CHF", "ISK", "NOK", "TRY", "AUD", "BRL", "CAD", "CNY", "HKD", "IDR",
+            "ILS", "INR", "KRW", "MXN", "MYR", "NZD", "PHP", "SGD", "THB", "ZAR"
+    };
+
+    private EcbXmlFixtures() {
+    }
+
+    /**
+     * Document with {@code days} time cubes ending at {@code lastDay}, newest first, with varying rates
+     */
+    public static String history(LocalDate lastDay, int days, String... currencies) {
+        return build(lastDay, days, currencies, null);
+    }
+
+    /**
+     * Same as {@link #history(LocalDate, int, String...)} but every rate is {@code rate}
+     */
+    public static String history(LocalDate lastDay, int days, BigDecimal rate, String... currencies) {
+        return build(lastDay, days, currencies, rate);
+    }
+
+    private static String build(LocalDate lastDay, int days, String[] currencies, BigDecimal fixedRate) {
+        StringBuilder xml = new StringBuilder(128 + days * (32 + currencies.length * 40));
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<gesmes:Envelope xmlns:gesmes=\"http://www.gesmes.org/xml/2002-08-01\" ")
+                .append("xmlns=\"http://www.ecb.int/vocabulary/2002-08-01/eurofxref\">")
+                .append("<gesmes:subject>Reference rates</gesmes:subject>")
+                .append("<gesmes:Sender><gesmes:name>European Central Bank</gesmes:name></gesmes:Sender>")
+                .append("<Cube>");
+        for (int day = 0; day < days; day++) {
+            xml.append("<Cube time=\"").append(lastDay.minusDays(day)).append("\">");
+            for (int i = 0; i < currencies.length; i++) {
+                xml.append("<Cube currency=\"").append(currencies[i]).append("\" rate=\"");
+                if (fixedRate != null) {
+                    xml.append(fixedRate.toPlainString());
+                } else {
+                    xml.append(i + 1).append('.').append(1000 + (day * 31 + i * 7) % 9000);
+                }
+                xml.append("\"/>");
+            }
+            xml.append("</Cube>");
+        }
+        return xml.append("</Cube></gesmes:Envelope>").toString();
+    }
+}
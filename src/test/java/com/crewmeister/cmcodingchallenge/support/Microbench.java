@@ -0,0 +1,30 @@
+package com.crewmeister.cmcodingchallenge.support;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Minimal warm-up-then-measure loop for the {@code benchmark} tagged tests. Results are
+ * indicative only; they are meant for comparing two code paths on the same machine.
+ */
+public final class Microbench {
+
+    @SuppressWarnings("unused")
+    private static volatile Object sink;
+
+    private Microbench() {
+    }
+
+    /**
+     * @return average wall-clock milliseconds per invocation of {@code operation}
+     */
+    public static double averageMillis(int warmupIterations, int measuredIterations, Callable<?> operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            sink = operation.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            sink = operation.call();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / measuredIterations;
+    }
+}